@@ -0,0 +1,40 @@
+package com.squeakybagco.lifesteal.benchmarks;
+
+import com.squeakybagco.lifesteal.utils.HeartUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the heart bar shown in chat and scoreboards
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeartDisplayBenchmark {
+    
+    @Param({"3", "20", "40"})
+    public int hearts;
+    
+    @Benchmark
+    public String heartDisplay() {
+        return HeartUtils.getHeartDisplay(hearts);
+    }
+    
+    @Benchmark
+    public String formatHearts() {
+        return HeartUtils.formatHearts(hearts);
+    }
+}
@@ -0,0 +1,82 @@
+package com.squeakybagco.lifesteal.benchmarks;
+
+import com.squeakybagco.lifesteal.managers.HeartItemFormat;
+import com.squeakybagco.lifesteal.managers.HeartItemPrototypes;
+import com.squeakybagco.lifesteal.metrics.Counter;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating heart items through the plugin's {@link HeartItemPrototypes}, as
+ * CustomHeartManager.createHeartItem and giveHeartItems do, on stub items
+ * whose clone() copies the meta like CraftItemStack's.
+ * {@code build} is the cost every item had before prototypes were cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeartItemCreateBenchmark {
+    
+    @Param({"1", "64", "640"})
+    public int amount;
+    
+    private HeartItemFormat format;
+    private HeartItemPrototypes prototypes;
+    
+    @Setup
+    public void setup() {
+        format = new HeartItemFormat(new NamespacedKey("lifesteal", "lifesteal_heart"),
+            new NamespacedKey("lifesteal", "heart_value"), EnumSet.of(Material.PAPER));
+        prototypes = new HeartItemPrototypes(this::build, new Counter(), new Counter());
+    }
+    
+    @Benchmark
+    public ItemStack create() {
+        return prototypes.create(2);
+    }
+    
+    @Benchmark
+    public ItemStack[] createStacks() {
+        return prototypes.createStacks(2, amount);
+    }
+    
+    @Benchmark
+    public ItemStack build() {
+        return build(2);
+    }
+    
+    /**
+     * Same steps as CustomHeartManager's prototype builder
+     */
+    private ItemStack build(int heartValue) {
+        ItemStack heart = StubItems.item(Material.PAPER, null);
+        ItemMeta meta = heart.getItemMeta();
+        meta.setDisplayName("§c❤ §lLifesteal Heart §c❤");
+        String hearts = String.valueOf(heartValue / 2.0);
+        meta.setLore(List.of("§7Right-click to consume", "§7and gain §c" + hearts + " §7heart(s)", "", "§8Lifesteal Heart"));
+        format.mark(meta, heartValue);
+        meta.setUnbreakable(true);
+        heart.setItemMeta(meta);
+        return heart;
+    }
+}
@@ -0,0 +1,75 @@
+package com.squeakybagco.lifesteal.benchmarks;
+
+import com.squeakybagco.lifesteal.storage.PlayerData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The data side of a PvP kill as processHeartSteal runs it: two cache
+ * lookups, the clamped heart transfer, and the kill and death counters.
+ * Several region threads run kills at once; a small player pool puts them
+ * all on the same records, a large one spreads them out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class HeartTransferBenchmark {
+    
+    private static final int MIN_HEARTS = 2;
+    private static final int MAX_HEARTS = 40;
+    private static final int HEARTS_PER_KILL = 2;
+    
+    @Param({"2", "16", "1024"})
+    public int players;
+    
+    private UUID[] playerIds;
+    private final Map<UUID, PlayerData> cache = new ConcurrentHashMap<>();
+    
+    @Setup
+    public void setup() {
+        playerIds = new UUID[players];
+        for (int i = 0; i < players; i++) {
+            playerIds[i] = UUID.randomUUID();
+            cache.put(playerIds[i], new PlayerData(playerIds[i], 20, 0, 0, 0));
+        }
+    }
+    
+    @Benchmark
+    public int steal() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int victimIndex = random.nextInt(players);
+        int killerIndex = (victimIndex + 1 + random.nextInt(players - 1)) % players;
+        
+        PlayerData killer = cache.get(playerIds[killerIndex]);
+        PlayerData victim = cache.get(playerIds[victimIndex]);
+        killer.incrementKills();
+        victim.recordDeath(System.currentTimeMillis());
+        
+        PlayerData.Transfer transfer = PlayerData.transferHearts(victim, killer, HEARTS_PER_KILL, MIN_HEARTS, MAX_HEARTS);
+        int moved = transfer.moved();
+        if (moved == 0 && victim.getHearts() <= MIN_HEARTS) {
+            victim.setHearts(20); // Respawn with fresh hearts so the pool keeps trading
+        }
+        return moved;
+    }
+}
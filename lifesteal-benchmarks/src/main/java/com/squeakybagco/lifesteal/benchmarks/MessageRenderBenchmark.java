@@ -0,0 +1,76 @@
+package com.squeakybagco.lifesteal.benchmarks;
+
+import com.squeakybagco.lifesteal.messages.MessageTemplate;
+import com.squeakybagco.lifesteal.messages.Placeholder;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting the heart-lost kill message. {@code replaceChain} is the old
+ * path: translate color codes, three String.replace calls, then the legacy
+ * parse sendMessage(String) does. The template paths render a message that
+ * was parsed once at load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageRenderBenchmark {
+    
+    private static final String PREFIX = "&8[&cLifesteal&8] &r";
+    private static final String MESSAGE = "&cYou lost &4{amount} &cheart(s) to &6{killer}&c! You now have &4{hearts} &cheart(s).";
+    private static final String MINI_MESSAGE = "<red>You lost <dark_red>{amount}</dark_red> heart(s) to <gold>{killer}</gold>! "
+        + "You now have <dark_red>{hearts}</dark_red> heart(s).";
+    
+    private static final LegacyComponentSerializer AMPERSAND = LegacyComponentSerializer.builder()
+        .character('&')
+        .hexColors()
+        .build();
+    
+    private MessageTemplate legacyTemplate;
+    private MessageTemplate miniMessageTemplate;
+    private final String killer = "Notch";
+    private final int amount = 2;
+    private final int hearts = 18;
+    
+    @Setup
+    public void setup() {
+        Component prefix = AMPERSAND.deserialize(PREFIX);
+        legacyTemplate = MessageTemplate.compile(prefix, MESSAGE, AMPERSAND::deserialize);
+        miniMessageTemplate = MessageTemplate.compile(prefix, MINI_MESSAGE, MiniMessage.miniMessage()::deserialize);
+    }
+    
+    @Benchmark
+    public Component replaceChain() {
+        String message = (PREFIX + MESSAGE).replace('&', '§')
+            .replace("{amount}", String.valueOf(amount))
+            .replace("{killer}", killer)
+            .replace("{hearts}", String.valueOf(hearts));
+        return LegacyComponentSerializer.legacySection().deserialize(message);
+    }
+    
+    @Benchmark
+    public Component legacyTemplate() {
+        return legacyTemplate.render(Placeholder.AMOUNT, amount, Placeholder.KILLER, killer, Placeholder.HEARTS, hearts);
+    }
+    
+    @Benchmark
+    public Component miniMessageTemplate() {
+        return miniMessageTemplate.render(Placeholder.AMOUNT, amount, Placeholder.KILLER, killer, Placeholder.HEARTS, hearts);
+    }
+}
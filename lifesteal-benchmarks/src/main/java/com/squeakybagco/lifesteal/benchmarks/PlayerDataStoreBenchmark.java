@@ -0,0 +1,111 @@
+package com.squeakybagco.lifesteal.benchmarks;
+
+import com.squeakybagco.lifesteal.storage.BinaryPlayerDataStore;
+import com.squeakybagco.lifesteal.storage.PlayerData;
+import com.squeakybagco.lifesteal.storage.PlayerDataStore;
+import com.squeakybagco.lifesteal.storage.YamlPlayerDataStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Load and save latency of the storage backends against a temp directory
+ * holding a realistic number of players. The write-behind queue and caches
+ * are left out, this is the cost the background threads pay per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerDataStoreBenchmark {
+    
+    private static final int PLAYERS = 2000;
+    private static final int BATCH_SIZE = 64;
+    
+    @Param({"binary", "file"})
+    public String storeType;
+    
+    private Path directory;
+    private PlayerDataStore store;
+    private UUID[] playerIds;
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("lifesteal-bench");
+        store = switch (storeType) {
+            case "binary" -> new BinaryPlayerDataStore(directory.resolve("playerdata.dat").toFile(), Logger.getLogger("bench"));
+            case "file" -> new YamlPlayerDataStore(directory.resolve("playerdata").toFile(), () -> 20);
+            default -> throw new IllegalArgumentException("Unknown store " + storeType);
+        };
+        
+        playerIds = new UUID[PLAYERS];
+        List<PlayerData> batch = new ArrayList<>(PLAYERS);
+        for (int i = 0; i < PLAYERS; i++) {
+            playerIds[i] = UUID.randomUUID();
+            batch.add(new PlayerData(playerIds[i], 2 + i % 39, 0, i % 50, i % 30));
+        }
+        store.save(batch);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    @Benchmark
+    public PlayerData load() throws IOException {
+        return store.load(randomPlayer());
+    }
+    
+    @Benchmark
+    public void saveBatch() throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<PlayerData> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new PlayerData(randomPlayer(), 2 + random.nextInt(39), System.currentTimeMillis(), random.nextInt(50), random.nextInt(30)));
+        }
+        store.save(batch);
+    }
+    
+    /**
+     * A player leaving and joining again: write their record, read it back
+     */
+    @Benchmark
+    public PlayerData roundTrip() throws IOException {
+        UUID playerId = randomPlayer();
+        store.save(List.of(new PlayerData(playerId, 20, System.currentTimeMillis(), 3, 1)));
+        return store.load(playerId);
+    }
+    
+    private UUID randomPlayer() {
+        return playerIds[ThreadLocalRandom.current().nextInt(PLAYERS)];
+    }
+}
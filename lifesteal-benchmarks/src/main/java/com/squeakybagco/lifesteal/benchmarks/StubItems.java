@@ -0,0 +1,142 @@
+package com.squeakybagco.lifesteal.benchmarks;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Items that behave like CraftItemStack without a server: getItemMeta()
+ * and clone() copy the name, lore and persistent data the way the real
+ * classes do, so plugin code runs unchanged against them.
+ */
+final class StubItems {
+    
+    private StubItems() {
+    }
+    
+    static ItemStack item(Material type, ItemMeta meta) {
+        return new StubItemStack(type, meta, 1);
+    }
+    
+    /**
+     * @return Empty meta, record-keeping for whatever the plugin sets on it
+     */
+    static ItemMeta meta() {
+        return meta(new HashMap<>(), new HashMap<>());
+    }
+    
+    private static ItemMeta meta(Map<String, Object> values, Map<NamespacedKey, Object> data) {
+        PersistentDataContainer container = container(data);
+        return (ItemMeta) Proxy.newProxyInstance(ItemMeta.class.getClassLoader(), new Class<?>[] {ItemMeta.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "clone" -> meta(new HashMap<>(values), new HashMap<>(data));
+                case "getPersistentDataContainer" -> container;
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "StubMeta" + values;
+                default -> {
+                    // Setters record their argument, getters return it
+                    if (args != null && args.length == 1) {
+                        values.put(method.getName(), args[0]);
+                        yield defaultValue(method);
+                    }
+                    Object value = values.get(method.getName());
+                    yield value != null ? value : defaultValue(method);
+                }
+            });
+    }
+    
+    private static PersistentDataContainer container(Map<NamespacedKey, Object> data) {
+        return (PersistentDataContainer) Proxy.newProxyInstance(PersistentDataContainer.class.getClassLoader(),
+            new Class<?>[] {PersistentDataContainer.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "set" -> {
+                    data.put((NamespacedKey) args[0], args[2]);
+                    yield null;
+                }
+                case "get" -> data.get((NamespacedKey) args[0]);
+                case "getOrDefault" -> data.getOrDefault((NamespacedKey) args[0], args[2]);
+                case "has" -> data.containsKey((NamespacedKey) args[0]);
+                case "remove" -> data.remove((NamespacedKey) args[0]);
+                case "isEmpty" -> data.isEmpty();
+                case "getKeys" -> data.keySet();
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "StubData" + data;
+                default -> defaultValue(method);
+            });
+    }
+    
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+    
+    private static final class StubItemStack extends ItemStack {
+        
+        private final Material type;
+        private ItemMeta meta;
+        private int amount;
+        
+        private StubItemStack(Material type, ItemMeta meta, int amount) {
+            this.type = type;
+            this.meta = meta;
+            this.amount = amount;
+        }
+        
+        @Override
+        public Material getType() {
+            return type;
+        }
+        
+        @Override
+        public int getAmount() {
+            return amount;
+        }
+        
+        @Override
+        public void setAmount(int amount) {
+            this.amount = amount;
+        }
+        
+        @Override
+        public int getMaxStackSize() {
+            return 64;
+        }
+        
+        @Override
+        public boolean hasItemMeta() {
+            return meta != null;
+        }
+        
+        @Override
+        public ItemMeta getItemMeta() {
+            return meta != null ? meta.clone() : meta();
+        }
+        
+        @Override
+        public boolean setItemMeta(ItemMeta meta) {
+            this.meta = meta != null ? meta.clone() : null;
+            return true;
+        }
+        
+        @Override
+        public ItemStack clone() {
+            return new StubItemStack(type, meta != null ? meta.clone() : null, amount);
+        }
+    }
+}
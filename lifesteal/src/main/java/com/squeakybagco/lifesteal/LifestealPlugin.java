@@ -1,35 +1,92 @@
 package com.squeakybagco.lifesteal;
 
+import com.squeakybagco.lifesteal.audit.AuditLog;
+import com.squeakybagco.lifesteal.commands.CommandPipeline;
 import com.squeakybagco.lifesteal.commands.HeartCommand;
 import com.squeakybagco.lifesteal.commands.LifestealCommand;
+import com.squeakybagco.lifesteal.cooldown.CooldownService;
+import com.squeakybagco.lifesteal.effects.EffectRouter;
 import com.squeakybagco.lifesteal.listeners.CombatListener;
+import com.squeakybagco.lifesteal.managers.BulkOperationManager;
 import com.squeakybagco.lifesteal.managers.ConfigManager;
 import com.squeakybagco.lifesteal.managers.CustomHeartManager;
+import com.squeakybagco.lifesteal.managers.LeaderboardManager;
+import com.squeakybagco.lifesteal.managers.MigrationManager;
 import com.squeakybagco.lifesteal.managers.PlayerDataManager;
+import com.squeakybagco.lifesteal.managers.PlayerNameManager;
+import com.squeakybagco.lifesteal.metrics.MetricsRegistry;
+import com.squeakybagco.lifesteal.metrics.PrometheusExporter;
+import com.squeakybagco.lifesteal.scheduler.TaskScheduler;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.io.IOException;
+
 public class LifestealPlugin extends JavaPlugin {
     
     private static LifestealPlugin instance;
     private PlayerDataManager playerDataManager;
     private ConfigManager configManager;
-    private CustomHeartManager customHeartManager;
+    private volatile CustomHeartManager customHeartManager;
+    private MigrationManager migrationManager;
+    private BulkOperationManager bulkOperationManager;
+    private LeaderboardManager leaderboardManager;
+    private EffectRouter effectRouter;
+    private TaskScheduler taskScheduler;
+    private MetricsRegistry metrics;
+    private PrometheusExporter metricsExporter;
+    private AuditLog auditLog;
+    private PlayerNameManager playerNameManager;
+    private CommandPipeline commandPipeline;
+    private CooldownService cooldownService;
     
     @Override
     public void onEnable() {
         instance = this;
+        this.metrics = new MetricsRegistry();
+        this.taskScheduler = TaskScheduler.create(this);
+        for (TaskScheduler.Type type : TaskScheduler.Type.values()) {
+            String name = type.name().toLowerCase();
+            metrics.histogram("scheduler_delay_" + name, "Time " + name + " tasks waited past their requested delay",
+                taskScheduler.getDelayHistogram(type));
+        }
         
         // Initialize managers
         this.configManager = new ConfigManager(this);
-        this.playerDataManager = new PlayerDataManager(this);
-
-        scheduleGlobalTask(() -> {
+        this.auditLog = new AuditLog(new File(getDataFolder(), "audit"), getLogger(), configManager.getAuditQueueCapacity(),
+            configManager.getAuditMaxFileSize() * 1024L * 1024L, configManager.getAuditRetentionDays());
+        auditLog.setEnabled(configManager.isAuditEnabled());
+        metrics.counter("audit_records", "Audit records written to disk", auditLog::getWrittenCount);
+        metrics.counter("audit_dropped", "Audit records dropped because the writer fell behind", auditLog::getDroppedCount);
+        this.leaderboardManager = new LeaderboardManager(this);
+        try {
+            this.playerDataManager = new PlayerDataManager(this);
+        } catch (IOException e) {
+            // Running on any other store would hand out defaults and save them over the real data
+            getLogger().severe(e.getMessage() + ". Fix the database settings and restart, disabling plugin.");
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
+        leaderboardManager.start();
+        this.playerNameManager = new PlayerNameManager(this);
+        playerNameManager.start();
+        playerDataManager.startAutosave();
+        this.migrationManager = new MigrationManager(this);
+        this.bulkOperationManager = new BulkOperationManager(this);
+        this.effectRouter = new EffectRouter(this);
+        this.commandPipeline = new CommandPipeline(this);
+        this.cooldownService = new CooldownService(this);
+        cooldownService.start();
+        this.metricsExporter = new PrometheusExporter(this, metrics);
+        metricsExporter.start();
+        
+        taskScheduler.runGlobal(() -> {
         // Initialize and register custom heart manager
         this.customHeartManager = new CustomHeartManager(this);
         if (configManager.isCustomCraftingEnabled()) {
             customHeartManager.registerRecipes();
         }
-
+        
         // Register listeners
         getServer().getPluginManager().registerEvents(new CombatListener(this), this);
         
@@ -42,10 +99,10 @@ public class LifestealPlugin extends JavaPlugin {
         // Register heart item interaction listener
         getServer().getPluginManager().registerEvents(heartCommand, this);
         getLogger().info("LifestealPlugin has been enabled!");
-        }); // End of scheduleGlobalTask
-
+        }); // End of runGlobal
+        
         // Check if running on Folia
-        if (isFolia()) {
+        if (taskScheduler.isFolia()) {
             getLogger().info("Detected Folia server - using region-based scheduling");
         } else {
             getLogger().warning("Not running on Folia - some features may not work optimally");
@@ -54,8 +111,29 @@ public class LifestealPlugin extends JavaPlugin {
     
     @Override
     public void onDisable() {
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+        if (cooldownService != null) {
+            cooldownService.stop();
+        }
+        if (migrationManager != null) {
+            migrationManager.shutdown();
+        }
+        if (bulkOperationManager != null) {
+            bulkOperationManager.shutdown();
+        }
         if (playerDataManager != null) {
-            playerDataManager.saveAllData();
+            playerDataManager.shutdown();
+        }
+        if (leaderboardManager != null) {
+            leaderboardManager.saveSnapshot();
+        }
+        if (playerNameManager != null) {
+            playerNameManager.shutdown();
+        }
+        if (auditLog != null) {
+            auditLog.close();
         }
         getLogger().info("LifestealPlugin has been disabled!");
     }
@@ -63,7 +141,7 @@ public class LifestealPlugin extends JavaPlugin {
     public static LifestealPlugin getInstance() {
         return instance;
     }
-
+    
     public ConfigManager getConfigManager() {
         return configManager;
     }
@@ -75,91 +153,71 @@ public class LifestealPlugin extends JavaPlugin {
     public CustomHeartManager getCustomHeartManager() {
         return customHeartManager;
     }
-
-    // Add this setter so ConfigManager can update the heart manager on reload
-    public void setCustomHeartManager(CustomHeartManager customHeartManager) {
-        this.customHeartManager = customHeartManager;
+    
+    public MigrationManager getMigrationManager() {
+        return migrationManager;
+    }
+    
+    public BulkOperationManager getBulkOperationManager() {
+        return bulkOperationManager;
+    }
+    
+    public LeaderboardManager getLeaderboardManager() {
+        return leaderboardManager;
+    }
+    
+    public EffectRouter getEffectRouter() {
+        return effectRouter;
     }
     
     /**
-     * Check if the server is running Folia
-     * @return true if running on Folia
+     * @return Counters and latency histograms for the whole plugin
      */
-    public boolean isFolia() {
-        try {
-            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
-            return true;
-        } catch (ClassNotFoundException e) {
-            return false;
-        }
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+    
+    public PrometheusExporter getMetricsExporter() {
+        return metricsExporter;
     }
     
     /**
-     * Schedule a task on the region that owns the specified location
-     * This is Folia-compatible scheduling
+     * @return Withdraw, consume and other action cooldowns
      */
-    public void scheduleRegionTask(org.bukkit.Location location, Runnable task) {
-        if (isFolia()) {
-            // Use Folia's region-based scheduling
-            getServer().getRegionScheduler().run(this, location, scheduledTask -> task.run());
-        } else {
-            // Fallback to regular Bukkit scheduling
-            getServer().getScheduler().runTask(this, task);
-        }
+    public CooldownService getCooldownService() {
+        return cooldownService;
     }
     
     /**
-     * Schedule a delayed task on the region that owns the specified location
+     * @return Player names for tab completion
      */
-    public void scheduleRegionTaskLater(org.bukkit.Location location, Runnable task, long delay) {
-        if (isFolia()) {
-            getServer().getRegionScheduler().runDelayed(this, location, scheduledTask -> task.run(), delay);
-        } else {
-            getServer().getScheduler().runTaskLater(this, task, delay);
-        }
+    public PlayerNameManager getPlayerNameManager() {
+        return playerNameManager;
     }
-
+    
     /**
-    * Schedule a task for a specific entity (player, mob, etc.)
-    */
-    public void scheduleEntityTask(org.bukkit.entity.Entity entity, Runnable task) {
-        if (isFolia()) {
-            entity.getScheduler().run(this, scheduledTask -> task.run(), null);
-        } else {
-            getServer().getScheduler().runTask(this, task);
-        }
+     * @return Two-phase runner for commands that read stored data
+     */
+    public CommandPipeline getCommandPipeline() {
+        return commandPipeline;
     }
-
+    
     /**
-    * Schedule a global task (not tied to specific region)
-    */
-    public void scheduleGlobalTask(Runnable task) {
-        if (isFolia()) {
-            getServer().getGlobalRegionScheduler().run(this, scheduledTask -> task.run());
-        } else {
-            getServer().getScheduler().runTask(this, task);
-        }
+     * @return Log of every heart movement
+     */
+    public AuditLog getAuditLog() {
+        return auditLog;
     }
-
+    
     /**
-    * Schedule a delayed global task
-    */
-    public void scheduleGlobalTaskLater(Runnable task, long delay) {
-        if (isFolia()) {
-            getServer().getGlobalRegionScheduler().runDelayed(this, scheduledTask -> task.run(), delay);
-        } else {
-            getServer().getScheduler().runTaskLater(this, task, delay);
-        }
+     * @return Scheduler for the running server, Folia or Paper
+     */
+    public TaskScheduler getTaskScheduler() {
+        return taskScheduler;
     }
-
-    /**
-    * Schedule async task (same for both)
-    */
-    public void scheduleAsyncTask(Runnable task) {
-        if (isFolia()) {
-            getServer().getAsyncScheduler().runNow(this, scheduledTask -> task.run());
-        } else {
-            getServer().getScheduler().runTaskAsynchronously(this, task);
-        }
+    
+    // Add this setter so ConfigManager can update the heart manager on reload
+    public void setCustomHeartManager(CustomHeartManager customHeartManager) {
+        this.customHeartManager = customHeartManager;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,344 @@
+package com.squeakybagco.lifesteal.audit;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only log of every heart movement, for settling disputes.
+ * Callers only publish a record into a lock-free ring; a single writer thread
+ * drains it and appends each batch to the day's file as its own gzip member,
+ * so a crash loses at most the batch being written. Files roll over per day
+ * and when they pass the size limit, and old days are deleted.
+ *
+ * Each line is tab separated: time | action | actor | target | delta | hearts | world
+ */
+public class AuditLog {
+    
+    /**
+     * What moved the hearts
+     */
+    public enum Action {
+        STEAL,
+        WITHDRAW,
+        CONSUME,
+        ADMIN_SET,
+        ADMIN_GIVE
+    }
+    
+    /**
+     * Actor recorded for changes made from the console or a command block
+     */
+    public static final UUID CONSOLE = new UUID(0, 0);
+    
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".log.gz";
+    private static final long WRITE_INTERVAL_MILLIS = 500;
+    private static final int BATCH_SIZE = 1024;
+    
+    private final File folder;
+    private final Logger logger;
+    private final AuditRing<Entry> ring;
+    private final long maxFileBytes;
+    private final int retentionDays;
+    private final ScheduledExecutorService writer;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private volatile boolean enabled = true;
+    
+    // Only touched on the writer thread
+    private final List<Entry> batch = new ArrayList<>();
+    private LocalDate day;
+    private int index;
+    
+    /**
+     * @param capacity Records that can wait for the writer before new ones are dropped
+     * @param maxFileBytes Compressed size after which a new file is started
+     * @param retentionDays Days of files to keep, 0 keeps everything
+     */
+    public AuditLog(File folder, Logger logger, int capacity, long maxFileBytes, int retentionDays) {
+        this.folder = folder;
+        this.logger = logger;
+        this.ring = new AuditRing<>(capacity);
+        this.maxFileBytes = Math.max(1024, maxFileBytes);
+        this.retentionDays = retentionDays;
+        
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Lifesteal-Audit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::write, WRITE_INTERVAL_MILLIS, WRITE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Record a change to one player's hearts. Never blocks; if the writer has
+     * fallen a whole ring behind the record is dropped and counted.
+     * @param delta Hearts gained or lost by the target
+     * @param hearts Target's hearts after the change
+     * @param world World the change happened in, null if none
+     */
+    public void record(Action action, UUID actorId, UUID targetId, int delta, int hearts, String world) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), action, actorId, targetId, delta, hearts,
+            world == null ? "-" : world);
+        if (!ring.offer(entry)) {
+            dropped.increment();
+        }
+    }
+    
+    /**
+     * Most recent records involving a player, as actor or target. Files are
+     * read newest first and streamed, so only the requested records are held.
+     * @return Up to limit records, newest first
+     */
+    public CompletableFuture<List<Entry>> history(UUID playerId, int limit) {
+        CompletableFuture<Void> flushed;
+        try {
+            // Let queued records reach disk so the answer includes them
+            flushed = CompletableFuture.runAsync(this::write, writer);
+        } catch (RejectedExecutionException e) {
+            flushed = CompletableFuture.completedFuture(null);
+        }
+        return flushed.thenApplyAsync(ignored -> scan(playerId, limit));
+    }
+    
+    /**
+     * Write anything still queued and stop the writer
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write();
+    }
+    
+    /**
+     * Turn recording on or off, history stays readable either way
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * @return Records written to disk since startup
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+    
+    /**
+     * @return Records lost because the ring was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    /**
+     * @return The sender's UUID, or {@link #CONSOLE} if it is not a player
+     */
+    public static UUID actorOf(CommandSender sender) {
+        return sender instanceof Player player ? player.getUniqueId() : CONSOLE;
+    }
+    
+    /**
+     * Drain the ring into the current file, one gzip member per batch
+     */
+    private synchronized void write() {
+        while (ring.drain(batch::add, BATCH_SIZE) > 0) {
+            File file = currentFile();
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(new FileOutputStream(file, true), 8192), StandardCharsets.UTF_8))) {
+                for (Entry entry : batch) {
+                    out.write(entry.format());
+                    out.write('\n');
+                }
+                written.add(batch.size());
+            } catch (IOException e) {
+                logger.severe("Could not write " + batch.size() + " audit records to " + file.getName() + ": " + e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+    
+    private File currentFile() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(day)) {
+            day = today;
+            index = 0;
+            for (File file : listFiles(folder)) {
+                if (day.equals(fileDay(file))) {
+                    index = Math.max(index, fileIndex(file));
+                }
+            }
+            deleteExpired();
+        }
+        
+        File file = new File(folder, PREFIX + day + "-" + index + SUFFIX);
+        if (file.length() >= maxFileBytes) {
+            index++;
+            file = new File(folder, PREFIX + day + "-" + index + SUFFIX);
+        }
+        return file;
+    }
+    
+    private void deleteExpired() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        
+        LocalDate oldest = day.minusDays(retentionDays);
+        for (File file : listFiles(folder)) {
+            if (fileDay(file).isBefore(oldest) && !file.delete()) {
+                logger.warning("Could not delete expired audit file " + file.getName());
+            }
+        }
+    }
+    
+    private List<Entry> scan(UUID playerId, int limit) {
+        List<Entry> found = new ArrayList<>();
+        String id = playerId.toString();
+        List<File> files = listFiles(folder);
+        
+        for (int i = files.size() - 1; i >= 0 && found.size() < limit; i--) {
+            File file = files.get(i);
+            
+            // Lines are oldest first, keep a sliding window of the newest matches in this file
+            Deque<Entry> window = new ArrayDeque<>();
+            int wanted = limit - found.size();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.contains(id)) {
+                        continue;
+                    }
+                    Entry entry = Entry.parse(line);
+                    if (entry == null || (!playerId.equals(entry.targetId) && !playerId.equals(entry.actorId))) {
+                        continue;
+                    }
+                    if (window.size() == wanted) {
+                        window.pollFirst();
+                    }
+                    window.addLast(entry);
+                }
+            } catch (EOFException e) {
+                // Batch still being written, everything before it was read
+            } catch (IOException e) {
+                logger.warning("Could not read audit file " + file.getName() + ": " + e.getMessage());
+            }
+            
+            while (!window.isEmpty()) {
+                found.add(window.pollLast());
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * @return Audit files, oldest first
+     */
+    private static List<File> listFiles(File folder) {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        
+        List<File> result = new ArrayList<>(Arrays.asList(files));
+        result.removeIf(file -> fileDay(file) == null || fileIndex(file) < 0);
+        result.sort(Comparator.comparing(AuditLog::fileDay).thenComparingInt(AuditLog::fileIndex));
+        return result;
+    }
+    
+    // File names are audit-yyyy-mm-dd-index.log.gz
+    private static LocalDate fileDay(File file) {
+        String name = file.getName();
+        try {
+            return LocalDate.parse(name.substring(PREFIX.length(), PREFIX.length() + 10));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+    
+    private static int fileIndex(File file) {
+        String name = file.getName();
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length() + 11, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * One heart movement
+     * @param delta Hearts gained (positive) or lost (negative) by the target
+     * @param hearts Target's hearts after the change
+     */
+    public record Entry(long timestamp, Action action, UUID actorId, UUID targetId, int delta, int hearts, String world) {
+        
+        String format() {
+            return Instant.ofEpochMilli(timestamp) + "\t" + action + "\t" + actorId + "\t" + targetId
+                + "\t" + delta + "\t" + hearts + "\t" + world;
+        }
+        
+        /**
+         * @return The entry, or null if the line is not a valid record
+         */
+        static Entry parse(String line) {
+            String[] fields = line.split("\t", 7);
+            if (fields.length != 7) {
+                return null;
+            }
+            try {
+                return new Entry(Instant.parse(fields[0]).toEpochMilli(), Action.valueOf(fields[1]),
+                    UUID.fromString(fields[2]), UUID.fromString(fields[3]),
+                    Integer.parseInt(fields[4]), Integer.parseInt(fields[5]), fields[6]);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                return null;
+            }
+        }
+        
+        public boolean isConsole() {
+            return CONSOLE.equals(actorId);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.squeakybagco.lifesteal.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and one consumer.
+ * Every slot carries a sequence number: producers claim a position with one
+ * CAS and publish the element by advancing the slot's sequence, the consumer
+ * only reads slots whose sequence says they are published. A full ring
+ * rejects the element instead of blocking, so callers never wait.
+ */
+final class AuditRing<T> {
+    
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    
+    // Only touched by the consumer
+    private long head;
+    
+    /**
+     * @param capacity Rounded up to a power of two
+     */
+    AuditRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+    
+    /**
+     * Add an element, safe from any thread
+     * @return false if the ring is full
+     */
+    boolean offer(T element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, position + 1); // Publish
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false; // The consumer has not freed this slot yet
+            } else {
+                position = tail.get(); // Another producer took it
+            }
+        }
+    }
+    
+    /**
+     * Hand up to max published elements to the consumer, consumer thread only
+     * @return Number of elements drained
+     */
+    @SuppressWarnings("unchecked")
+    int drain(Consumer<T> consumer, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break; // Not published yet
+            }
+            
+            T element = (T) elements[index];
+            elements[index] = null;
+            sequences.set(index, head + elements.length); // Free the slot for the next lap
+            head++;
+            drained++;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+    
+    int capacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,207 @@
+package com.squeakybagco.lifesteal.commands;
+
+import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.metrics.Counter;
+import com.squeakybagco.lifesteal.metrics.Histogram;
+import com.squeakybagco.lifesteal.storage.PlayerData;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a command in two phases so nothing that can block runs on a tick thread.
+ * The async phase resolves targets and loads data off the server threads. The
+ * sync phase then applies the result on the thread that owns the target
+ * entity, or on the global region when there is none. A command whose async
+ * phase does not finish in time is abandoned, and each sender can only have
+ * a few commands in flight at once.
+ */
+public class CommandPipeline {
+    
+    /**
+     * A loaded player record, and the player if they were online when it loaded
+     */
+    public record Target(PlayerData data, Player online) {
+    }
+    
+    private final LifestealPlugin plugin;
+    private final Map<Object, Integer> inFlight = new ConcurrentHashMap<>();
+    private final Histogram asyncTime;
+    private final Counter rejected;
+    private final Counter timedOut;
+    
+    public CommandPipeline(LifestealPlugin plugin) {
+        this.plugin = plugin;
+        this.asyncTime = plugin.getMetrics().histogram("command_async", "Time commands spent in their async phase");
+        this.rejected = plugin.getMetrics().counter("commands_rejected", "Commands refused because the sender had too many running");
+        this.timedOut = plugin.getMetrics().counter("commands_timed_out", "Commands cancelled because their async phase took too long");
+        plugin.getMetrics().gauge("commands_in_flight", "Commands waiting on their async phase", this::getInFlight);
+    }
+    
+    /**
+     * Run a blocking async phase off the server threads, then the sync phase on the global region
+     */
+    public <T> void submit(CommandSender sender, Callable<T> prepare, Consumer<T> apply) {
+        submit(sender, prepare, result -> null, apply);
+    }
+    
+    /**
+     * Run a blocking async phase off the server threads, then the sync phase on the owner's thread
+     * @param owner Entity the result touches, null for the global region
+     */
+    public <T> void submit(CommandSender sender, Callable<T> prepare, Function<T, Entity> owner, Consumer<T> apply) {
+        submitFuture(sender, () -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return prepare.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, plugin.getTaskScheduler()::runAsync), owner, apply);
+    }
+    
+    /**
+     * Wait for an async phase that is already asynchronous, then run the sync phase on the global region
+     */
+    public <T> void submitFuture(CommandSender sender, Supplier<CompletableFuture<T>> prepare, Consumer<T> apply) {
+        submitFuture(sender, prepare, result -> null, apply);
+    }
+    
+    /**
+     * Wait for an async phase that is already asynchronous, then run the sync phase on the owner's thread
+     * @param owner Entity the result touches, null for the global region
+     */
+    public <T> void submitFuture(CommandSender sender, Supplier<CompletableFuture<T>> prepare,
+                                 Function<T, Entity> owner, Consumer<T> apply) {
+        Object key = keyOf(sender);
+        if (!acquire(key)) {
+            rejected.increment();
+            reply(sender, plugin.getConfigManager().getPrefix() + "§cYou already have commands running, wait for them to finish.");
+            return;
+        }
+        
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = prepare.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        
+        // Time out a copy, the phase may hand out a future that others share
+        future.copy().orTimeout(plugin.getConfigManager().getCommandTimeout(), TimeUnit.SECONDS).whenComplete((result, error) -> {
+            asyncTime.recordSince(start);
+            if (error != null) {
+                release(key);
+                fail(sender, error);
+                return;
+            }
+            
+            Runnable task = () -> {
+                try {
+                    apply.accept(result);
+                } catch (RuntimeException e) {
+                    fail(sender, e);
+                } finally {
+                    release(key);
+                }
+            };
+            Runnable retired = () -> {
+                release(key);
+                reply(sender, plugin.getConfigManager().getPrefix() + "§cThe target left before the command could finish.");
+            };
+            
+            Entity entity = owner.apply(result);
+            if (entity == null) {
+                plugin.getTaskScheduler().runGlobal(task);
+            } else if (!plugin.getTaskScheduler().runEntity(entity, task, retired)) {
+                retired.run();
+            }
+        });
+    }
+    
+    /**
+     * Async phase that loads a player's record, reading storage off the server threads if they are offline
+     */
+    public CompletableFuture<Target> loadTarget(UUID playerId) {
+        return plugin.getPlayerDataManager().loadPlayerDataAsync(playerId)
+            .thenApply(data -> new Target(data, plugin.getServer().getPlayer(playerId)));
+    }
+    
+    /**
+     * Load a player's record, then run the sync phase on their thread if they
+     * are online or on the global region if not
+     */
+    public void submitTarget(CommandSender sender, UUID playerId, Consumer<Target> apply) {
+        submitFuture(sender, () -> loadTarget(playerId), Target::online, apply);
+    }
+    
+    /**
+     * @return Commands of all senders waiting on their async phase
+     */
+    public long getInFlight() {
+        long total = 0;
+        for (int count : inFlight.values()) {
+            total += count;
+        }
+        return total;
+    }
+    
+    private boolean acquire(Object key) {
+        int max = plugin.getConfigManager().getCommandMaxInFlight();
+        boolean[] acquired = new boolean[1];
+        inFlight.compute(key, (ignored, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= max) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+    
+    private void release(Object key) {
+        inFlight.computeIfPresent(key, (ignored, count) -> count > 1 ? count - 1 : null);
+    }
+    
+    private void fail(CommandSender sender, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String prefix = plugin.getConfigManager().getPrefix();
+        if (cause instanceof TimeoutException) {
+            timedOut.increment();
+            reply(sender, prefix + "§cThat took too long and was cancelled, try again later.");
+            return;
+        }
+        
+        plugin.getLogger().warning("Command from " + sender.getName() + " failed: " + cause);
+        reply(sender, prefix + "§cSomething went wrong running that command, see the console for details.");
+    }
+    
+    /**
+     * Message the sender from their own thread
+     */
+    private void reply(CommandSender sender, String message) {
+        if (sender instanceof Player player) {
+            plugin.getEffectRouter().send(player, target -> target.sendMessage(message));
+        } else {
+            plugin.getTaskScheduler().runGlobal(() -> sender.sendMessage(message));
+        }
+    }
+    
+    private static Object keyOf(CommandSender sender) {
+        // Console and command blocks share a limit per name
+        return sender instanceof Player player ? player.getUniqueId() : sender.getName();
+    }
+}
@@ -1,9 +1,14 @@
 package com.squeakybagco.lifesteal.commands;
 
 import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.audit.AuditLog;
+import com.squeakybagco.lifesteal.cooldown.Cooldown;
+import com.squeakybagco.lifesteal.cooldown.CooldownService;
+import com.squeakybagco.lifesteal.messages.Placeholder;
+import com.squeakybagco.lifesteal.metrics.Histogram;
+import com.squeakybagco.lifesteal.names.NameIndex;
+import com.squeakybagco.lifesteal.storage.HeartJournal;
 import com.squeakybagco.lifesteal.utils.HeartUtils;
-import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -11,7 +16,9 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
 import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
@@ -22,9 +29,11 @@ import java.util.UUID;
 public class HeartCommand implements CommandExecutor, TabCompleter, Listener {
     
     private final LifestealPlugin plugin;
+    private final Histogram interactTime;
     
     public HeartCommand(LifestealPlugin plugin) {
         this.plugin = plugin;
+        this.interactTime = plugin.getMetrics().histogram("handler_interact", "Time spent in the player interact handler");
     }
     
     @Override
@@ -37,7 +46,7 @@ public class HeartCommand implements CommandExecutor, TabCompleter, Listener {
         
         // Handle /hearts command
         if (!sender.hasPermission("lifesteal.hearts")) {
-            sender.sendMessage(prefix + plugin.getConfigManager().getMessage("no-permission"));
+            sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
             return true;
         }
         
@@ -46,46 +55,49 @@ public class HeartCommand implements CommandExecutor, TabCompleter, Listener {
             return true;
         }
         
-        // Get target player
-        OfflinePlayer target = Bukkit.getOfflinePlayer(args[0]);
-        if (!target.hasPlayedBefore() && !target.isOnline()) {
-            sender.sendMessage(prefix + plugin.getConfigManager().getMessage("player-not-found"));
+        // Get target player from the plugin's own name index, never a profile lookup
+        NameIndex.Entry target = plugin.getPlayerNameManager().resolve(args[0]);
+        if (target == null) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("player-not-found").render());
             return true;
         }
         
-        UUID targetId = target.getUniqueId();
+        UUID targetId = target.playerId();
         
         if (args.length == 1) {
-            // Show player's heart info
-            int hearts = plugin.getPlayerDataManager().getPlayerHearts(targetId);
-            sender.sendMessage(prefix + "§6" + target.getName() + " §7has §c" + HeartUtils.formatHearts(hearts));
+            // Show player's heart info, offline players are read off the command thread
+            plugin.getCommandPipeline().submitFuture(sender, () -> plugin.getPlayerDataManager().loadPlayerDataAsync(targetId), data ->
+                sender.sendMessage(prefix + "§6" + target.name() + " §7has §c" + HeartUtils.formatHearts(data.getHearts())));
             return true;
         }
         
         // Set player's hearts
         if (!sender.hasPermission("lifesteal.admin")) {
-            sender.sendMessage(prefix + plugin.getConfigManager().getMessage("no-permission"));
+            sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
             return true;
         }
         
         try {
-            int hearts = Integer.parseInt(args[1]);
-            hearts = HeartUtils.clampHearts(hearts);
-            
-            plugin.getPlayerDataManager().setPlayerHearts(targetId, hearts);
-            
-            // Update online player's health
-            if (target.isOnline()) {
-                HeartUtils.updatePlayerMaxHealth(target.getPlayer(), hearts);
-            }
-            
-            sender.sendMessage(prefix + "§aSet §6" + target.getName() + "§a's hearts to §c" + HeartUtils.formatHearts(hearts));
-            
-            if (target.isOnline()) {
-                target.getPlayer().sendMessage(prefix + plugin.getConfigManager().getMessage("hearts-updated")
-                    .replace("{hearts}", HeartUtils.formatHearts(hearts)));
-            }
+            int hearts = HeartUtils.clampHearts(Integer.parseInt(args[1]));
             
+            // Finishes on the target's thread when they are online, so their health can be updated
+            plugin.getCommandPipeline().submitTarget(sender, targetId, loaded -> {
+                Player online = loaded.online();
+                int oldHearts = loaded.data().getHearts();
+                plugin.getPlayerDataManager().setPlayerHearts(loaded.data(), hearts);
+                plugin.getAuditLog().record(AuditLog.Action.ADMIN_SET, AuditLog.actorOf(sender), targetId,
+                    hearts - oldHearts, hearts, online != null ? online.getWorld().getName() : null);
+                
+                sender.sendMessage(prefix + "§aSet §6" + target.name() + "§a's hearts to §c" + HeartUtils.formatHearts(hearts));
+                
+                // Update online player's health
+                if (online != null) {
+                    HeartUtils.updatePlayerMaxHealth(online, hearts);
+                    online.sendMessage(plugin.getConfigManager().getMessage("hearts-updated")
+                        .render(Placeholder.HEARTS, HeartUtils.formatHearts(hearts)));
+                }
+            });
+        
         } catch (NumberFormatException e) {
             sender.sendMessage(prefix + "§cInvalid number: " + args[1]);
         }
@@ -104,108 +116,120 @@ public class HeartCommand implements CommandExecutor, TabCompleter, Listener {
         Player player = (Player) sender;
         
         if (!plugin.getConfigManager().isWithdrawEnabled()) {
-            player.sendMessage(prefix + plugin.getConfigManager().getMessage("withdraw-disabled", "§cWithdraw is disabled!"));
+            player.sendMessage(plugin.getConfigManager().getMessage("withdraw-disabled").render());
             return true;
         }
         
         if (!player.hasPermission("lifesteal.withdraw")) {
-            player.sendMessage(prefix + plugin.getConfigManager().getMessage("no-permission"));
+            player.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
             return true;
         }
         
         UUID playerId = player.getUniqueId();
         
         // Check cooldown
-        if (plugin.getPlayerDataManager().isOnWithdrawCooldown(playerId)) {
-            long remainingSeconds = plugin.getPlayerDataManager().getWithdrawCooldownRemaining(playerId);
-            player.sendMessage(prefix + plugin.getConfigManager().getMessage("withdraw-cooldown")
-                .replace("{time}", formatTime(remainingSeconds)));
-            return true;
-        }
-        
-        // Check if player has enough hearts
-        int currentHearts = plugin.getPlayerDataManager().getPlayerHearts(playerId);
-        int minHearts = plugin.getConfigManager().getMinHearts();
-        
-        if (currentHearts <= minHearts + 1) { // Need at least 1 more than minimum to withdraw
-            player.sendMessage(prefix + plugin.getConfigManager().getMessage("not-enough-hearts", 
-                "§cYou need more hearts to withdraw!"));
+        CooldownService cooldowns = plugin.getCooldownService();
+        if (cooldowns.isActive(playerId, Cooldown.WITHDRAW)) {
+            player.sendMessage(plugin.getConfigManager().getMessage("withdraw-cooldown")
+                .render(Placeholder.TIME, HeartUtils.formatDuration(cooldowns.getRemainingSeconds(playerId, Cooldown.WITHDRAW))));
             return true;
         }
         
         // Check inventory space
         if (player.getInventory().firstEmpty() == -1) {
-            player.sendMessage(prefix + plugin.getConfigManager().getMessage("inventory-full", 
-                "§cYour inventory is full!"));
+            player.sendMessage(plugin.getConfigManager().getMessage("inventory-full").render());
             return true;
         }
         
-        // Remove hearts from player and give heart item
-        plugin.getPlayerDataManager().setPlayerHearts(playerId, currentHearts - 2);
-        HeartUtils.updatePlayerMaxHealth(player, currentHearts - 2);
+        // Remove hearts from player, only if they keep at least the minimum
+        if (!plugin.getPlayerDataManager().withdrawHearts(playerId, 2)) {
+            player.sendMessage(plugin.getConfigManager().getMessage("not-enough-hearts").render());
+            return true;
+        }
+        int currentHearts = plugin.getPlayerDataManager().getPlayerHearts(playerId);
+        HeartUtils.updatePlayerMaxHealth(player, currentHearts);
+        plugin.getAuditLog().record(AuditLog.Action.WITHDRAW, playerId, playerId, -2, currentHearts, player.getWorld().getName());
         
         // Give heart item
         ItemStack heartItem = HeartUtils.createHeartItem(2);
         player.getInventory().addItem(heartItem);
         
-        // Set cooldown
-        plugin.getPlayerDataManager().setWithdrawCooldown(playerId);
+        // Set cooldown, saved with the player's data
+        cooldowns.start(playerId, Cooldown.WITHDRAW);
         
-        player.sendMessage(prefix + plugin.getConfigManager().getMessage("heart-withdrawn", 
-            "§aYou withdrew a heart! You now have §c" + HeartUtils.formatHearts(currentHearts - 2)));
+        player.sendMessage(plugin.getConfigManager().getMessage("heart-withdrawn")
+            .render(Placeholder.HEARTS, HeartUtils.formatHearts(currentHearts)));
         
         return true;
     }
     
     @EventHandler
     public void onPlayerInteract(PlayerInteractEvent event) {
-        Player player = event.getPlayer();
-        ItemStack item = player.getInventory().getItemInMainHand();
+        long start = System.nanoTime();
+        try {
+            handleInteract(event);
+        } finally {
+            interactTime.recordSince(start);
+        }
+    }
+    
+    private void handleInteract(PlayerInteractEvent event) {
+        // Cheapest checks first, this runs for every click and pressure plate on the server
+        Action action = event.getAction();
+        if (action != Action.RIGHT_CLICK_AIR && action != Action.RIGHT_CLICK_BLOCK) {
+            return;
+        }
         
-        if (!HeartUtils.isHeartItem(item)) {
+        // Hearts are consumed from the main hand, skip the off hand event of the same click
+        if (event.getHand() != EquipmentSlot.HAND) {
             return;
         }
         
-        if (!event.getAction().name().contains("RIGHT_CLICK")) {
+        // One meta read both recognises the heart and gives its value
+        ItemStack item = event.getItem();
+        int heartValue = HeartUtils.getHeartValue(item);
+        if (heartValue <= 0) {
             return;
         }
         
+        Player player = event.getPlayer();
         event.setCancelled(true);
         
-        plugin.scheduleEntityTask(player, () -> {
+        plugin.getTaskScheduler().runEntity(player, () -> {
             if (!plugin.getConfigManager().isHeartItemsEnabled()) {
-                player.sendMessage(plugin.getConfigManager().getPrefix() + 
-                    plugin.getConfigManager().getMessage("heart-items-disabled", "§cHeart items are disabled!"));
+                player.sendMessage(plugin.getConfigManager().getMessage("heart-items-disabled").render());
                 return;
             }
-        
+            
             UUID playerId = player.getUniqueId();
-            int currentHearts = plugin.getPlayerDataManager().getPlayerHearts(playerId);
-            int maxHearts = plugin.getConfigManager().getMaxHearts();
-        
-            if (currentHearts >= maxHearts) {
-                player.sendMessage(plugin.getConfigManager().getPrefix() + 
-                    plugin.getConfigManager().getMessage("max-hearts-reached", "§cYou already have maximum hearts!"));
+            CooldownService cooldowns = plugin.getCooldownService();
+            if (cooldowns.isActive(playerId, Cooldown.CONSUME)) {
+                player.sendMessage(plugin.getConfigManager().getMessage("consume-cooldown")
+                    .render(Placeholder.TIME, HeartUtils.formatDuration(cooldowns.getRemainingSeconds(playerId, Cooldown.CONSUME))));
                 return;
             }
-        
-            int heartValue = HeartUtils.getHeartValue(item);
-            int newHearts = Math.min(currentHearts + heartValue, maxHearts);
-        
-            // Update player data and health
-            plugin.getPlayerDataManager().setPlayerHearts(playerId, newHearts);
+            
+            // Update player data, clamped to the maximum in the same atomic step
+            int applied = plugin.getPlayerDataManager().adjustHearts(playerId, heartValue, HeartJournal.Reason.CONSUME);
+            if (applied <= 0) {
+                player.sendMessage(plugin.getConfigManager().getMessage("max-hearts-reached").render());
+                return;
+            }
+            
+            int newHearts = plugin.getPlayerDataManager().getPlayerHearts(playerId);
             HeartUtils.updatePlayerMaxHealth(player, newHearts);
-        
+            plugin.getAuditLog().record(AuditLog.Action.CONSUME, playerId, playerId, applied, newHearts, player.getWorld().getName());
+            
             // Remove the item
             item.setAmount(item.getAmount() - 1);
-        
+            cooldowns.start(playerId, Cooldown.CONSUME);
+            
             // Send message
-            player.sendMessage(plugin.getConfigManager().getPrefix() + 
-                plugin.getConfigManager().getMessage("heart-consumed")
-                    .replace("{hearts}", HeartUtils.formatHearts(newHearts)));
-        
+            player.sendMessage(plugin.getConfigManager().getMessage("heart-consumed")
+                .render(Placeholder.HEARTS, HeartUtils.formatHearts(newHearts)));
+            
             // Play sound effect
-            player.playSound(player.getLocation(), 
+            player.playSound(player.getLocation(),
                 org.bukkit.Sound.ENTITY_PLAYER_LEVELUP, 1.0f, 2.0f);
             });
     }
@@ -219,12 +243,8 @@ public class HeartCommand implements CommandExecutor, TabCompleter, Listener {
         }
         
         if (args.length == 1) {
-            // Complete player names
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                if (player.getName().toLowerCase().startsWith(args[0].toLowerCase())) {
-                    completions.add(player.getName());
-                }
-            }
+            // Complete player names, offline players can be looked up too
+            completions.addAll(plugin.getPlayerNameManager().complete(args[0], true));
         } else if (args.length == 2 && sender.hasPermission("lifesteal.admin")) {
             // Complete heart amounts
             completions.addAll(Arrays.asList("2", "4", "6", "8", "10", "20", "40"));
@@ -232,19 +252,4 @@ public class HeartCommand implements CommandExecutor, TabCompleter, Listener {
         
         return completions;
     }
-    
-    private String formatTime(long seconds) {
-        if (seconds < 60) {
-            return seconds + " second" + (seconds == 1 ? "" : "s");
-        } else {
-            long minutes = seconds / 60;
-            long remainingSeconds = seconds % 60;
-            
-            if (remainingSeconds == 0) {
-                return minutes + " minute" + (minutes == 1 ? "" : "s");
-            } else {
-                return minutes + "m " + remainingSeconds + "s";
-            }
-        }
-    }
-}
\ No newline at end of file
+}
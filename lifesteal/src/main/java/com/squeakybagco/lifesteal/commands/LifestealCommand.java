@@ -1,22 +1,42 @@
 package com.squeakybagco.lifesteal.commands;
 
 import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.audit.AuditLog;
+import com.squeakybagco.lifesteal.cooldown.Cooldown;
+import com.squeakybagco.lifesteal.leaderboard.Leaderboard;
+import com.squeakybagco.lifesteal.managers.LeaderboardManager;
+import com.squeakybagco.lifesteal.managers.PlayerDataManager;
+import com.squeakybagco.lifesteal.messages.Placeholder;
+import com.squeakybagco.lifesteal.metrics.Histogram;
+import com.squeakybagco.lifesteal.metrics.MetricsRegistry;
+import com.squeakybagco.lifesteal.names.NameIndex;
+import com.squeakybagco.lifesteal.storage.PlayerData;
 import com.squeakybagco.lifesteal.utils.HeartUtils;
 import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.LongSupplier;
 
 public class LifestealCommand implements CommandExecutor, TabCompleter {
     
+    private static final int LEADERBOARD_PAGE_SIZE = 10;
+    private static final int HISTORY_DEFAULT_LIMIT = 10;
+    private static final int HISTORY_MAX_LIMIT = 100;
+    private static final DateTimeFormatter HISTORY_TIME = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss")
+        .withZone(ZoneId.systemDefault());
+    
     private final LifestealPlugin plugin;
     
     public LifestealCommand(LifestealPlugin plugin) {
@@ -36,43 +56,75 @@ public class LifestealCommand implements CommandExecutor, TabCompleter {
             case "help":
                 sendHelpMessage(sender);
                 break;
-                
+            
             case "reload":
                 if (!sender.hasPermission("lifesteal.admin")) {
-                    sender.sendMessage(prefix + plugin.getConfigManager().getMessage("no-permission"));
+                    sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
                     return true;
                 }
                 
                 plugin.getConfigManager().reloadConfigs();
-                sender.sendMessage(prefix + plugin.getConfigManager().getMessage("config-reloaded", "§aConfiguration reloaded!"));
+                sender.sendMessage(plugin.getConfigManager().getMessage("config-reloaded").render());
                 break;
-                
+            
             case "info":
             case "stats":
                 handleStatsCommand(sender, args);
                 break;
-                
+            
             case "set":
                 if (!sender.hasPermission("lifesteal.admin")) {
-                    sender.sendMessage(prefix + plugin.getConfigManager().getMessage("no-permission"));
+                    sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
                     return true;
                 }
                 handleSetCommand(sender, args);
                 break;
-                
+            
             case "give":
                 if (!sender.hasPermission("lifesteal.admin")) {
-                    sender.sendMessage(prefix + plugin.getConfigManager().getMessage("no-permission"));
+                    sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
                     return true;
                 }
                 handleGiveCommand(sender, args);
                 break;
-                
+            
             case "top":
             case "leaderboard":
-                handleLeaderboardCommand(sender);
+                handleLeaderboardCommand(sender, args);
                 break;
-                
+            
+            case "migrate":
+                if (!sender.hasPermission("lifesteal.admin")) {
+                    sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
+                    return true;
+                }
+                handleMigrateCommand(sender, args);
+                break;
+            
+            case "bulk":
+                if (!sender.hasPermission("lifesteal.admin")) {
+                    sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
+                    return true;
+                }
+                handleBulkCommand(sender, args);
+                break;
+            
+            case "metrics":
+                if (!sender.hasPermission("lifesteal.admin")) {
+                    sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
+                    return true;
+                }
+                handleMetricsCommand(sender, args);
+                break;
+            
+            case "history":
+                if (!sender.hasPermission("lifesteal.admin")) {
+                    sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
+                    return true;
+                }
+                handleHistoryCommand(sender, args);
+                break;
+            
             default:
                 sender.sendMessage(prefix + "§cUnknown subcommand. Use §e/lifesteal help §cfor help.");
                 break;
@@ -95,48 +147,73 @@ public class LifestealCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage("§e/lifesteal reload §8- §7Reload configuration");
             sender.sendMessage("§e/lifesteal set <player> <hearts> §8- §7Set player hearts");
             sender.sendMessage("§e/lifesteal give <player> <amount> §8- §7Give heart items");
-            sender.sendMessage("§e/lifesteal top §8- §7Show leaderboard");
+            sender.sendMessage("§e/lifesteal top [hearts|kills|kd] [page] §8- §7Show leaderboard");
+            sender.sendMessage("§e/lifesteal migrate <from> <to> §8- §7Copy stored data to another storage type");
+            sender.sendMessage("§e/lifesteal bulk <reset|scale|clamp> §8- §7Change every stored player");
+            sender.sendMessage("§e/lifesteal metrics [dump] §8- §7Show plugin timings and counters");
+            sender.sendMessage("§e/lifesteal history <player> [count] §8- §7Show recent heart changes");
         }
     }
     
     private void handleStatsCommand(CommandSender sender, String[] args) {
         String prefix = plugin.getConfigManager().getPrefix();
         
-        Player target;
+        NameIndex.Entry target;
         if (args.length > 1) {
             if (!sender.hasPermission("lifesteal.admin")) {
-                sender.sendMessage(prefix + plugin.getConfigManager().getMessage("no-permission"));
+                sender.sendMessage(plugin.getConfigManager().getMessage("no-permission").render());
                 return;
             }
-            target = Bukkit.getPlayer(args[1]);
+            target = plugin.getPlayerNameManager().resolve(args[1]);
             if (target == null) {
-                sender.sendMessage(prefix + plugin.getConfigManager().getMessage("player-not-found", "§cPlayer not found!"));
+                sender.sendMessage(plugin.getConfigManager().getMessage("player-not-found").render());
                 return;
             }
         } else {
-            if (!(sender instanceof Player)) {
+            if (!(sender instanceof Player player)) {
                 sender.sendMessage(prefix + "§cYou must specify a player name from console.");
                 return;
             }
-            target = (Player) sender;
+            target = new NameIndex.Entry(player.getUniqueId(), player.getName());
         }
         
-        UUID playerId = target.getUniqueId();
-        int hearts = plugin.getPlayerDataManager().getPlayerHearts(playerId);
-        int kills = plugin.getPlayerDataManager().getKills(playerId);
-        int deaths = plugin.getPlayerDataManager().getDeaths(playerId);
+        // Offline players are read off the command thread
+        plugin.getCommandPipeline().submitFuture(sender,
+            () -> plugin.getPlayerDataManager().loadPlayerDataAsync(target.playerId()),
+            data -> sendStats(sender, target.name(), data));
+    }
+    
+    private void sendStats(CommandSender sender, String name, PlayerData data) {
+        String prefix = plugin.getConfigManager().getPrefix();
+        UUID playerId = data.getPlayerId();
+        int hearts = data.getHearts();
+        int kills = data.getKills();
+        int deaths = data.getDeaths();
         
-        sender.sendMessage("§8§m----§r " + prefix.trim() + " §eStats for §6" + target.getName() + " §8§m----§r");
+        sender.sendMessage("§8§m----§r " + prefix.trim() + " §eStats for §6" + name + " §8§m----§r");
         sender.sendMessage("§cHearts: §f" + HeartUtils.formatHearts(hearts) + " §7(" + hearts + " half-hearts)");
         sender.sendMessage("§eKills: §f" + kills);
         sender.sendMessage("§cDeaths: §f" + deaths);
         
+        int rank = plugin.getLeaderboardManager().getRank(Leaderboard.Category.HEARTS, playerId);
+        if (rank > 0) {
+            sender.sendMessage("§6Rank: §f#" + rank + " §7of " + plugin.getLeaderboardManager().size());
+        }
+        
         if (deaths > 0) {
             double kdr = (double) kills / deaths;
             sender.sendMessage("§aK/D Ratio: §f" + String.format("%.2f", kdr));
         } else {
             sender.sendMessage("§aK/D Ratio: §f" + (kills > 0 ? "∞" : "N/A"));
         }
+        
+        // Deadlines are read straight off the player's record
+        long withdrawCooldown = plugin.getCooldownService().getRemainingSeconds(playerId, Cooldown.WITHDRAW);
+        sender.sendMessage("§bWithdraw cooldown: §f" + (withdrawCooldown > 0 ? HeartUtils.formatDuration(withdrawCooldown) : "ready"));
+        long consumeCooldown = plugin.getCooldownService().getRemainingSeconds(playerId, Cooldown.CONSUME);
+        if (consumeCooldown > 0) {
+            sender.sendMessage("§bConsume cooldown: §f" + HeartUtils.formatDuration(consumeCooldown));
+        }
     }
     
     private void handleSetCommand(CommandSender sender, String[] args) {
@@ -147,30 +224,35 @@ public class LifestealCommand implements CommandExecutor, TabCompleter {
             return;
         }
         
-        OfflinePlayer target = Bukkit.getOfflinePlayer(args[1]);
-        if (!target.hasPlayedBefore() && !target.isOnline()) {
-            sender.sendMessage(prefix + plugin.getConfigManager().getMessage("player-not-found"));
+        NameIndex.Entry target = plugin.getPlayerNameManager().resolve(args[1]);
+        if (target == null) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("player-not-found").render());
             return;
         }
         
+        UUID targetId = target.playerId();
+        
         try {
-            int hearts = Integer.parseInt(args[2]);
-            hearts = HeartUtils.clampHearts(hearts);
-            
-            plugin.getPlayerDataManager().setPlayerHearts(target.getUniqueId(), hearts);
-            
-            // Update online player's health
-            if (target.isOnline()) {
-                HeartUtils.updatePlayerMaxHealth(target.getPlayer(), hearts);
-            }
-            
-            sender.sendMessage(prefix + "§aSet §6" + target.getName() + "§a's hearts to §c" + HeartUtils.formatHearts(hearts));
-            
-            if (target.isOnline()) {
-                target.getPlayer().sendMessage(prefix + plugin.getConfigManager().getMessage("hearts-updated")
-                    .replace("{hearts}", HeartUtils.formatHearts(hearts)));
-            }
+            int hearts = HeartUtils.clampHearts(Integer.parseInt(args[2]));
             
+            // Offline records are loaded off the command thread, online players are changed on their own thread
+            plugin.getCommandPipeline().submitTarget(sender, targetId, loaded -> {
+                Player online = loaded.online();
+                int oldHearts = loaded.data().getHearts();
+                plugin.getPlayerDataManager().setPlayerHearts(loaded.data(), hearts);
+                plugin.getAuditLog().record(AuditLog.Action.ADMIN_SET, AuditLog.actorOf(sender), targetId,
+                    hearts - oldHearts, hearts, online != null ? online.getWorld().getName() : null);
+                
+                sender.sendMessage(prefix + "§aSet §6" + target.name() + "§a's hearts to §c" + HeartUtils.formatHearts(hearts));
+                
+                // Update online player's health
+                if (online != null) {
+                    HeartUtils.updatePlayerMaxHealth(online, hearts);
+                    online.sendMessage(plugin.getConfigManager().getMessage("hearts-updated")
+                        .render(Placeholder.HEARTS, HeartUtils.formatHearts(hearts)));
+                }
+            });
+        
         } catch (NumberFormatException e) {
             sender.sendMessage(prefix + "§cInvalid number: " + args[2]);
         }
@@ -186,7 +268,7 @@ public class LifestealCommand implements CommandExecutor, TabCompleter {
         
         Player target = Bukkit.getPlayer(args[1]);
         if (target == null) {
-            sender.sendMessage(prefix + plugin.getConfigManager().getMessage("player-not-found"));
+            sender.sendMessage(plugin.getConfigManager().getMessage("player-not-found").render());
             return;
         }
         
@@ -197,28 +279,334 @@ public class LifestealCommand implements CommandExecutor, TabCompleter {
                 return;
             }
             
-            for (int i = 0; i < amount; i++) {
-                if (target.getInventory().firstEmpty() == -1) {
+            // One stacked insert on the target's own thread
+            plugin.getTaskScheduler().runEntity(target, () -> {
+                int given = amount - HeartUtils.giveHeartItems(target, 2, amount);
+                if (given < amount) {
                     sender.sendMessage(prefix + "§c" + target.getName() + "'s inventory is full!");
-                    break;
                 }
-                target.getInventory().addItem(HeartUtils.createHeartItem(2));
+                if (given == 0) {
+                    return;
+                }
+                
+                // Items are not hearts yet, the delta is what they are worth once consumed
+                plugin.getAuditLog().record(AuditLog.Action.ADMIN_GIVE, AuditLog.actorOf(sender), target.getUniqueId(),
+                    given * 2, plugin.getPlayerDataManager().getPlayerHearts(target.getUniqueId()), target.getWorld().getName());
+                
+                sender.sendMessage(prefix + "§aGave §c" + given + " §aheart items to §6" + target.getName());
+                target.sendMessage(plugin.getConfigManager().getMessage("received-heart-items")
+                    .render(Placeholder.AMOUNT, given));
+            });
+        
+        } catch (NumberFormatException e) {
+            sender.sendMessage(prefix + "§cInvalid number: " + args[2]);
+        }
+    }
+    
+    private void handleMigrateCommand(CommandSender sender, String[] args) {
+        String prefix = plugin.getConfigManager().getPrefix();
+        
+        if (args.length == 2 && args[1].equalsIgnoreCase("status")) {
+            String status = plugin.getMigrationManager().getStatus();
+            sender.sendMessage(prefix + (status != null ? "§eMigrating " + status : "§7No migration is running."));
+            return;
+        }
+        
+        if (args.length == 2 && args[1].equalsIgnoreCase("cancel")) {
+            if (plugin.getMigrationManager().cancel()) {
+                sender.sendMessage(prefix + "§eStopping migration after the current batch...");
+            } else {
+                sender.sendMessage(prefix + "§7No migration is running.");
+            }
+            return;
+        }
+        
+        if (args.length < 3) {
+            sender.sendMessage(prefix + "§cUsage: /lifesteal migrate <from> <to> | status | cancel");
+            return;
+        }
+        
+        List<String> types = Arrays.asList("file", "binary", "sqlite", "mysql", "mariadb");
+        String from = args[1].toLowerCase();
+        String to = args[2].toLowerCase();
+        if (!types.contains(from) || !types.contains(to)) {
+            sender.sendMessage(prefix + "§cStorage types: file, binary, sqlite, mysql");
+            return;
+        }
+        
+        if (PlayerDataManager.normalizeStorageType(from).equals(PlayerDataManager.normalizeStorageType(to))) {
+            sender.sendMessage(prefix + "§cSource and target storage must be different.");
+            return;
+        }
+        
+        if (!plugin.getMigrationManager().start(from, to, sender)) {
+            sender.sendMessage(prefix + "§cA migration is already running. Use §e/lifesteal migrate status§c.");
+        }
+    }
+    
+    private void handleBulkCommand(CommandSender sender, String[] args) {
+        String prefix = plugin.getConfigManager().getPrefix();
+        
+        if (args.length == 2 && args[1].equalsIgnoreCase("status")) {
+            String status = plugin.getBulkOperationManager().getStatus();
+            sender.sendMessage(prefix + (status != null ? "§eRunning " + status : "§7No bulk operation is running."));
+            return;
+        }
+        
+        if (args.length == 2 && args[1].equalsIgnoreCase("cancel")) {
+            if (plugin.getBulkOperationManager().cancel()) {
+                sender.sendMessage(prefix + "§eStopping bulk operation after the current batches...");
+            } else {
+                sender.sendMessage(prefix + "§7No bulk operation is running.");
+            }
+            return;
+        }
+        
+        String operation = args.length > 1 ? args[1].toLowerCase() : "";
+        int confirmIndex = operation.equals("reset") ? 2 : 3;
+        if (!Arrays.asList("reset", "scale", "clamp").contains(operation) || args.length < confirmIndex) {
+            sender.sendMessage(prefix + "§cUsage: /lifesteal bulk reset | scale <factor> | clamp <max> | status | cancel");
+            return;
+        }
+        
+        // Every stored player is rewritten, make the sender ask twice
+        boolean confirmed = args.length > confirmIndex && args[confirmIndex].equalsIgnoreCase("confirm");
+        String command = "/lifesteal " + String.join(" ", Arrays.copyOf(args, confirmIndex)) + " confirm";
+        
+        boolean started;
+        try {
+            switch (operation) {
+                case "reset":
+                    if (!confirmed) {
+                        sender.sendMessage(prefix + "§cThis resets hearts, kills and deaths of every stored player. "
+                            + "Run §e" + command + " §cto continue.");
+                        return;
+                    }
+                    started = plugin.getBulkOperationManager().startReset(sender);
+                    break;
+                
+                case "scale":
+                    double factor = Double.parseDouble(args[2]);
+                    if (factor <= 0 || Double.isInfinite(factor) || Double.isNaN(factor)) {
+                        sender.sendMessage(prefix + "§cThe factor must be greater than 0.");
+                        return;
+                    }
+                    if (!confirmed) {
+                        sender.sendMessage(prefix + "§cThis multiplies the hearts of every stored player by " + factor
+                            + ". Run §e" + command + " §cto continue.");
+                        return;
+                    }
+                    started = plugin.getBulkOperationManager().startScale(factor, sender);
+                    break;
+                
+                default:
+                    int max = Integer.parseInt(args[2]);
+                    if (!confirmed) {
+                        sender.sendMessage(prefix + "§cThis lowers every stored player above " + HeartUtils.formatHearts(max)
+                            + " hearts to it. Run §e" + command + " §cto continue.");
+                        return;
+                    }
+                    started = plugin.getBulkOperationManager().startClamp(max, sender);
+                    break;
             }
-            
-            sender.sendMessage(prefix + "§aGave §c" + amount + " §aheart items to §6" + target.getName());
-            target.sendMessage(prefix + plugin.getConfigManager().getMessage("received-heart-items")
-                .replace("{amount}", String.valueOf(amount)));
-            
         } catch (NumberFormatException e) {
             sender.sendMessage(prefix + "§cInvalid number: " + args[2]);
+            return;
+        }
+        
+        if (!started) {
+            sender.sendMessage(prefix + "§cA bulk operation is already running. Use §e/lifesteal bulk status§c.");
+        }
+    }
+    
+    private void handleMetricsCommand(CommandSender sender, String[] args) {
+        String prefix = plugin.getConfigManager().getPrefix();
+        
+        if (args.length > 1 && args[1].equalsIgnoreCase("dump")) {
+            plugin.getTaskScheduler().runAsync(() -> {
+                plugin.getMetricsExporter().write();
+                sender.sendMessage(prefix + "§aWrote metrics.prom to the plugin folder.");
+            });
+            return;
+        }
+        
+        MetricsRegistry metrics = plugin.getMetrics();
+        Map<String, LongSupplier> counters = metrics.getCounters();
+        
+        sender.sendMessage("§8§m----§r " + prefix.trim() + " §eMetrics §8§m----§r");
+        sender.sendMessage("§eCache hit rates:");
+        sender.sendMessage("§7 offline players §f" + formatHitRate(counters.get("offline_cache_hits"), counters.get("offline_cache_misses")));
+        sender.sendMessage("§7 heart item prototypes §f" + formatHitRate(counters.get("item_prototype_hits"), counters.get("item_prototype_misses")));
+        
+        sender.sendMessage("§eTimings §7(count | mean | p99 | max):");
+        for (Map.Entry<String, Histogram> entry : metrics.getHistograms().entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            sender.sendMessage("§7 " + entry.getKey() + " §f" + histogram.getCount()
+                + " §8| §f" + formatNanos(histogram.getMeanNanos())
+                + " §8| §f" + formatNanos(histogram.getPercentileNanos(0.99))
+                + " §8| §f" + formatNanos(histogram.getMaxNanos()));
+        }
+        
+        sender.sendMessage("§eCounters:");
+        for (Map.Entry<String, LongSupplier> entry : counters.entrySet()) {
+            sender.sendMessage("§7 " + entry.getKey() + " §f" + entry.getValue().getAsLong());
+        }
+        
+        sender.sendMessage("§eGauges:");
+        for (Map.Entry<String, LongSupplier> entry : metrics.getGauges().entrySet()) {
+            sender.sendMessage("§7 " + entry.getKey() + " §f" + entry.getValue().getAsLong());
+        }
+    }
+    
+    private String formatHitRate(LongSupplier hits, LongSupplier misses) {
+        long hitCount = hits != null ? hits.getAsLong() : 0;
+        long total = hitCount + (misses != null ? misses.getAsLong() : 0);
+        if (total == 0) {
+            return "-";
+        }
+        return String.format("%.1f%% §7of %d", hitCount * 100.0 / total, total);
+    }
+    
+    private String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1fµs", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1fms", nanos / 1e6);
+        }
+        return String.format("%.2fs", nanos / 1e9);
+    }
+    
+    private void handleHistoryCommand(CommandSender sender, String[] args) {
+        String prefix = plugin.getConfigManager().getPrefix();
+        
+        if (args.length < 2) {
+            sender.sendMessage(prefix + "§cUsage: /lifesteal history <player> [count]");
+            return;
+        }
+        
+        NameIndex.Entry target = plugin.getPlayerNameManager().resolve(args[1]);
+        if (target == null) {
+            sender.sendMessage(plugin.getConfigManager().getMessage("player-not-found").render());
+            return;
+        }
+        
+        int limit = HISTORY_DEFAULT_LIMIT;
+        if (args.length > 2) {
+            try {
+                limit = Math.max(1, Math.min(HISTORY_MAX_LIMIT, Integer.parseInt(args[2])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(prefix + "§cInvalid number: " + args[2]);
+                return;
+            }
+        }
+        
+        // Audit files are read and names looked up off the command thread
+        int count = limit;
+        plugin.getCommandPipeline().submitFuture(sender, () -> plugin.getAuditLog().history(target.playerId(), count)
+            .thenApplyAsync(entries -> {
+                List<String> lines = new ArrayList<>();
+                lines.add("§8§m----§r " + prefix.trim() + " §eHistory for §6" + target.name() + " §8§m----§r");
+                if (entries.isEmpty()) {
+                    lines.add("§7No heart changes recorded.");
+                }
+                for (AuditLog.Entry entry : entries) {
+                    lines.add(formatHistoryEntry(entry));
+                }
+                return lines;
+            }, plugin.getTaskScheduler()::runAsync), lines -> lines.forEach(sender::sendMessage));
+    }
+    
+    private String formatHistoryEntry(AuditLog.Entry entry) {
+        String time = HISTORY_TIME.format(Instant.ofEpochMilli(entry.timestamp()));
+        String delta = (entry.delta() >= 0 ? "§a+" : "§c") + entry.delta();
+        
+        StringBuilder line = new StringBuilder("§7").append(time).append(" §e").append(entry.action().name().toLowerCase())
+            .append(" §6").append(nameOf(entry.targetId()))
+            .append(" ").append(delta).append(" §7→ §f").append(entry.hearts());
+        if (!entry.actorId().equals(entry.targetId())) {
+            line.append(" §8by §7").append(entry.isConsole() ? "console" : nameOf(entry.actorId()));
+        }
+        if (!entry.world().equals("-")) {
+            line.append(" §8in §7").append(entry.world());
+        }
+        return line.toString();
+    }
+    
+    private void handleLeaderboardCommand(CommandSender sender, String[] args) {
+        String prefix = plugin.getConfigManager().getPrefix();
+        
+        // /lifesteal top [hearts|kills|kd] [page]
+        Leaderboard.Category category = Leaderboard.Category.HEARTS;
+        int page = 1;
+        for (int i = 1; i < args.length; i++) {
+            try {
+                page = Integer.parseInt(args[i]);
+            } catch (NumberFormatException e) {
+                try {
+                    category = Leaderboard.Category.valueOf(args[i].toUpperCase());
+                } catch (IllegalArgumentException ignored) {
+                    sender.sendMessage(prefix + "§cUsage: /lifesteal top [hearts|kills|kd] [page]");
+                    return;
+                }
+            }
         }
+        
+        // Names of players who have not joined lately may have to be read from disk
+        Leaderboard.Category chosen = category;
+        int requested = page;
+        plugin.getCommandPipeline().submit(sender, () -> formatLeaderboard(sender, chosen, requested),
+            lines -> lines.forEach(sender::sendMessage));
     }
     
-    private void handleLeaderboardCommand(CommandSender sender) {
-        // This would require more complex data storage to implement efficiently
-        // For now, just show a placeholder message
+    private List<String> formatLeaderboard(CommandSender sender, Leaderboard.Category category, int page) {
         String prefix = plugin.getConfigManager().getPrefix();
-        sender.sendMessage(prefix + "§cLeaderboard feature coming soon!");
+        LeaderboardManager leaderboard = plugin.getLeaderboardManager();
+        int pages = Math.max(1, (leaderboard.size() + LEADERBOARD_PAGE_SIZE - 1) / LEADERBOARD_PAGE_SIZE);
+        page = Math.max(1, Math.min(page, pages));
+        
+        List<String> lines = new ArrayList<>();
+        List<Leaderboard.Entry> entries = leaderboard.getPage(category, page, LEADERBOARD_PAGE_SIZE);
+        lines.add("§8§m----§r " + prefix.trim() + " §eTop " + category.name().toLowerCase()
+            + " §7(" + page + "/" + pages + ") §8§m----§r");
+        
+        if (entries.isEmpty()) {
+            lines.add("§7No players ranked yet.");
+            return lines;
+        }
+        
+        for (Leaderboard.Entry entry : entries) {
+            String value = switch (category) {
+                case HEARTS -> "§c" + HeartUtils.formatHearts(entry.hearts());
+                case KILLS -> "§f" + entry.kills() + " kills";
+                case KD -> "§f" + String.format("%.2f", entry.getKillDeathRatio()) + " K/D";
+            };
+            lines.add("§e#" + entry.rank() + " §6" + nameOf(entry.playerId()) + " §8- " + value);
+        }
+        
+        if (sender instanceof Player player) {
+            int rank = leaderboard.getRank(category, player.getUniqueId());
+            if (rank > 0) {
+                lines.add("§7Your rank: §e#" + rank);
+            }
+        }
+        return lines;
+    }
+    
+    /**
+     * Name for a stored UUID. Falls back to the server's player data, which
+     * may read from disk, so only call from an async phase.
+     */
+    private String nameOf(UUID playerId) {
+        String name = plugin.getPlayerNameManager().getName(playerId);
+        if (name == null) {
+            name = Bukkit.getOfflinePlayer(playerId).getName();
+        }
+        return name != null ? name : playerId.toString();
     }
     
     @Override
@@ -229,7 +617,8 @@ public class LifestealCommand implements CommandExecutor, TabCompleter {
             List<String> subcommands = Arrays.asList("help", "info", "stats", "top");
             
             if (sender.hasPermission("lifesteal.admin")) {
-                subcommands = Arrays.asList("help", "info", "stats", "reload", "set", "give", "top");
+                subcommands = Arrays.asList("help", "info", "stats", "reload", "set", "give", "top", "migrate", "bulk",
+                    "metrics", "history");
             }
             
             for (String sub : subcommands) {
@@ -238,20 +627,61 @@ public class LifestealCommand implements CommandExecutor, TabCompleter {
                 }
             }
         } else if (args.length == 2) {
-            if (args[0].equalsIgnoreCase("info") || args[0].equalsIgnoreCase("stats") || 
-                args[0].equalsIgnoreCase("set") || args[0].equalsIgnoreCase("give")) {
-                
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    if (player.getName().toLowerCase().startsWith(args[1].toLowerCase())) {
-                        completions.add(player.getName());
+            if (args[0].equalsIgnoreCase("give")) {
+                completions.addAll(plugin.getPlayerNameManager().complete(args[1], false));
+            } else if (args[0].equalsIgnoreCase("info") || args[0].equalsIgnoreCase("stats") ||
+                args[0].equalsIgnoreCase("set") || args[0].equalsIgnoreCase("history")) {
+                // These work on offline players too
+                completions.addAll(plugin.getPlayerNameManager().complete(args[1], true));
+            } else if (args[0].equalsIgnoreCase("top") || args[0].equalsIgnoreCase("leaderboard")) {
+                for (String option : Arrays.asList("hearts", "kills", "kd")) {
+                    if (option.startsWith(args[1].toLowerCase())) {
+                        completions.add(option);
+                    }
+                }
+            } else if (args[0].equalsIgnoreCase("metrics") && sender.hasPermission("lifesteal.admin")) {
+                if ("dump".startsWith(args[1].toLowerCase())) {
+                    completions.add("dump");
+                }
+            } else if (args[0].equalsIgnoreCase("migrate") && sender.hasPermission("lifesteal.admin")) {
+                for (String option : Arrays.asList("file", "binary", "sqlite", "mysql", "status", "cancel")) {
+                    if (option.startsWith(args[1].toLowerCase())) {
+                        completions.add(option);
+                    }
+                }
+            } else if (args[0].equalsIgnoreCase("bulk") && sender.hasPermission("lifesteal.admin")) {
+                for (String option : Arrays.asList("reset", "scale", "clamp", "status", "cancel")) {
+                    if (option.startsWith(args[1].toLowerCase())) {
+                        completions.add(option);
                     }
                 }
             }
         } else if (args.length == 3) {
-            if (args[0].equalsIgnoreCase("set")) {
+            if (args[0].equalsIgnoreCase("migrate") && sender.hasPermission("lifesteal.admin")) {
+                for (String option : Arrays.asList("file", "binary", "sqlite", "mysql")) {
+                    if (option.startsWith(args[2].toLowerCase())) {
+                        completions.add(option);
+                    }
+                }
+            } else if (args[0].equalsIgnoreCase("bulk") && sender.hasPermission("lifesteal.admin")) {
+                if (args[1].equalsIgnoreCase("reset")) {
+                    completions.add("confirm");
+                } else if (args[1].equalsIgnoreCase("scale")) {
+                    completions.addAll(Arrays.asList("0.5", "0.75", "1.5", "2"));
+                } else if (args[1].equalsIgnoreCase("clamp")) {
+                    completions.addAll(Arrays.asList("20", "30", "40", "60"));
+                }
+            } else if (args[0].equalsIgnoreCase("set")) {
                 completions.addAll(Arrays.asList("2", "4", "10", "20", "40"));
             } else if (args[0].equalsIgnoreCase("give")) {
                 completions.addAll(Arrays.asList("1", "5", "10", "16", "32", "64"));
+            } else if (args[0].equalsIgnoreCase("history")) {
+                completions.addAll(Arrays.asList("10", "25", "50", "100"));
+            }
+        } else if (args.length == 4) {
+            if (args[0].equalsIgnoreCase("bulk") && sender.hasPermission("lifesteal.admin")
+                && (args[1].equalsIgnoreCase("scale") || args[1].equalsIgnoreCase("clamp"))) {
+                completions.add("confirm");
             }
         }
         
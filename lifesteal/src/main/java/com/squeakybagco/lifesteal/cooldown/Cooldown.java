@@ -0,0 +1,37 @@
+package com.squeakybagco.lifesteal.cooldown;
+
+import com.squeakybagco.lifesteal.storage.PlayerData;
+
+/**
+ * Timed actions a player has to wait between. Each one owns a fixed slot in
+ * the stored player record, so never reuse or renumber a slot.
+ */
+public enum Cooldown {
+    WITHDRAW(0, "withdraw-ready"),
+    CONSUME(1, "consume-ready");
+    
+    private final int slot;
+    private final String readyMessage;
+    
+    Cooldown(int slot, String readyMessage) {
+        if (slot >= PlayerData.COOLDOWN_SLOTS) {
+            throw new IllegalArgumentException("Cooldown slot " + slot + " is not stored");
+        }
+        this.slot = slot;
+        this.readyMessage = readyMessage;
+    }
+    
+    /**
+     * @return Index of this cooldown's deadline in {@link PlayerData}
+     */
+    public int getSlot() {
+        return slot;
+    }
+    
+    /**
+     * @return Message key sent when the cooldown runs out
+     */
+    public String getReadyMessage() {
+        return readyMessage;
+    }
+}
@@ -0,0 +1,156 @@
+package com.squeakybagco.lifesteal.cooldown;
+
+import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.metrics.Counter;
+import com.squeakybagco.lifesteal.storage.PlayerData;
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cooldowns for timed player actions.
+ * Deadlines are primitive epoch millis stored in the player's record, so they
+ * are saved with it and survive relogs and restarts, and a check is a field
+ * read and a clock read. Running cooldowns of online players are also held in
+ * a {@link TimingWheel} advanced once a second on the global region, which
+ * tells players when a cooldown ends without scanning anyone.
+ */
+public class CooldownService {
+    
+    private static final long TICK_MILLIS = 1000;
+    private static final long TICK_INTERVAL = 20L; // One wheel tick, in server ticks
+    
+    private final LifestealPlugin plugin;
+    private final TimingWheel<Expiry> wheel;
+    private final Queue<Expiry> inbox = new ConcurrentLinkedQueue<>();
+    private final Counter ended;
+    private volatile int pending;
+    private volatile boolean running;
+    
+    public CooldownService(LifestealPlugin plugin) {
+        this.plugin = plugin;
+        this.wheel = new TimingWheel<>(System.currentTimeMillis() / TICK_MILLIS);
+        this.ended = plugin.getMetrics().counter("cooldowns_ended", "Cooldowns that ran out for online players");
+        plugin.getMetrics().gauge("cooldowns_pending", "Running cooldowns of online players", () -> pending);
+    }
+    
+    /**
+     * Start advancing the wheel on the global region
+     */
+    public void start() {
+        running = true;
+        plugin.getTaskScheduler().runGlobalLater(this::tick, TICK_INTERVAL);
+    }
+    
+    public void stop() {
+        running = false;
+    }
+    
+    /**
+     * @return true if the player has to wait before using the action again
+     */
+    public boolean isActive(UUID playerId, Cooldown cooldown) {
+        return getRemainingMillis(playerId, cooldown) > 0;
+    }
+    
+    /**
+     * @return Milliseconds left on a cooldown, 0 if it is not running or the player is not loaded
+     */
+    public long getRemainingMillis(UUID playerId, Cooldown cooldown) {
+        PlayerData data = plugin.getPlayerDataManager().getPlayerData(playerId);
+        if (data == null) {
+            return 0;
+        }
+        return Math.max(0, data.getCooldown(cooldown.getSlot()) - System.currentTimeMillis());
+    }
+    
+    /**
+     * @return Seconds left on a cooldown, rounded up
+     */
+    public long getRemainingSeconds(UUID playerId, Cooldown cooldown) {
+        return (getRemainingMillis(playerId, cooldown) + TICK_MILLIS - 1) / TICK_MILLIS;
+    }
+    
+    /**
+     * Start a cooldown for its configured duration. Safe from any thread.
+     */
+    public void start(UUID playerId, Cooldown cooldown) {
+        long seconds = getDuration(cooldown);
+        PlayerData data = plugin.getPlayerDataManager().getPlayerData(playerId);
+        if (seconds <= 0 || data == null) {
+            return;
+        }
+        
+        long deadline = System.currentTimeMillis() + seconds * 1000L;
+        data.setCooldown(cooldown.getSlot(), deadline);
+        inbox.add(new Expiry(playerId, cooldown, deadline));
+    }
+    
+    /**
+     * Put a joining player's stored cooldowns that are still running on the wheel
+     */
+    public void track(UUID playerId) {
+        PlayerData data = plugin.getPlayerDataManager().getPlayerData(playerId);
+        if (data == null) {
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        for (Cooldown cooldown : Cooldown.values()) {
+            long deadline = data.getCooldown(cooldown.getSlot());
+            if (deadline > now) {
+                inbox.add(new Expiry(playerId, cooldown, deadline));
+            }
+        }
+    }
+    
+    /**
+     * @return Configured length of a cooldown in seconds
+     */
+    public int getDuration(Cooldown cooldown) {
+        return switch (cooldown) {
+            case WITHDRAW -> plugin.getConfigManager().getWithdrawCooldown();
+            case CONSUME -> plugin.getConfigManager().getConsumeCooldown();
+        };
+    }
+    
+    private void tick() {
+        if (!running) {
+            return;
+        }
+        
+        Expiry expiry;
+        while ((expiry = inbox.poll()) != null) {
+            wheel.schedule((expiry.deadline + TICK_MILLIS - 1) / TICK_MILLIS, expiry);
+        }
+        wheel.advance(System.currentTimeMillis() / TICK_MILLIS, this::expire);
+        pending = wheel.size();
+        
+        plugin.getTaskScheduler().runGlobalLater(this::tick, TICK_INTERVAL);
+    }
+    
+    private void expire(Expiry expiry) {
+        // Restarted, cleared or unloaded since it was scheduled
+        PlayerData data = plugin.getPlayerDataManager().getPlayerData(expiry.playerId);
+        if (data == null || data.getCooldown(expiry.cooldown.getSlot()) != expiry.deadline) {
+            return;
+        }
+        
+        Player player = plugin.getServer().getPlayer(expiry.playerId);
+        if (player == null) {
+            return;
+        }
+        ended.increment();
+        
+        if (plugin.getConfigManager().isNotifyCooldownEnd()) {
+            Component message = plugin.getConfigManager().getMessage(expiry.cooldown.getReadyMessage()).render();
+            plugin.getEffectRouter().send(player, target -> target.sendMessage(message));
+        }
+    }
+    
+    private record Expiry(UUID playerId, Cooldown cooldown, long deadline) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.squeakybagco.lifesteal.cooldown;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel with four levels of 64 slots.
+ * A timer goes into the lowest level whose span covers its delay, indexed by
+ * the bits of its absolute deadline tick for that level. Level 0 slots are a
+ * single tick; each higher slot spans 64 slots of the level below and is
+ * spilled back down when the wheel reaches it. Adding and expiring a timer
+ * are O(1) no matter how many are pending, and each tick only touches the
+ * slots that are due. Timers are never cancelled; owners drop stale ones when
+ * they expire.
+ *
+ * Not thread safe, owned by a single thread.
+ */
+final class TimingWheel<T> {
+    
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    
+    // Furthest deadline the top level can index, later ones wait in its last slot
+    private static final long MAX_DELAY = (1L << (LEVELS * SLOT_BITS)) - 1;
+    
+    private final Timer<T>[][] wheels;
+    private long currentTick;
+    private int size;
+    
+    @SuppressWarnings("unchecked")
+    TimingWheel(long startTick) {
+        this.wheels = new Timer[LEVELS][SLOTS];
+        this.currentTick = startTick;
+    }
+    
+    /**
+     * Schedule a value to expire at an absolute tick
+     */
+    void schedule(long deadlineTick, T value) {
+        insert(new Timer<>(deadlineTick, value));
+        size++;
+    }
+    
+    /**
+     * Move the wheel forward, handing every timer due at or before the tick to expired
+     */
+    void advance(long toTick, Consumer<T> expired) {
+        while (currentTick < toTick) {
+            currentTick++;
+            
+            // Spill each level whose lower level just wrapped, top first, then fire level 0
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                if ((currentTick & ((1L << (level * SLOT_BITS)) - 1)) == 0) {
+                    spill(level, (int) ((currentTick >>> (level * SLOT_BITS)) & SLOT_MASK), expired);
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return Timers still pending
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Expire the slot's due timers and move the rest to the level that now covers them
+     */
+    private void spill(int level, int slot, Consumer<T> expired) {
+        Timer<T> timer = wheels[level][slot];
+        wheels[level][slot] = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            timer.next = null;
+            if (timer.deadline <= currentTick) {
+                size--;
+                expired.accept(timer.value);
+            } else {
+                insert(timer);
+            }
+            timer = next;
+        }
+    }
+    
+    private void insert(Timer<T> timer) {
+        long delay = Math.min(Math.max(1, timer.deadline - currentTick), MAX_DELAY);
+        long tick = currentTick + delay;
+        
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << ((level + 1) * SLOT_BITS)) {
+            level++;
+        }
+        int slot = (int) ((tick >>> (level * SLOT_BITS)) & SLOT_MASK);
+        
+        timer.next = wheels[level][slot];
+        wheels[level][slot] = timer;
+    }
+    
+    /**
+     * A scheduled value, chained into one wheel slot
+     */
+    private static final class Timer<T> {
+        private final long deadline;
+        private final T value;
+        private Timer<T> next;
+        
+        private Timer(long deadline, T value) {
+            this.deadline = deadline;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.squeakybagco.lifesteal.effects;
+
+import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.metrics.Counter;
+import com.squeakybagco.lifesteal.metrics.Histogram;
+import com.squeakybagco.lifesteal.metrics.MetricsRegistry;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Delivers effects to players on the thread that owns them.
+ * A region thread handling a kill must not touch a player owned by another
+ * region, so it posts effects here instead. Each player has a mailbox that
+ * is drained by one task on the player's own entity scheduler; everything
+ * posted before that task runs is applied in the same batch, and neither
+ * side ever waits for the other.
+ */
+public class EffectRouter {
+    
+    private final LifestealPlugin plugin;
+    private final Map<UUID, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    
+    private final LongAdder queued = new LongAdder();
+    private final Counter delivered;
+    private final Counter dropped;
+    private final Counter batches;
+    private final Histogram latency;
+    
+    public EffectRouter(LifestealPlugin plugin) {
+        this.plugin = plugin;
+        
+        MetricsRegistry metrics = plugin.getMetrics();
+        this.delivered = metrics.counter("effects_delivered", "Effects applied on the owning player's thread");
+        this.dropped = metrics.counter("effects_dropped", "Effects dropped because the player left first");
+        this.batches = metrics.counter("effect_batches", "Mailbox drain tasks run");
+        this.latency = metrics.histogram("effect_latency", "Time from posting an effect to applying it");
+        metrics.gauge("effects_queued", "Effects posted but not yet applied", queued::sum);
+    }
+    
+    /**
+     * Apply an effect to a player on their own scheduler. Safe to call from any thread.
+     * Effects for a player who left before delivery are dropped.
+     */
+    public void send(Player player, Consumer<Player> effect) {
+        Mailbox mailbox = mailboxes.computeIfAbsent(player.getUniqueId(), id -> new Mailbox());
+        mailbox.effects.add(new Effect(effect, System.nanoTime()));
+        queued.increment();
+        
+        // Only the first effect of a batch schedules the drain
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            UUID playerId = player.getUniqueId();
+            boolean scheduled = plugin.getTaskScheduler().runEntity(player,
+                () -> drain(player, mailbox), () -> retire(playerId, mailbox));
+            if (!scheduled) {
+                retire(playerId, mailbox); // Player already removed from the world
+            }
+        }
+    }
+    
+    /**
+     * Drop a player's mailbox once they left
+     */
+    public void forget(UUID playerId) {
+        Mailbox mailbox = mailboxes.remove(playerId);
+        if (mailbox != null) {
+            discard(mailbox);
+        }
+    }
+    
+    private void drain(Player player, Mailbox mailbox) {
+        // Clear the flag first so effects posted while draining schedule a new batch
+        mailbox.scheduled.set(false);
+        batches.increment();
+        
+        Effect effect;
+        while ((effect = mailbox.effects.poll()) != null) {
+            latency.recordSince(effect.postedNanos);
+            queued.decrement();
+            delivered.increment();
+            
+            try {
+                effect.action.accept(player);
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Effect for " + player.getName() + " failed: " + e.getMessage());
+            }
+        }
+    }
+    
+    private void retire(UUID playerId, Mailbox mailbox) {
+        mailboxes.remove(playerId, mailbox);
+        discard(mailbox);
+    }
+    
+    private void discard(Mailbox mailbox) {
+        mailbox.scheduled.set(false);
+        while (mailbox.effects.poll() != null) {
+            queued.decrement();
+            dropped.increment();
+        }
+    }
+    
+    /**
+     * @return Effects posted but not yet delivered or dropped
+     */
+    public long getQueueDepth() {
+        return queued.sum();
+    }
+    
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+    
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    /**
+     * @return Number of drain tasks run, each delivering one batch
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+    
+    /**
+     * @return Mean time from posting to delivery in microseconds
+     */
+    public long getAverageLatencyMicros() {
+        return latency.getMeanNanos() / 1000;
+    }
+    
+    /**
+     * @return Longest time from posting to delivery in microseconds
+     */
+    public long getMaxLatencyMicros() {
+        return latency.getMaxNanos() / 1000;
+    }
+    
+    private record Effect(Consumer<Player> action, long postedNanos) {
+    }
+    
+    private static class Mailbox {
+        private final Queue<Effect> effects = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,218 @@
+package com.squeakybagco.lifesteal.leaderboard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory ranking of every known player by hearts, kills and K/D.
+ * Each category is an order-statistic tree, so a changed record is re-ranked
+ * in O(log n) and pages and ranks are answered without touching storage.
+ * The whole index can be written to and read from a compact snapshot file.
+ */
+public class Leaderboard {
+    
+    /**
+     * What players are ranked by
+     */
+    public enum Category {
+        HEARTS,
+        KILLS,
+        KD
+    }
+    
+    /**
+     * A ranked player's numbers at the time of the query
+     */
+    public record Entry(UUID playerId, int rank, int hearts, int kills, int deaths) {
+        
+        public double getKillDeathRatio() {
+            return deaths > 0 ? (double) kills / deaths : kills;
+        }
+    }
+    
+    private static final int SNAPSHOT_MAGIC = 0x4C534C42; // "LSLB"
+    private static final int SNAPSHOT_VERSION = 1;
+    
+    private final Map<UUID, Stats> players = new HashMap<>();
+    private final RankTree[] trees = new RankTree[Category.values().length];
+    private boolean changed;
+    
+    public Leaderboard() {
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = new RankTree();
+        }
+    }
+    
+    /**
+     * Re-rank a player after their record changed
+     */
+    public synchronized void update(UUID playerId, int hearts, int kills, int deaths) {
+        Stats previous = players.get(playerId);
+        if (previous != null) {
+            if (previous.hearts == hearts && previous.kills == kills && previous.deaths == deaths) {
+                return;
+            }
+            unlink(playerId, previous);
+        }
+        
+        Stats stats = new Stats(hearts, kills, deaths);
+        players.put(playerId, stats);
+        link(playerId, stats);
+        changed = true;
+    }
+    
+    /**
+     * Add a player read from storage unless a newer live update already ranked them
+     * @return true if the player was added
+     */
+    public synchronized boolean seed(UUID playerId, int hearts, int kills, int deaths) {
+        if (players.containsKey(playerId)) {
+            return false;
+        }
+        
+        Stats stats = new Stats(hearts, kills, deaths);
+        players.put(playerId, stats);
+        link(playerId, stats);
+        changed = true;
+        return true;
+    }
+    
+    /**
+     * @return One-based rank of the player, or -1 if they are not ranked
+     */
+    public synchronized int getRank(Category category, UUID playerId) {
+        Stats stats = players.get(playerId);
+        if (stats == null) {
+            return -1;
+        }
+        return trees[category.ordinal()].rank(stats.score(category), playerId) + 1;
+    }
+    
+    /**
+     * @param offset Zero-based position of the first entry
+     * @param limit Maximum number of entries
+     * @return Entries in rank order
+     */
+    public synchronized List<Entry> getPage(Category category, int offset, int limit) {
+        RankTree tree = trees[category.ordinal()];
+        int end = Math.min(tree.size(), offset + limit);
+        
+        List<Entry> page = new ArrayList<>(Math.max(0, end - offset));
+        for (int i = Math.max(0, offset); i < end; i++) {
+            UUID playerId = tree.select(i);
+            Stats stats = players.get(playerId);
+            page.add(new Entry(playerId, i + 1, stats.hearts, stats.kills, stats.deaths));
+        }
+        return page;
+    }
+    
+    /**
+     * @return Number of ranked players
+     */
+    public synchronized int size() {
+        return players.size();
+    }
+    
+    /**
+     * @return true if anything changed since the last snapshot was written or read
+     */
+    public synchronized boolean isChanged() {
+        return changed;
+    }
+    
+    /**
+     * Write every ranked player to a snapshot, replacing the file atomically
+     */
+    public void writeSnapshot(File file) throws IOException {
+        Map<UUID, Stats> copy;
+        synchronized (this) {
+            copy = new HashMap<>(players);
+            changed = false;
+        }
+        
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(copy.size());
+            for (Map.Entry<UUID, Stats> entry : copy.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeInt(entry.getValue().hearts);
+                out.writeInt(entry.getValue().kills);
+                out.writeInt(entry.getValue().deaths);
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                changed = true;
+            }
+            throw e;
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Add the contents of a snapshot. Players ranked by live updates before
+     * the snapshot was read keep their newer numbers.
+     * @return Number of players read
+     */
+    public int readSnapshot(File file) throws IOException {
+        Map<UUID, Stats> read = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported leaderboard snapshot");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID playerId = new UUID(in.readLong(), in.readLong());
+                read.put(playerId, new Stats(in.readInt(), in.readInt(), in.readInt()));
+            }
+        }
+        
+        synchronized (this) {
+            for (Map.Entry<UUID, Stats> entry : read.entrySet()) {
+                if (players.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                    link(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return read.size();
+    }
+    
+    private void link(UUID playerId, Stats stats) {
+        for (Category category : Category.values()) {
+            trees[category.ordinal()].insert(stats.score(category), playerId);
+        }
+    }
+    
+    private void unlink(UUID playerId, Stats stats) {
+        for (Category category : Category.values()) {
+            trees[category.ordinal()].remove(stats.score(category), playerId);
+        }
+    }
+    
+    private record Stats(int hearts, int kills, int deaths) {
+        
+        private long score(Category category) {
+            return switch (category) {
+                case HEARTS -> hearts;
+                case KILLS -> kills;
+                // Fixed point so ratios compare exactly; no deaths counts as one
+                case KD -> kills * 1_000_000L / Math.max(1, deaths);
+            };
+        }
+    }
+}
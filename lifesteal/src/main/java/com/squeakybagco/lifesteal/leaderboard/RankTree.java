@@ -0,0 +1,174 @@
+package com.squeakybagco.lifesteal.leaderboard;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Order-statistic treap of players ranked by a single score.
+ * Every node tracks the size of its subtree, so inserting, removing,
+ * finding the rank of a player and finding the player at a rank are all
+ * O(log n) expected. Higher scores rank first; ties are broken by UUID so
+ * every player has exactly one position.
+ *
+ * Not thread safe, callers synchronize.
+ */
+class RankTree {
+    
+    private Node root;
+    
+    /**
+     * @return Number of players in the tree
+     */
+    int size() {
+        return size(root);
+    }
+    
+    void insert(long score, UUID playerId) {
+        Node node = new Node(score, playerId);
+        Node[] parts = split(root, score, playerId);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+    
+    /**
+     * Remove a player. The score must be the one the player was inserted with.
+     */
+    void remove(long score, UUID playerId) {
+        root = remove(root, score, playerId);
+    }
+    
+    /**
+     * @return Zero-based position of the player, or -1 if they are not in the tree
+     */
+    int rank(long score, UUID playerId) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(score, playerId, node);
+            if (cmp == 0) {
+                return rank + size(node.left);
+            }
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * @return The player at a zero-based position, or null if out of range
+     */
+    UUID select(int rank) {
+        if (rank < 0 || rank >= size()) {
+            return null;
+        }
+        
+        Node node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (rank < leftSize) {
+                node = node.left;
+            } else if (rank == leftSize) {
+                return node.playerId;
+            } else {
+                rank -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Split into nodes ranked before the key and nodes ranked at or after it
+     */
+    private static Node[] split(Node node, long score, UUID playerId) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        
+        if (compare(score, playerId, node) > 0) {
+            Node[] parts = split(node.right, score, playerId);
+            node.right = parts[0];
+            node.update();
+            return new Node[] {node, parts[1]};
+        }
+        
+        Node[] parts = split(node.left, score, playerId);
+        node.left = parts[1];
+        node.update();
+        return new Node[] {parts[0], node};
+    }
+    
+    /**
+     * Merge two treaps where every node of the first ranks before the second
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        }
+        second.left = merge(first, second.left);
+        second.update();
+        return second;
+    }
+    
+    private static Node remove(Node node, long score, UUID playerId) {
+        if (node == null) {
+            return null;
+        }
+        
+        int cmp = compare(score, playerId, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, score, playerId);
+        } else {
+            node.right = remove(node.right, score, playerId);
+        }
+        node.update();
+        return node;
+    }
+    
+    /**
+     * @return Negative if the key ranks before the node
+     */
+    private static int compare(long score, UUID playerId, Node node) {
+        if (score != node.score) {
+            return score > node.score ? -1 : 1;
+        }
+        return playerId.compareTo(node.playerId);
+    }
+    
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+    
+    private static class Node {
+        private final long score;
+        private final UUID playerId;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left;
+        private Node right;
+        
+        private Node(long score, UUID playerId) {
+            this.score = score;
+            this.playerId = playerId;
+        }
+        
+        private void update() {
+            size = 1 + RankTree.size(left) + RankTree.size(right);
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.squeakybagco.lifesteal.listeners;
 
 import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.audit.AuditLog;
+import com.squeakybagco.lifesteal.effects.EffectRouter;
 import com.squeakybagco.lifesteal.managers.PlayerDataManager;
+import com.squeakybagco.lifesteal.messages.Placeholder;
+import com.squeakybagco.lifesteal.metrics.Histogram;
+import com.squeakybagco.lifesteal.metrics.MetricsRegistry;
 import com.squeakybagco.lifesteal.utils.HeartUtils;
 
 import net.kyori.adventure.text.Component;
@@ -11,40 +16,94 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+
+import java.io.IOException;
 
 public class CombatListener implements Listener {
     
     private final LifestealPlugin plugin;
     private final PlayerDataManager dataManager;
+    private final Histogram joinTime;
+    private final Histogram quitTime;
+    private final Histogram deathTime;
     
     public CombatListener(LifestealPlugin plugin) {
         this.plugin = plugin;
         this.dataManager = plugin.getPlayerDataManager();
+        
+        MetricsRegistry metrics = plugin.getMetrics();
+        this.joinTime = metrics.histogram("handler_join", "Time spent in the player join handler");
+        this.quitTime = metrics.histogram("handler_quit", "Time spent in the player quit handler");
+        this.deathTime = metrics.histogram("handler_death", "Time spent in the player death handler");
+    }
+    
+    // HIGHEST, not MONITOR: this may refuse the login, which MONITOR handlers must not do
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return; // Already refused by another plugin, nothing to prefetch
+        }
+        
+        // Read player data from storage here, off the region threads
+        try {
+            dataManager.prefetchPlayerData(event.getUniqueId());
+        } catch (IOException e) {
+            // Letting them in with defaults would save those over their real record
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                Component.text("Could not load your player data, please try again shortly."));
+        }
     }
     
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerJoin(PlayerJoinEvent event) {
+        long start = System.nanoTime();
         Player player = event.getPlayer();
         
-        // Load player data on join
-        plugin.scheduleRegionTask(player.getLocation(), () -> {
-            dataManager.loadPlayerData(player);
-            HeartUtils.updatePlayerMaxHealth(player, dataManager.getPlayerHearts(player.getUniqueId()));
-        });
+        // Join runs on the player's region, data was prefetched so this only touches memory
+        if (!dataManager.loadPlayerData(player)) {
+            player.kick(Component.text("Could not load your player data, please try again shortly."));
+            joinTime.recordSince(start);
+            return;
+        }
+        plugin.getPlayerNameManager().join(player);
+        plugin.getCooldownService().track(player.getUniqueId());
+        HeartUtils.updatePlayerMaxHealth(player, dataManager.getPlayerHearts(player.getUniqueId()));
+        joinTime.recordSince(start);
     }
     
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
+        long start = System.nanoTime();
         Player player = event.getPlayer();
         
-        // Save player data on quit
-        dataManager.savePlayerData(player);
+        // Save player data on quit and move it to the offline cache
+        dataManager.unloadPlayerData(player.getUniqueId());
+        plugin.getPlayerNameManager().quit(player);
+        plugin.getEffectRouter().forget(player.getUniqueId());
+        quitTime.recordSince(start);
+    }
+    
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent event) {
+        // Enabled worlds are matched by UUID, resolve names for the new world
+        plugin.getConfigManager().refreshWorlds();
     }
     
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerDeath(PlayerDeathEvent event) {
+        long start = System.nanoTime();
+        try {
+            handlePlayerDeath(event);
+        } finally {
+            deathTime.recordSince(start);
+        }
+    }
+    
+    private void handlePlayerDeath(PlayerDeathEvent event) {
         Player victim = event.getEntity();
         Player killer = victim.getKiller();
         
@@ -59,62 +118,49 @@ public class CombatListener implements Listener {
         }
         
         // Check if lifesteal is enabled in this world
-        if (!plugin.getConfigManager().isLifestealEnabledInWorld(victim.getWorld().getName())) {
+        if (!plugin.getConfigManager().isLifestealEnabledInWorld(victim.getWorld())) {
             return;
         }
         
         // Schedule the heart transfer on the victim's region
-        plugin.scheduleRegionTask(victim.getLocation(), () -> {
+        plugin.getTaskScheduler().runRegion(victim.getLocation(), () -> {
             processHeartSteal(victim, killer);
         });
     }
     
     private void processHeartSteal(Player victim, Player killer) {
-        int victimHearts = dataManager.getPlayerHearts(victim.getUniqueId());
-        int killerHearts = dataManager.getPlayerHearts(killer.getUniqueId());
-        
-        int maxHearts = plugin.getConfigManager().getMaxHearts();
-        int minHearts = plugin.getConfigManager().getMinHearts();
-        int heartsToSteal = plugin.getConfigManager().getHeartsPerKill();
-        
-        // Check if victim would go below minimum
-        if (victimHearts - heartsToSteal < minHearts) {
-            heartsToSteal = Math.max(0, victimHearts - minHearts);
-        }
-        
-        // Check if killer would go above maximum
-        if (killerHearts + heartsToSteal > maxHearts) {
-            heartsToSteal = Math.max(0, maxHearts - killerHearts);
-        }
+        dataManager.addKill(killer.getUniqueId());
+        dataManager.addDeath(victim.getUniqueId());
         
+        // Transfer hearts, clamped to the victim's minimum and the killer's maximum
+        int heartsToSteal = dataManager.stealHearts(victim.getUniqueId(), killer.getUniqueId(),
+            plugin.getConfigManager().getHeartsPerKill());
         if (heartsToSteal <= 0) {
             return;
         }
         
-        // Transfer hearts
-        int newVictimHearts = victimHearts - heartsToSteal;
-        int newKillerHearts = killerHearts + heartsToSteal;
+        int newVictimHearts = dataManager.getPlayerHearts(victim.getUniqueId());
+        int newKillerHearts = dataManager.getPlayerHearts(killer.getUniqueId());
         
-        dataManager.setPlayerHearts(victim.getUniqueId(), newVictimHearts);
-        dataManager.setPlayerHearts(killer.getUniqueId(), newKillerHearts);
-        
-        // Update max health for both players
-        HeartUtils.updatePlayerMaxHealth(victim, newVictimHearts);
-        HeartUtils.updatePlayerMaxHealth(killer, newKillerHearts);
+        // One audit record per side, each describes the change to its target
+        String world = victim.getWorld().getName();
+        AuditLog audit = plugin.getAuditLog();
+        audit.record(AuditLog.Action.STEAL, killer.getUniqueId(), victim.getUniqueId(), -heartsToSteal, newVictimHearts, world);
+        audit.record(AuditLog.Action.STEAL, killer.getUniqueId(), killer.getUniqueId(), heartsToSteal, newKillerHearts, world);
         
         // Send messages
-        String victimMessage = plugin.getConfigManager().getMessage("heart-lost")
-            .replace("{amount}", String.valueOf(heartsToSteal))
-            .replace("{killer}", killer.getName())
-            .replace("{hearts}", String.valueOf(newVictimHearts));
+        Component victimMessage = plugin.getConfigManager().getMessage("heart-lost").render(
+            Placeholder.AMOUNT, heartsToSteal, Placeholder.KILLER, killer.getName(), Placeholder.HEARTS, newVictimHearts);
         
-        String killerMessage = plugin.getConfigManager().getMessage("heart-gained")
-            .replace("{amount}", String.valueOf(heartsToSteal))
-            .replace("{victim}", victim.getName())
-            .replace("{hearts}", String.valueOf(newKillerHearts));
+        Component killerMessage = plugin.getConfigManager().getMessage("heart-gained").render(
+            Placeholder.AMOUNT, heartsToSteal, Placeholder.VICTIM, victim.getName(), Placeholder.HEARTS, newKillerHearts);
         
-        victim.sendMessage(victimMessage);
-        killer.sendMessage(killerMessage);
+        // The killer may belong to another region, so each side is updated on its own scheduler
+        EffectRouter effects = plugin.getEffectRouter();
+        effects.send(victim, player -> player.sendMessage(victimMessage));
+        effects.send(killer, player -> player.sendMessage(killerMessage));
+        refreshMaxHealth(victim);
+        refreshMaxHealth(killer);
         
         // Check if victim should be eliminated
         if (newVictimHearts <= 0) {
@@ -122,19 +168,27 @@ public class CombatListener implements Listener {
         }
     }
     
+    /**
+     * Apply a player's current hearts on their own thread. Several kills in one
+     * tick only refresh once, with the latest value.
+     */
+    private void refreshMaxHealth(Player player) {
+        plugin.getTaskScheduler().runEntityCoalesced(player, "max-health", () ->
+            HeartUtils.updatePlayerMaxHealth(player, dataManager.getPlayerHearts(player.getUniqueId())));
+    }
+    
     private void handlePlayerElimination(Player player) {
         if (!plugin.getConfigManager().isEliminationEnabled()) {
             return;
         }
         
         // Schedule elimination task
-        plugin.scheduleRegionTaskLater(player.getLocation(), () -> {
-            String eliminationMessage = plugin.getConfigManager().getMessage("player-eliminated")
-                .replace("{player}", player.getName());
+        plugin.getTaskScheduler().runRegionLater(player.getLocation(), () -> {
+            Component eliminationMessage = plugin.getConfigManager().getMessage("player-eliminated")
+                .render(Placeholder.PLAYER, player.getName());
             
             // Broadcast elimination message using Adventure API
-            Component messageComponent = Component.text(eliminationMessage);
-            plugin.getServer().broadcast(messageComponent);
+            plugin.getServer().broadcast(eliminationMessage);
             
             // Execute elimination commands
             for (String command : plugin.getConfigManager().getEliminationCommands()) {
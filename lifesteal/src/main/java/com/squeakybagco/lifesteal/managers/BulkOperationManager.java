@@ -0,0 +1,278 @@
+package com.squeakybagco.lifesteal.managers;
+
+import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.storage.PlayerData;
+import com.squeakybagco.lifesteal.storage.PlayerDataScan;
+import com.squeakybagco.lifesteal.utils.HeartUtils;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Changes every stored player at once, for season resets and rebalancing.
+ * The store is scanned on an async thread and each batch is changed and
+ * written by one of a few async workers, with a throttle so the job can run
+ * on a live server. Only the batches being worked on are held in memory, so
+ * the cost does not grow with the number of stored players. Players whose
+ * record is in memory get the change on their live record instead, online
+ * players on their own thread.
+ */
+public class BulkOperationManager {
+    
+    private static final long PROGRESS_INTERVAL_MILLIS = 5000;
+    
+    private final LifestealPlugin plugin;
+    private volatile Operation current;
+    
+    public BulkOperationManager(LifestealPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Reset every player to the default hearts and clear their kills and deaths
+     * @return false if an operation is already running
+     */
+    public boolean startReset(CommandSender sender) {
+        int hearts = plugin.getConfigManager().getDefaultHearts();
+        return start("Reset", data -> {
+            data.setHearts(hearts);
+            data.setKills(0);
+            data.setDeaths(0);
+            data.setLastDeath(0);
+        }, sender);
+    }
+    
+    /**
+     * Multiply every player's hearts, rounded and kept within the configured bounds
+     * @return false if an operation is already running
+     */
+    public boolean startScale(double factor, CommandSender sender) {
+        return start("Scale by " + factor, data -> {
+            int hearts = HeartUtils.clampHearts((int) Math.round(data.getHearts() * factor));
+            if (hearts != data.getHearts()) {
+                data.setHearts(hearts);
+            }
+        }, sender);
+    }
+    
+    /**
+     * Lower every player above a maximum to it
+     * @return false if an operation is already running
+     */
+    public boolean startClamp(int maxHearts, CommandSender sender) {
+        return start("Clamp to " + maxHearts, data -> {
+            int hearts = HeartUtils.clampHearts(Math.min(data.getHearts(), maxHearts));
+            if (hearts != data.getHearts()) {
+                data.setHearts(hearts);
+            }
+        }, sender);
+    }
+    
+    private synchronized boolean start(String description, Consumer<PlayerData> change, CommandSender sender) {
+        if (current != null) {
+            return false;
+        }
+        
+        Operation operation = new Operation(description, change, sender);
+        current = operation;
+        plugin.getTaskScheduler().runAsync(operation::run);
+        return true;
+    }
+    
+    /**
+     * Stop the running operation once its current batches are written.
+     * Players already changed keep the change.
+     * @return false if no operation is running
+     */
+    public boolean cancel() {
+        Operation operation = current;
+        if (operation == null) {
+            return false;
+        }
+        operation.cancelled = true;
+        return true;
+    }
+    
+    /**
+     * Cancel any running operation and wait briefly for its batches to be written.
+     * Called on plugin disable before the store is closed.
+     */
+    public void shutdown() {
+        Operation operation = current;
+        if (operation == null) {
+            return;
+        }
+        
+        operation.cancelled = true;
+        try {
+            operation.finished.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * @return Description of the running operation, or null if none is running
+     */
+    public String getStatus() {
+        Operation operation = current;
+        if (operation == null) {
+            return null;
+        }
+        return operation.description + ": " + operation.processed.get() + "/" + operation.total + " records";
+    }
+    
+    private class Operation {
+        
+        private final String description;
+        private final Consumer<PlayerData> change;
+        private final CommandSender sender;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong live = new AtomicLong();
+        
+        private volatile boolean cancelled;
+        private volatile long total;
+        private volatile IOException failure;
+        
+        private Operation(String description, Consumer<PlayerData> change, CommandSender sender) {
+            this.description = description;
+            this.change = change;
+            this.sender = sender;
+        }
+        
+        private void run() {
+            try {
+                process();
+            } catch (IOException | RuntimeException e) {
+                plugin.getLogger().severe(description + " failed: " + e.getMessage());
+                notifySender("§c" + description + " failed after " + processed.get() + " records: " + e.getMessage());
+            } finally {
+                current = null;
+                finished.countDown();
+            }
+        }
+        
+        private void process() throws IOException {
+            ConfigManager config = plugin.getConfigManager();
+            PlayerDataManager dataManager = plugin.getPlayerDataManager();
+            int batchSize = config.getBulkBatchSize();
+            int parallelism = config.getBulkParallelism();
+            long batchIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.getBulkBatchesPerSecond());
+            
+            total = dataManager.getStore().count();
+            notifySender("§e" + description + ": changing " + total + " stored players...");
+            
+            long start = System.nanoTime();
+            long lastProgress = System.currentTimeMillis();
+            
+            // Each worker holds one batch, so at most this many are in memory besides the one being read
+            Semaphore workers = new Semaphore(parallelism);
+            try (PlayerDataScan scan = dataManager.getStore().scan(null)) {
+                while (!cancelled) {
+                    long batchStart = System.nanoTime();
+                    List<PlayerData> batch = scan.next(batchSize);
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    
+                    workers.acquire();
+                    plugin.getTaskScheduler().runAsync(() -> {
+                        try {
+                            apply(dataManager, batch);
+                        } finally {
+                            workers.release();
+                        }
+                    });
+                    
+                    if (System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                        lastProgress = System.currentTimeMillis();
+                        notifySender("§7" + description + " progress: §e" + processed.get() + "/" + total + " §7records");
+                    }
+                    
+                    // Throttle so storage keeps serving the live server
+                    long sleepNanos = batchIntervalNanos - (System.nanoTime() - batchStart);
+                    if (sleepNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            } finally {
+                // The store may close once this returns, let the workers finish first
+                workers.acquireUninterruptibly(parallelism);
+            }
+            
+            if (failure != null) {
+                throw failure;
+            }
+            if (cancelled) {
+                notifySender("§e" + description + " stopped after " + processed.get() + "/" + total
+                    + " records. Those players keep the change.");
+                return;
+            }
+            
+            long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+            notifySender("§a" + description + " finished: processed " + processed.get() + " records ("
+                + live.get() + " in memory) in " + elapsed + "s.");
+        }
+        
+        /**
+         * Change and write one batch, runs on a worker
+         */
+        private void apply(PlayerDataManager dataManager, List<PlayerData> batch) {
+            if (cancelled) {
+                return;
+            }
+            
+            try {
+                for (PlayerData data : dataManager.applyStoredChange(batch, change)) {
+                    applyLive(dataManager, data);
+                }
+                processed.addAndGet(batch.size());
+            } catch (IOException e) {
+                failure = e;
+                cancelled = true;
+            }
+        }
+        
+        private void applyLive(PlayerDataManager dataManager, PlayerData data) {
+            live.incrementAndGet();
+            
+            Player player = plugin.getServer().getPlayer(data.getPlayerId());
+            if (player == null) {
+                dataManager.applyLiveChange(data, change);
+                return;
+            }
+            
+            // A player who leaves first keeps their record cached, so it is changed either way
+            Runnable retired = () -> dataManager.applyLiveChange(data, change);
+            boolean scheduled = plugin.getTaskScheduler().runEntity(player, () -> {
+                dataManager.applyLiveChange(data, change);
+                HeartUtils.updatePlayerMaxHealth(player, data.getHearts());
+            }, retired);
+            if (!scheduled) {
+                retired.run();
+            }
+        }
+        
+        private void notifySender(String message) {
+            plugin.getLogger().info(message.replaceAll("§.", ""));
+            
+            String prefixed = plugin.getConfigManager().getPrefix() + message;
+            if (sender instanceof Player player) {
+                plugin.getTaskScheduler().runEntity(player, () -> player.sendMessage(prefixed));
+            } else if (!(sender instanceof org.bukkit.command.ConsoleCommandSender)) {
+                plugin.getTaskScheduler().runGlobal(() -> sender.sendMessage(prefixed));
+            }
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.squeakybagco.lifesteal.managers;
 
 import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.messages.MessageTemplate;
+import org.bukkit.World;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 public class ConfigManager {
@@ -15,12 +20,17 @@ public class ConfigManager {
     private FileConfiguration messages;
     private File messagesFile;
     
+    // Replaced as a whole on reload, never modified
+    private volatile ConfigSnapshot snapshot;
+    // Replaced on reload and on world load, always under this object's lock so neither drops the other
+    private volatile ConfigSnapshot.EnabledWorlds enabledWorlds;
+    
     public ConfigManager(LifestealPlugin plugin) {
         this.plugin = plugin;
         loadConfigs();
     }
     
-    public void loadConfigs() {
+    public synchronized void loadConfigs() {
         // Save default config if it doesn't exist
         plugin.saveDefaultConfig();
         plugin.reloadConfig();
@@ -32,6 +42,30 @@ public class ConfigManager {
             plugin.saveResource("messages.yml", false);
         }
         this.messages = YamlConfiguration.loadConfiguration(messagesFile);
+        
+        // Keys added in newer versions fall back to the bundled messages.yml
+        InputStream bundled = plugin.getResource("messages.yml");
+        if (bundled != null) {
+            messages.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(bundled, StandardCharsets.UTF_8)));
+        }
+        
+        this.snapshot = ConfigSnapshot.compile(config, messages);
+        this.enabledWorlds = ConfigSnapshot.EnabledWorlds.resolve(snapshot.enabledWorldNames(), plugin.getServer().getWorlds());
+    }
+    
+    /**
+     * Resolve enabled world names again after a world was loaded
+     */
+    public synchronized void refreshWorlds() {
+        enabledWorlds = ConfigSnapshot.EnabledWorlds.resolve(snapshot.enabledWorldNames(), plugin.getServer().getWorlds());
+    }
+    
+    /**
+     * @return The current compiled configuration. Read it once per operation
+     *         when several values must come from the same load.
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
     }
     
     public void reloadConfigs() {
@@ -42,6 +76,12 @@ public class ConfigManager {
         if (isCustomCraftingEnabled()) {
             newHeartManager.registerRecipes();
         }
+        if (plugin.getAuditLog() != null) {
+            plugin.getAuditLog().setEnabled(isAuditEnabled());
+        }
+        if (plugin.getPlayerNameManager() != null) {
+            plugin.getPlayerNameManager().setMaxNames(getCompletionMaxNames());
+        }
     }
     
     public void saveMessages() {
@@ -54,125 +94,231 @@ public class ConfigManager {
     
     // Config getters
     public int getDefaultHearts() {
-        return config.getInt("hearts.default", 20);
+        return snapshot.defaultHearts();
     }
     
     public int getMaxHearts() {
-        return config.getInt("hearts.max", 40);
+        return snapshot.maxHearts();
     }
     
     public int getMinHearts() {
-        return config.getInt("hearts.min", 2);
+        return snapshot.minHearts();
     }
     
     public int getHeartsPerKill() {
-        return config.getInt("hearts.per-kill", 2);
+        return snapshot.heartsPerKill();
     }
     
-    public boolean isLifestealEnabledInWorld(String worldName) {
-        List<String> enabledWorlds = config.getStringList("enabled-worlds");
-        return enabledWorlds.isEmpty() || enabledWorlds.contains(worldName);
+    public boolean isLifestealEnabledInWorld(World world) {
+        return enabledWorlds.contains(world);
     }
     
     public boolean isEliminationEnabled() {
-        return config.getBoolean("elimination.enabled", true);
+        return snapshot.eliminationEnabled();
     }
     
     public boolean isBanOnElimination() {
-        return config.getBoolean("elimination.ban-player", false);
+        return snapshot.banOnElimination();
     }
     
     public List<String> getEliminationCommands() {
-        return config.getStringList("elimination.commands");
+        return snapshot.eliminationCommands();
     }
     
     public boolean isWithdrawEnabled() {
-        return config.getBoolean("heart-items.withdraw-enabled", true);
+        return snapshot.withdrawEnabled();
     }
     
     public int getWithdrawCooldown() {
-        return config.getInt("heart-items.withdraw-cooldown", 300); // 5 minutes
+        return snapshot.withdrawCooldown();
+    }
+    
+    public int getConsumeCooldown() {
+        return snapshot.consumeCooldown();
+    }
+    
+    public boolean isNotifyCooldownEnd() {
+        return snapshot.notifyCooldownEnd();
     }
     
     public boolean isHeartItemsEnabled() {
-        return config.getBoolean("heart-items.enabled", true);
+        return snapshot.heartItemsEnabled();
     }
     
     // Custom Heart Item Configuration
     public String getHeartItemMaterial() {
-        return config.getString("heart-items.custom.base-material", "PAPER");
+        return snapshot.heartItemMaterial();
     }
     
     public String getHeartItemName() {
-        return translateColorCodes(config.getString("heart-items.custom.name", "&c❤ &lLifesteal Heart &c❤"));
+        return snapshot.heartItemName();
     }
     
     public List<String> getHeartItemLore() {
-        List<String> lore = config.getStringList("heart-items.custom.lore");
-        if (lore.isEmpty()) {
-            lore.add("&7Right-click to consume");
-            lore.add("&7and gain &c{hearts} &7heart(s)");
-            lore.add("");
-            lore.add("&6⚠ &eThis item is precious! &6⚠");
-            lore.add("&8Custom Lifesteal Heart");
-        }
-        
-        // Translate color codes
-        for (int i = 0; i < lore.size(); i++) {
-            lore.set(i, translateColorCodes(lore.get(i)));
-        }
-        
-        return lore;
+        return snapshot.heartItemLore();
     }
     
     public int getHeartItemModelData() {
-        return config.getInt("heart-items.custom.custom-model-data", 0);
+        return snapshot.heartItemModelData();
     }
     
     public boolean isHeartItemGlowEnabled() {
-        return config.getBoolean("heart-items.custom.glow-effect", true);
+        return snapshot.heartItemGlowEnabled();
     }
     
     public boolean isCustomCraftingEnabled() {
-        return config.getBoolean("heart-items.custom.crafting-enabled", true);
+        return snapshot.customCraftingEnabled();
     }
     
     public String[] getCraftingPattern() {
-        List<String> pattern = config.getStringList("heart-items.custom.crafting-pattern");
-        if (pattern.size() != 3) {
-            // Default pattern
-            return new String[]{"GDG", "DHD", "GDG"};
-        }
-        return pattern.toArray(new String[0]);
+        return snapshot.craftingPattern().toArray(new String[0]);
     }
     
-    // Message getters with color code translation
-    public String getMessage(String key) {
-        String message = messages.getString("messages." + key, "&cMessage not found: " + key);
-        return translateColorCodes(message);
+    // Storage settings
+    public String getStorageType() {
+        return snapshot.storageType();
     }
     
-    public String getMessage(String key, String defaultMessage) {
-        String message = messages.getString("messages." + key, defaultMessage);
-        return translateColorCodes(message);
+    public int getDatabasePoolSize() {
+        return snapshot.databasePoolSize();
     }
     
-    public String getPrefix() {
-        return translateColorCodes(messages.getString("prefix", "&8[&cLifesteal&8] &r"));
+    public String getSqliteFile() {
+        return snapshot.sqliteFile();
+    }
+    
+    public String getMysqlHost() {
+        return snapshot.mysqlHost();
+    }
+    
+    public int getMysqlPort() {
+        return snapshot.mysqlPort();
+    }
+    
+    public String getMysqlDatabase() {
+        return snapshot.mysqlDatabase();
+    }
+    
+    public String getMysqlUsername() {
+        return snapshot.mysqlUsername();
+    }
+    
+    public String getMysqlPassword() {
+        return snapshot.mysqlPassword().value();
+    }
+    
+    public int getWriteQueueCapacity() {
+        return snapshot.writeQueueCapacity();
+    }
+    
+    public int getWriteBatchSize() {
+        return snapshot.writeBatchSize();
+    }
+    
+    public int getShutdownFlushTimeout() {
+        return snapshot.shutdownFlushTimeout();
+    }
+    
+    public boolean isJournalEnabled() {
+        return snapshot.journalEnabled();
+    }
+    
+    public long getJournalCommitInterval() {
+        return snapshot.journalCommitInterval();
     }
     
-    private String translateColorCodes(String message) {
-        return message.replace('&', '§');
+    public int getOfflineCacheSize() {
+        return snapshot.offlineCacheSize();
+    }
+    
+    public int getOfflineCacheExpiry() {
+        return snapshot.offlineCacheExpiry();
+    }
+    
+    public int getMigrationBatchSize() {
+        return snapshot.migrationBatchSize();
+    }
+    
+    public int getMigrationBatchesPerSecond() {
+        return snapshot.migrationBatchesPerSecond();
+    }
+    
+    public int getBulkBatchSize() {
+        return snapshot.bulkBatchSize();
+    }
+    
+    public int getBulkBatchesPerSecond() {
+        return snapshot.bulkBatchesPerSecond();
+    }
+    
+    public int getBulkParallelism() {
+        return snapshot.bulkParallelism();
+    }
+    
+    public int getAutosaveInterval() {
+        return snapshot.autosaveInterval();
+    }
+    
+    public int getAutosaveBatchSize() {
+        return snapshot.autosaveBatchSize();
+    }
+    
+    public int getMetricsExportInterval() {
+        return snapshot.metricsExportInterval();
+    }
+    
+    public boolean isAuditEnabled() {
+        return snapshot.auditEnabled();
+    }
+    
+    public int getAuditQueueCapacity() {
+        return snapshot.auditQueueCapacity();
+    }
+    
+    public int getAuditMaxFileSize() {
+        return snapshot.auditMaxFileSize();
+    }
+    
+    public int getAuditRetentionDays() {
+        return snapshot.auditRetentionDays();
+    }
+    
+    public int getCompletionMaxNames() {
+        return snapshot.completionMaxNames();
+    }
+    
+    public int getCompletionMaxResults() {
+        return snapshot.completionMaxResults();
+    }
+    
+    public int getCommandTimeout() {
+        return snapshot.commandTimeout();
+    }
+    
+    public int getCommandMaxInFlight() {
+        return snapshot.commandMaxInFlight();
+    }
+    
+    // Message getters, parsed when the config was compiled
+    public MessageTemplate getMessage(String key) {
+        return snapshot.messages().get(key);
+    }
+    
+    /**
+     * @return The prefix as a § formatted string, for messages built in code
+     */
+    public String getPrefix() {
+        return snapshot.messages().getLegacyPrefix();
     }
     
     // Utility methods
     public boolean isDebugEnabled() {
-        return config.getBoolean("debug", false);
+        return snapshot.debugEnabled();
     }
     
     public void debug(String message) {
-        if (isDebugEnabled()) {
+        if (snapshot.debugEnabled()) {
             plugin.getLogger().info("[DEBUG] " + message);
         }
     }
-}
\ No newline at end of file
+}
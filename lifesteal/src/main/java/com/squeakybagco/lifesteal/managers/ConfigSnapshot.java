@@ -0,0 +1,221 @@
+package com.squeakybagco.lifesteal.managers;
+
+import com.squeakybagco.lifesteal.messages.Messages;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable, fully parsed view of config.yml and messages.yml.
+ * Compiled once per load or reload and published through a single volatile
+ * reference, so hot paths read final fields instead of walking the Bukkit
+ * configuration tree, and nothing is allocated or re-translated per call.
+ */
+public record ConfigSnapshot(
+    // Hearts
+    int defaultHearts,
+    int maxHearts,
+    int minHearts,
+    int heartsPerKill,
+    
+    // Worlds, an empty name list enables every world. Resolved to UUIDs by ConfigManager.
+    Set<String> enabledWorldNames,
+    
+    // Elimination
+    boolean eliminationEnabled,
+    boolean banOnElimination,
+    List<String> eliminationCommands,
+    
+    // Heart items
+    boolean withdrawEnabled,
+    int withdrawCooldown,
+    int consumeCooldown,
+    boolean notifyCooldownEnd,
+    boolean heartItemsEnabled,
+    String heartItemMaterial,
+    String heartItemName,
+    List<String> heartItemLore,
+    int heartItemModelData,
+    boolean heartItemGlowEnabled,
+    boolean customCraftingEnabled,
+    List<String> craftingPattern,
+    
+    // Storage
+    String storageType,
+    int databasePoolSize,
+    String sqliteFile,
+    String mysqlHost,
+    int mysqlPort,
+    String mysqlDatabase,
+    String mysqlUsername,
+    Secret mysqlPassword,
+    int writeQueueCapacity,
+    int writeBatchSize,
+    int shutdownFlushTimeout,
+    boolean journalEnabled,
+    long journalCommitInterval,
+    int offlineCacheSize,
+    int offlineCacheExpiry,
+    int migrationBatchSize,
+    int migrationBatchesPerSecond,
+    int bulkBatchSize,
+    int bulkBatchesPerSecond,
+    int bulkParallelism,
+    int autosaveInterval,
+    int autosaveBatchSize,
+    
+    // Metrics
+    int metricsExportInterval,
+    
+    // Audit log
+    boolean auditEnabled,
+    int auditQueueCapacity,
+    int auditMaxFileSize,
+    int auditRetentionDays,
+    
+    // Tab completion
+    int completionMaxNames,
+    int completionMaxResults,
+    
+    // Commands
+    int commandTimeout,
+    int commandMaxInFlight,
+    
+    // Messages, parsed into templates
+    Messages messages,
+    
+    boolean debugEnabled
+) {
+    
+    private static final List<String> DEFAULT_LORE = List.of(
+        "&7Right-click to consume",
+        "&7and gain &c{hearts} &7heart(s)",
+        "",
+        "&6⚠ &eThis item is precious! &6⚠",
+        "&8Custom Lifesteal Heart"
+    );
+    
+    private static final List<String> DEFAULT_CRAFTING_PATTERN = List.of("GDG", "DHD", "GDG");
+    
+    /**
+     * Parse both configuration files into a snapshot
+     */
+    public static ConfigSnapshot compile(FileConfiguration config, FileConfiguration messages) {
+        List<String> lore = config.getStringList("heart-items.custom.lore");
+        if (lore.isEmpty()) {
+            lore = DEFAULT_LORE;
+        }
+        
+        List<String> pattern = config.getStringList("heart-items.custom.crafting-pattern");
+        if (pattern.size() != 3) {
+            pattern = DEFAULT_CRAFTING_PATTERN;
+        }
+        
+        return new ConfigSnapshot(
+            config.getInt("hearts.default", 20),
+            config.getInt("hearts.max", 40),
+            config.getInt("hearts.min", 2),
+            config.getInt("hearts.per-kill", 2),
+            
+            Set.copyOf(config.getStringList("enabled-worlds")),
+            
+            config.getBoolean("elimination.enabled", true),
+            config.getBoolean("elimination.ban-player", false),
+            List.copyOf(config.getStringList("elimination.commands")),
+            
+            config.getBoolean("heart-items.withdraw-enabled", true),
+            config.getInt("heart-items.withdraw-cooldown", 300), // 5 minutes
+            config.getInt("heart-items.consume-cooldown", 0),
+            config.getBoolean("heart-items.notify-cooldown-end", true),
+            config.getBoolean("heart-items.enabled", true),
+            config.getString("heart-items.custom.base-material", "PAPER"),
+            translateColorCodes(config.getString("heart-items.custom.name", "&c❤ &lLifesteal Heart &c❤")),
+            lore.stream().map(ConfigSnapshot::translateColorCodes).toList(),
+            config.getInt("heart-items.custom.custom-model-data", 0),
+            config.getBoolean("heart-items.custom.glow-effect", true),
+            config.getBoolean("heart-items.custom.crafting-enabled", true),
+            List.copyOf(pattern),
+            
+            config.getString("database.type", "file"),
+            Math.max(1, config.getInt("database.pool-size", 4)),
+            config.getString("database.sqlite.file", "playerdata.db"),
+            config.getString("database.mysql.host", "localhost"),
+            config.getInt("database.mysql.port", 3306),
+            config.getString("database.mysql.database", "lifesteal"),
+            config.getString("database.mysql.username", "root"),
+            new Secret(config.getString("database.mysql.password", "")),
+            config.getInt("database.write-queue.capacity", 1024),
+            config.getInt("database.write-queue.batch-size", 64),
+            config.getInt("database.write-queue.shutdown-timeout", 10),
+            config.getBoolean("database.journal.enabled", true),
+            config.getLong("database.journal.commit-interval-ms", 5),
+            config.getInt("database.offline-cache.max-size", 1000),
+            config.getInt("database.offline-cache.expire-after", 600),
+            Math.max(1, config.getInt("database.migration.batch-size", 500)),
+            config.getInt("database.migration.batches-per-second", 20),
+            Math.max(1, config.getInt("database.bulk.batch-size", 500)),
+            config.getInt("database.bulk.batches-per-second", 10),
+            Math.max(1, config.getInt("database.bulk.parallelism", 2)),
+            config.getInt("database.autosave.interval", 300), // 5 minutes
+            config.getInt("database.autosave.batch-size", 50),
+            
+            config.getInt("metrics.export-interval", 60),
+            
+            config.getBoolean("audit.enabled", true),
+            Math.max(2, config.getInt("audit.queue-capacity", 8192)),
+            Math.max(1, config.getInt("audit.max-file-size-mb", 16)),
+            config.getInt("audit.retention-days", 30),
+            
+            Math.max(0, config.getInt("tab-completion.max-names", 10000)),
+            Math.max(1, config.getInt("tab-completion.max-results", 100)),
+            
+            Math.max(1, config.getInt("commands.timeout", 10)),
+            Math.max(1, config.getInt("commands.max-in-flight", 3)),
+            
+            Messages.compile(messages),
+            
+            config.getBoolean("debug", false)
+        );
+    }
+    
+    private static String translateColorCodes(String message) {
+        return message.replace('&', '§');
+    }
+    
+    /**
+     * Credential kept out of the generated toString, so logging a snapshot never prints it
+     */
+    public record Secret(String value) {
+        
+        @Override
+        public String toString() {
+            return "****";
+        }
+    }
+    
+    /**
+     * Enabled world names resolved against the worlds loaded at one point in time.
+     * Kept apart from the snapshot so a world load only replaces this.
+     */
+    public record EnabledWorlds(boolean all, Set<UUID> ids) {
+        
+        public static EnabledWorlds resolve(Set<String> names, Collection<World> worlds) {
+            Set<UUID> ids = new HashSet<>();
+            for (World world : worlds) {
+                if (names.contains(world.getName())) {
+                    ids.add(world.getUID());
+                }
+            }
+            return new EnabledWorlds(names.isEmpty(), Set.copyOf(ids));
+        }
+        
+        public boolean contains(World world) {
+            return all || ids.contains(world.getUID());
+        }
+    }
+}
@@ -1,48 +1,69 @@
 package com.squeakybagco.lifesteal.managers;
 
 import com.squeakybagco.lifesteal.LifestealPlugin;
-import net.kyori.adventure.text.TextComponent;
+import com.squeakybagco.lifesteal.metrics.Histogram;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.ShapedRecipe;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 public class CustomHeartManager {
     
     private final LifestealPlugin plugin;
-    private final NamespacedKey heartItemKey;
     private final NamespacedKey recipeKey;
+    private final Material baseMaterial;
+    private final HeartItemFormat format;
+    private final HeartItemPrototypes prototypes;
+    private final Histogram createTime;
     
     public CustomHeartManager(LifestealPlugin plugin) {
         this.plugin = plugin;
-        this.heartItemKey = new NamespacedKey(plugin, "lifesteal_heart");
         this.recipeKey = new NamespacedKey(plugin, "lifesteal_heart_recipe");
+        this.baseMaterial = resolveMaterial(plugin.getConfigManager().getHeartItemMaterial());
+        this.format = new HeartItemFormat(
+            new NamespacedKey(plugin, "lifesteal_heart"),
+            new NamespacedKey(plugin, "heart_value"),
+            loadHeartMaterials()
+        );
+        this.prototypes = new HeartItemPrototypes(
+            this::buildHeartItem,
+            plugin.getMetrics().counter("item_prototype_hits", "Heart items cloned from a cached prototype"),
+            plugin.getMetrics().counter("item_prototype_misses", "Heart item prototypes built")
+        );
+        this.createTime = plugin.getMetrics().histogram("item_create", "Time to create heart items for one request");
     }
     
     public void registerRecipes() {
             // Run on main server thread to avoid concurrency issues
-            plugin.scheduleGlobalTask(() -> {
+            plugin.getTaskScheduler().runGlobal(() -> {
             // Remove existing recipe if it exists
             plugin.getServer().removeRecipe(recipeKey);
-
+            
             // Create the heart item
             ItemStack heartItem = createCustomHeartItem();
-
+            
             // Create shaped recipe
             ShapedRecipe recipe = new ShapedRecipe(recipeKey, heartItem);
-
+            
             // Define the crafting pattern (configurable in config.yml)
             String[] pattern = plugin.getConfigManager().getCraftingPattern();
             recipe.shape(pattern[0], pattern[1], pattern[2]);
-
+            
             // Set the ingredients
             recipe.setIngredient('R', Material.REDSTONE_BLOCK);
             recipe.setIngredient('E', Material.ENCHANTED_GOLDEN_APPLE);
-
+            
             // Register the recipe
             plugin.getServer().addRecipe(recipe);
             plugin.getLogger().info("Registered custom heart crafting recipe!");
@@ -54,32 +75,74 @@ public class CustomHeartManager {
      * This makes it unique and different from normal items
      */
     public ItemStack createCustomHeartItem() {
-        // Use configurable base material (default: paper for flexibility)
-        Material baseMaterial = Material.valueOf(plugin.getConfigManager().getHeartItemMaterial());
+        return createHeartItem(HeartItemFormat.DEFAULT_VALUE);
+    }
+    
+    /**
+     * Check if an ItemStack is our custom heart item.
+     * Callers that also need the value should use {@link #getHeartValue(ItemStack)} alone.
+     */
+    public boolean isCustomHeartItem(ItemStack item) {
+        return getHeartValue(item) > 0;
+    }
+    
+    /**
+     * Get the heart value from a custom heart item with a single meta read
+     * @return The heart value, or 0 if the item is not a heart item
+     */
+    public int getHeartValue(ItemStack item) {
+        return format.getHeartValue(item);
+    }
+    
+    /**
+     * Create a heart item with specific value
+     */
+    public ItemStack createHeartItem(int heartValue) {
+        long start = System.nanoTime();
+        ItemStack heart = prototypes.create(heartValue);
+        createTime.recordSince(start);
+        return heart;
+    }
+    
+    /**
+     * Put heart items into an inventory as full stacks, in one insert.
+     * Must run on the thread that owns the inventory.
+     * @return Number of items that did not fit
+     */
+    public int giveHeartItems(Inventory inventory, int heartValue, int amount) {
+        long start = System.nanoTime();
+        ItemStack[] stacks = prototypes.createStacks(heartValue, amount);
+        createTime.recordSince(start);
+        
+        int leftover = 0;
+        for (ItemStack rest : inventory.addItem(stacks).values()) {
+            leftover += rest.getAmount();
+        }
+        return leftover;
+    }
+    
+    /**
+     * Build the prototype for a heart value, see {@link HeartItemPrototypes}
+     */
+    private ItemStack buildHeartItem(int heartValue) {
+        ConfigSnapshot config = plugin.getConfigManager().getSnapshot();
         ItemStack heart = new ItemStack(baseMaterial, 1);
         
         ItemMeta meta = heart.getItemMeta();
         if (meta == null) return heart;
         
-        // Set custom name with configurable colors
-        String heartName = plugin.getConfigManager().getHeartItemName();
-        // Use Adventure API for display name to avoid deprecation
-        meta.displayName(net.kyori.adventure.text.Component.text(heartName));
-        
-        // Set custom lore
-        List<String> lore = plugin.getConfigManager().getHeartItemLore();
-        List<TextComponent> adventureLore = lore.stream()
-            .map(net.kyori.adventure.text.Component::text)
-            .toList();
-        meta.lore(adventureLore);
+        // Name and lore are § formatted in the config snapshot
+        meta.displayName(LegacyComponentSerializer.legacySection().deserialize(config.heartItemName()));
+        String hearts = String.valueOf(heartValue / 2.0);
+        meta.lore(config.heartItemLore().stream()
+            .map(line -> LegacyComponentSerializer.legacySection().deserialize(line.replace("{hearts}", hearts)))
+            .toList());
         
         // Add custom NBT data to make it unique
-        meta.getPersistentDataContainer().set(heartItemKey, PersistentDataType.STRING, "lifesteal_heart");
-        meta.getPersistentDataContainer().set(new NamespacedKey(plugin, "heart_value"), PersistentDataType.INTEGER, 2);
-        meta.getPersistentDataContainer().set(new NamespacedKey(plugin, "creation_time"), PersistentDataType.LONG, System.currentTimeMillis());
+        format.mark(meta, heartValue);
         
         // Set custom model data for resource pack support
-        int customModelData = plugin.getConfigManager().getHeartItemModelData();
+        int customModelData = config.heartItemModelData();
         if (customModelData > 0) {
             meta.setCustomModelData(customModelData);
         }
@@ -90,7 +153,7 @@ public class CustomHeartManager {
         meta.addItemFlags(org.bukkit.inventory.ItemFlag.HIDE_UNBREAKABLE);
         
         // Apply enchantment glow if enabled
-        if (plugin.getConfigManager().isHeartItemGlowEnabled()) {
+        if (config.heartItemGlowEnabled()) {
             meta.addEnchant(org.bukkit.enchantments.Enchantment.UNBREAKING, 1, true);
             meta.addItemFlags(org.bukkit.inventory.ItemFlag.HIDE_ENCHANTS);
         }
@@ -100,71 +163,40 @@ public class CustomHeartManager {
     }
     
     /**
-     * Check if an ItemStack is our custom heart item
+     * Remember the configured material in heart-materials.yml, so heart items
+     * already in inventories keep working after base-material is changed
      */
-    public boolean isCustomHeartItem(ItemStack item) {
-        if (item == null || !item.hasItemMeta()) {
-            return false;
-        }
-        
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) {
-            return false;
-        }
+    private Set<Material> loadHeartMaterials() {
+        File file = new File(plugin.getDataFolder(), "heart-materials.yml");
+        YamlConfiguration stored = YamlConfiguration.loadConfiguration(file);
+        List<String> names = stored.getStringList("materials");
         
-        // Check for our custom NBT data
-        return meta.getPersistentDataContainer().has(heartItemKey, PersistentDataType.STRING) &&
-               "lifesteal_heart".equals(meta.getPersistentDataContainer().get(heartItemKey, PersistentDataType.STRING));
-    }
-    
-    /**
-     * Get the heart value from a custom heart item
-     */
-    public int getHeartValue(ItemStack item) {
-        if (!isCustomHeartItem(item)) {
-            return 0;
+        Set<Material> materials = EnumSet.of(baseMaterial);
+        for (String name : names) {
+            Material material = Material.matchMaterial(name);
+            if (material != null) {
+                materials.add(material);
+            }
         }
         
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null) {
-            return 0;
+        if (!names.contains(baseMaterial.name())) {
+            stored.set("materials", materials.stream().map(Material::name).toList());
+            try {
+                stored.save(file);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not save heart-materials.yml: " + e.getMessage());
+            }
         }
-        
-        NamespacedKey valueKey = new NamespacedKey(plugin, "heart_value");
-        return meta.getPersistentDataContainer().getOrDefault(valueKey, PersistentDataType.INTEGER, 2);
+        return materials;
     }
     
-    /**
-     * Create a heart item with specific value
-     */
-    public ItemStack createHeartItem(int heartValue) {
-        ItemStack heart = createCustomHeartItem();
-        ItemMeta meta = heart.getItemMeta();
-        
-        if (meta != null) {
-            // Update the heart value in NBT
-            NamespacedKey valueKey = new NamespacedKey(plugin, "heart_value");
-            meta.getPersistentDataContainer().set(valueKey, PersistentDataType.INTEGER, heartValue);
-            
-            // Update lore to reflect the value
-            List<net.kyori.adventure.text.Component> lore = meta.lore();
-            if (lore != null && !lore.isEmpty()) {
-                // Replace heart value in lore
-                for (int i = 0; i < lore.size(); i++) {
-                    net.kyori.adventure.text.Component line = lore.get(i);
-                    String plain = net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer.plainText().serialize(line);
-                    if (plain.contains("{hearts}")) {
-                        String replaced = plain.replace("{hearts}", String.valueOf(heartValue / 2.0));
-                        lore.set(i, net.kyori.adventure.text.Component.text(replaced));
-                    }
-                }
-                meta.lore(lore);
-            }
-            
-            heart.setItemMeta(meta);
+    private Material resolveMaterial(String name) {
+        Material material = Material.matchMaterial(name);
+        if (material == null || !material.isItem()) {
+            plugin.getLogger().warning("Unknown heart item material " + name + ", using PAPER");
+            return Material.PAPER;
         }
-        
-        return heart;
+        return material;
     }
     
     /**
@@ -0,0 +1,66 @@
+package com.squeakybagco.lifesteal.managers;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * How heart items are marked and recognised: the materials they can be made
+ * of and two persistent data keys. Holds no plugin or server state, so the
+ * check can be benchmarked against stub items.
+ */
+public class HeartItemFormat {
+    
+    public static final String MARKER = "lifesteal_heart";
+    public static final int DEFAULT_VALUE = 2;
+    
+    private final NamespacedKey markerKey;
+    private final NamespacedKey valueKey;
+    private final Set<Material> materials;
+    
+    /**
+     * @param materials Materials heart items may be made of, the configured one and any used before
+     */
+    public HeartItemFormat(NamespacedKey markerKey, NamespacedKey valueKey, Set<Material> materials) {
+        this.markerKey = markerKey;
+        this.valueKey = valueKey;
+        this.materials = EnumSet.copyOf(materials);
+    }
+    
+    /**
+     * Get the heart value of an item with a single meta read.
+     * The material is compared first, since reading the meta copies it.
+     * @return The heart value, or 0 if the item is not a heart item
+     */
+    public int getHeartValue(ItemStack item) {
+        if (item == null || !materials.contains(item.getType()) || !item.hasItemMeta()) {
+            return 0;
+        }
+        
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null) {
+            return 0;
+        }
+        
+        PersistentDataContainer data = meta.getPersistentDataContainer();
+        if (!MARKER.equals(data.get(markerKey, PersistentDataType.STRING))) {
+            return 0;
+        }
+        return data.getOrDefault(valueKey, PersistentDataType.INTEGER, DEFAULT_VALUE);
+    }
+    
+    /**
+     * Mark an item's meta as a heart of the given value.
+     * Items of the same value stay stackable.
+     */
+    public void mark(ItemMeta meta, int heartValue) {
+        meta.getPersistentDataContainer().set(markerKey, PersistentDataType.STRING, MARKER);
+        meta.getPersistentDataContainer().set(valueKey, PersistentDataType.INTEGER, heartValue);
+    }
+}
@@ -0,0 +1,64 @@
+package com.squeakybagco.lifesteal.managers;
+
+import com.squeakybagco.lifesteal.metrics.Counter;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Heart items cloned from one shared prototype per heart value, built on
+ * first use. Prototypes are never handed out directly. A config reload
+ * replaces the owning manager and with it every prototype.
+ */
+public class HeartItemPrototypes {
+    
+    // Heart value to prototype item
+    private final Map<Integer, ItemStack> prototypes = new ConcurrentHashMap<>();
+    private final IntFunction<ItemStack> builder;
+    private final Counter hits;
+    private final Counter misses;
+    
+    /**
+     * @param builder Builds the prototype for a heart value
+     */
+    public HeartItemPrototypes(IntFunction<ItemStack> builder, Counter hits, Counter misses) {
+        this.builder = builder;
+        this.hits = hits;
+        this.misses = misses;
+    }
+    
+    /**
+     * @return A new heart item of the given value
+     */
+    public ItemStack create(int heartValue) {
+        return getPrototype(heartValue).clone();
+    }
+    
+    /**
+     * @return Heart items of the given value as full stacks, the last one holding the rest
+     */
+    public ItemStack[] createStacks(int heartValue, int amount) {
+        ItemStack prototype = getPrototype(heartValue);
+        int stackSize = Math.max(1, prototype.getMaxStackSize());
+        
+        ItemStack[] stacks = new ItemStack[(amount + stackSize - 1) / stackSize];
+        for (int i = 0; i < stacks.length; i++) {
+            stacks[i] = prototype.clone();
+            stacks[i].setAmount(Math.min(stackSize, amount - i * stackSize));
+        }
+        return stacks;
+    }
+    
+    private ItemStack getPrototype(int heartValue) {
+        ItemStack prototype = prototypes.get(heartValue);
+        if (prototype != null) {
+            hits.increment();
+            return prototype;
+        }
+        
+        misses.increment();
+        return prototypes.computeIfAbsent(heartValue, builder::apply);
+    }
+}
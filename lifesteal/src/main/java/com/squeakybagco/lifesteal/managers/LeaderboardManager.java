@@ -0,0 +1,192 @@
+package com.squeakybagco.lifesteal.managers;
+
+import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.leaderboard.Leaderboard;
+import com.squeakybagco.lifesteal.storage.PlayerData;
+import com.squeakybagco.lifesteal.storage.PlayerDataIndexer;
+import com.squeakybagco.lifesteal.storage.PlayerDataScan;
+import com.squeakybagco.lifesteal.storage.YamlPlayerDataStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the leaderboard index current and persisted.
+ * With the per-file store the index is seeded from a parallel scan of the
+ * playerdata folder; other stores read a snapshot and only rebuild from
+ * storage when no usable snapshot exists. Every record change made through
+ * {@link PlayerDataManager} re-ranks that player: the changing thread only
+ * marks the record, and a single async drain re-ranks marked players from
+ * their current values, so region threads never wait on the ranking lock.
+ */
+public class LeaderboardManager {
+    
+    private static final String SNAPSHOT_FILE = "leaderboard.dat";
+    private static final String PLAYER_INDEX_FILE = "playerdata-index.dat";
+    private static final int REBUILD_BATCH_SIZE = 500;
+    
+    private final LifestealPlugin plugin;
+    private final Leaderboard leaderboard;
+    private final File snapshotFile;
+    private volatile boolean indexedFromFiles;
+    
+    // Records changed since the last drain, the latest object seen per player
+    private final Map<UUID, PlayerData> changed = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    
+    public LeaderboardManager(LifestealPlugin plugin) {
+        this.plugin = plugin;
+        this.leaderboard = new Leaderboard();
+        this.snapshotFile = new File(plugin.getDataFolder(), SNAPSHOT_FILE);
+    }
+    
+    /**
+     * Fill the index in the background. Call once player data storage is open;
+     * changes made before then are kept over anything read here.
+     */
+    public void start() {
+        if (plugin.getPlayerDataManager().getStore() instanceof YamlPlayerDataStore) {
+            indexedFromFiles = true;
+            plugin.getTaskScheduler().runAsync(this::indexPlayerFiles);
+        } else {
+            plugin.getTaskScheduler().runAsync(() -> {
+                if (!loadSnapshot()) {
+                    rebuild();
+                }
+            });
+        }
+    }
+    
+    private void indexPlayerFiles() {
+        PlayerDataIndexer indexer = new PlayerDataIndexer(
+            new File(plugin.getDataFolder(), "playerdata"),
+            new File(plugin.getDataFolder(), PLAYER_INDEX_FILE),
+            plugin.getLogger()
+        );
+        PlayerDataIndexer.Result result = indexer.index(plugin.getConfigManager().getDefaultHearts());
+        
+        for (PlayerDataIndexer.Entry entry : result.entries()) {
+            leaderboard.seed(entry.playerId(), entry.hearts(), entry.kills(), entry.deaths());
+        }
+        
+        // A warm start only parses files changed since the last snapshot
+        plugin.getLogger().info("Indexed " + result.entries().size() + " player files in " + result.elapsedMillis() + "ms ("
+            + (result.parsed() == result.entries().size() ? "cold" : "warm") + ", " + result.parsed() + " parsed, "
+            + result.getTotalHearts() + " half-hearts in circulation)");
+    }
+    
+    private boolean loadSnapshot() {
+        if (!snapshotFile.exists()) {
+            return false;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            int players = leaderboard.readSnapshot(snapshotFile);
+            plugin.getLogger().info("Loaded leaderboard snapshot with " + players + " players in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not read leaderboard snapshot, rebuilding from storage: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void rebuild() {
+        PlayerDataManager dataManager = plugin.getPlayerDataManager();
+        long start = System.nanoTime();
+        int seeded = 0;
+        
+        try (PlayerDataScan scan = dataManager.getStore().scan(null)) {
+            List<PlayerData> batch;
+            while (!(batch = scan.next(REBUILD_BATCH_SIZE)).isEmpty()) {
+                for (PlayerData data : batch) {
+                    // Live updates made during the scan win over the stored record
+                    if (leaderboard.seed(data.getPlayerId(), data.getHearts(), data.getKills(), data.getDeaths())) {
+                        seeded++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not rebuild leaderboard from storage: " + e.getMessage());
+            return;
+        }
+        
+        plugin.getLogger().info("Rebuilt leaderboard from storage with " + seeded + " players in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        saveSnapshot();
+    }
+    
+    /**
+     * Re-rank a player after their record changed. Only marks them, safe and
+     * cheap on any thread; ranks catch up once the drain has run.
+     */
+    public void update(PlayerData data) {
+        changed.put(data.getPlayerId(), data);
+        if (!drainScheduled.get() && drainScheduled.compareAndSet(false, true)) {
+            plugin.getTaskScheduler().runAsync(this::drain);
+        }
+    }
+    
+    /**
+     * Re-rank every marked player from the values their record holds now.
+     * Synchronized so the drain stays a single consumer when a snapshot save runs it too.
+     */
+    private synchronized void drain() {
+        // Cleared first, a change marked from here on schedules another drain
+        drainScheduled.set(false);
+        for (UUID playerId : changed.keySet()) {
+            PlayerData data = changed.remove(playerId);
+            if (data != null) {
+                leaderboard.update(playerId, data.getHearts(), data.getKills(), data.getDeaths());
+            }
+        }
+    }
+    
+    /**
+     * @return One-based rank of the player, or -1 if they are not ranked
+     */
+    public int getRank(Leaderboard.Category category, UUID playerId) {
+        return leaderboard.getRank(category, playerId);
+    }
+    
+    /**
+     * @param page One-based page number
+     * @return Entries on the page in rank order
+     */
+    public List<Leaderboard.Entry> getPage(Leaderboard.Category category, int page, int pageSize) {
+        return leaderboard.getPage(category, (Math.max(1, page) - 1) * pageSize, pageSize);
+    }
+    
+    /**
+     * @return Number of ranked players
+     */
+    public int size() {
+        return leaderboard.size();
+    }
+    
+    /**
+     * Write the snapshot if anything changed since it was last written.
+     * Blocks on disk, call from an async thread or on shutdown.
+     */
+    public void saveSnapshot() {
+        drain();
+        
+        // The player file index is refreshed on every start instead
+        if (indexedFromFiles || !leaderboard.isChanged()) {
+            return;
+        }
+        
+        try {
+            leaderboard.writeSnapshot(snapshotFile);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save leaderboard snapshot: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.squeakybagco.lifesteal.managers;
+
+import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.storage.PlayerData;
+import com.squeakybagco.lifesteal.storage.PlayerDataScan;
+import com.squeakybagco.lifesteal.storage.PlayerDataStore;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams every record from one storage backend into another on an async thread.
+ * Records are copied in bounded batches with a throttle so the job can run on a
+ * live server, and a checkpoint after every batch lets an interrupted migration
+ * resume where it stopped.
+ */
+public class MigrationManager {
+    
+    private static final long PROGRESS_INTERVAL_MILLIS = 5000;
+    
+    private final LifestealPlugin plugin;
+    private volatile Migration current;
+    
+    public MigrationManager(LifestealPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Start copying records between two backends
+     * @param sender Receives progress messages
+     * @return false if a migration is already running
+     */
+    public synchronized boolean start(String from, String to, CommandSender sender) {
+        if (current != null) {
+            return false;
+        }
+        
+        Migration migration = new Migration(
+            PlayerDataManager.normalizeStorageType(from),
+            PlayerDataManager.normalizeStorageType(to),
+            sender
+        );
+        current = migration;
+        plugin.getTaskScheduler().runAsync(migration::run);
+        return true;
+    }
+    
+    /**
+     * Stop the running migration after its current batch. Progress is kept in
+     * the checkpoint so starting the same migration again resumes it.
+     * @return false if no migration is running
+     */
+    public boolean cancel() {
+        Migration migration = current;
+        if (migration == null) {
+            return false;
+        }
+        migration.cancelled = true;
+        return true;
+    }
+    
+    /**
+     * Cancel any running migration and wait briefly for it to checkpoint.
+     * Called on plugin disable before the active store is closed.
+     */
+    public void shutdown() {
+        Migration migration = current;
+        if (migration == null) {
+            return;
+        }
+        
+        migration.cancelled = true;
+        try {
+            migration.finished.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * @return Description of the running migration, or null if none is running
+     */
+    public String getStatus() {
+        Migration migration = current;
+        if (migration == null) {
+            return null;
+        }
+        return migration.from + " -> " + migration.to + ": " + migration.copied + "/" + migration.total + " records";
+    }
+    
+    private class Migration {
+        
+        private final String from;
+        private final String to;
+        private final CommandSender sender;
+        private final File checkpointFile;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        
+        private volatile boolean cancelled;
+        private volatile long copied;
+        private volatile long total;
+        
+        private Migration(String from, String to, CommandSender sender) {
+            this.from = from;
+            this.to = to;
+            this.sender = sender;
+            this.checkpointFile = new File(plugin.getDataFolder(), "migration-" + from + "-to-" + to + ".yml");
+        }
+        
+        private void run() {
+            PlayerDataManager dataManager = plugin.getPlayerDataManager();
+            String activeType = dataManager.getStorageType();
+            PlayerDataStore source = null;
+            PlayerDataStore target = null;
+            
+            try {
+                // Reuse the active store instead of opening the same backend twice
+                source = from.equals(activeType) ? dataManager.getStore() : dataManager.openStore(from);
+                target = to.equals(activeType) ? dataManager.getStore() : dataManager.openStore(to);
+                
+                // Keep copied records current while players keep playing
+                if (source == dataManager.getStore()) {
+                    dataManager.setMirrorStore(target);
+                }
+                
+                copy(dataManager, source, target);
+            } catch (IOException | RuntimeException e) {
+                plugin.getLogger().severe("Migration " + from + " -> " + to + " failed: " + e.getMessage());
+                notifySender("§cMigration failed after " + copied + " records: " + e.getMessage() + " §7(run it again to resume)");
+            } finally {
+                dataManager.setMirrorStore(null);
+                closeIfOpened(dataManager, source);
+                closeIfOpened(dataManager, target);
+                current = null;
+                finished.countDown();
+            }
+        }
+        
+        private void copy(PlayerDataManager dataManager, PlayerDataStore source, PlayerDataStore target) throws IOException {
+            ConfigManager config = plugin.getConfigManager();
+            int batchSize = config.getMigrationBatchSize();
+            long batchIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.getMigrationBatchesPerSecond());
+            
+            YamlConfiguration checkpoint = YamlConfiguration.loadConfiguration(checkpointFile);
+            String resumeAfter = checkpoint.getString("position");
+            copied = checkpoint.getLong("copied", 0);
+            total = source.count();
+            
+            if (resumeAfter != null) {
+                notifySender("§eResuming migration " + from + " -> " + to + " at " + copied + "/" + total + " records...");
+            } else {
+                notifySender("§eMigrating " + total + " records from " + from + " to " + to + "...");
+            }
+            
+            long start = System.nanoTime();
+            long lastProgress = System.currentTimeMillis();
+            
+            try (PlayerDataScan scan = source.scan(resumeAfter)) {
+                while (!cancelled) {
+                    long batchStart = System.nanoTime();
+                    List<PlayerData> batch = scan.next(batchSize);
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    
+                    // Players in memory, queued or mirrored since the scan may be ahead of the scanned record
+                    dataManager.copyToStore(batch, target);
+                    copied += batch.size();
+                    saveCheckpoint(checkpoint, scan.position());
+                    
+                    if (System.currentTimeMillis() - lastProgress >= PROGRESS_INTERVAL_MILLIS) {
+                        lastProgress = System.currentTimeMillis();
+                        notifySender("§7Migration progress: §e" + copied + "/" + total + " §7records");
+                    }
+                    
+                    // Throttle so the backends keep serving the live server
+                    long sleepNanos = batchIntervalNanos - (System.nanoTime() - batchStart);
+                    if (sleepNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+            
+            if (cancelled) {
+                notifySender("§eMigration paused at " + copied + "/" + total + " records. Run it again to resume.");
+                return;
+            }
+            
+            checkpointFile.delete();
+            long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+            notifySender("§aMigrated " + copied + " records from " + from + " to " + to + " in " + elapsed + "s. "
+                + "Set database.type to '" + to + "' and restart to switch.");
+        }
+        
+        private void saveCheckpoint(YamlConfiguration checkpoint, String position) throws IOException {
+            checkpoint.set("position", position);
+            checkpoint.set("copied", copied);
+            checkpoint.save(checkpointFile);
+        }
+        
+        private void closeIfOpened(PlayerDataManager dataManager, PlayerDataStore store) {
+            if (store == null || store == dataManager.getStore()) {
+                return;
+            }
+            try {
+                store.close();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not close " + store.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+        
+        private void notifySender(String message) {
+            plugin.getLogger().info(message.replaceAll("§.", ""));
+            
+            String prefixed = plugin.getConfigManager().getPrefix() + message;
+            if (sender instanceof Player player) {
+                plugin.getTaskScheduler().runEntity(player, () -> player.sendMessage(prefixed));
+            } else if (!(sender instanceof org.bukkit.command.ConsoleCommandSender)) {
+                plugin.getTaskScheduler().runGlobal(() -> sender.sendMessage(prefixed));
+            }
+        }
+    }
+}
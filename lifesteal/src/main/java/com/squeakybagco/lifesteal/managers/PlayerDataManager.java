@@ -1,60 +1,494 @@
 package com.squeakybagco.lifesteal.managers;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.metrics.Counter;
+import com.squeakybagco.lifesteal.metrics.Histogram;
+import com.squeakybagco.lifesteal.metrics.MetricsRegistry;
+import com.squeakybagco.lifesteal.storage.BinaryPlayerDataStore;
+import com.squeakybagco.lifesteal.storage.HeartJournal;
 import com.squeakybagco.lifesteal.storage.PlayerData;
-import org.bukkit.configuration.file.YamlConfiguration;
+import com.squeakybagco.lifesteal.storage.PlayerDataStore;
+import com.squeakybagco.lifesteal.storage.SqlPlayerDataStore;
+import com.squeakybagco.lifesteal.storage.WriteBehindQueue;
+import com.squeakybagco.lifesteal.storage.YamlPlayerDataStore;
 import org.bukkit.entity.Player;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class PlayerDataManager {
     
+    // Prefetched data is dropped if the login never completes
+    private static final long PENDING_LOGIN_TTL_MILLIS = 60000;
+    
     private final LifestealPlugin plugin;
-    private final File dataFolder;
-    private final Map<UUID, PlayerData> playerDataCache;
-    private final Map<UUID, Long> withdrawCooldowns;
+    private final PlayerDataStore store;
+    private final Map<UUID, PlayerData> playerDataCache; // Online players, never evicted
+    private final Cache<UUID, PlayerData> offlineCache;
+    private final Map<UUID, PendingLogin> pendingLogins;
+    private final WriteBehindQueue writeQueue;
+    private final ExecutorService readExecutor;
+    private final HeartJournal journal;
+    private final LeaderboardManager leaderboard;
+    private final Histogram loadTime;
+    private final Histogram saveTime;
+    private final Counter savedRecords;
+    private volatile PlayerDataStore mirrorStore;
+    // Orders mirrored writes against migration copies; ids mirrored since the last copied batch
+    private final Object mirrorLock = new Object();
+    private final Set<UUID> mirroredIds = new HashSet<>();
+    // Players whose stored record is being read into memory or changed in bulk, one at a time
+    private final Map<UUID, CompletableFuture<Void>> recordClaims = new ConcurrentHashMap<>();
+    private volatile boolean autosaveRunning;
     
-    public PlayerDataManager(LifestealPlugin plugin) {
+    /**
+     * @throws IOException if the configured store cannot be opened; the plugin
+     * must not run on another store, players would get defaults saved over their data
+     */
+    public PlayerDataManager(LifestealPlugin plugin) throws IOException {
         this.plugin = plugin;
-        this.dataFolder = new File(plugin.getDataFolder(), "playerdata");
+        this.leaderboard = plugin.getLeaderboardManager();
+        this.loadTime = plugin.getMetrics().histogram("data_load", "Time to read one player record from storage");
+        this.saveTime = plugin.getMetrics().histogram("data_save", "Time to write one batch of player records to storage");
+        this.savedRecords = plugin.getMetrics().counter("data_saved_records", "Player records written to storage");
+        this.store = createStore();
         this.playerDataCache = new ConcurrentHashMap<>();
-        this.withdrawCooldowns = new ConcurrentHashMap<>();
+        this.offlineCache = Caffeine.newBuilder()
+            .maximumSize(plugin.getConfigManager().getOfflineCacheSize())
+            .expireAfterAccess(plugin.getConfigManager().getOfflineCacheExpiry(), TimeUnit.SECONDS)
+            .removalListener(this::onOfflineRemoval)
+            .recordStats()
+            .build();
+        this.pendingLogins = new ConcurrentHashMap<>();
+        this.writeQueue = new WriteBehindQueue(
+            plugin.getLogger(),
+            this::writePlayerData,
+            plugin.getConfigManager().getWriteQueueCapacity(),
+            plugin.getConfigManager().getWriteBatchSize()
+        );
+        this.readExecutor = Executors.newFixedThreadPool(plugin.getConfigManager().getDatabasePoolSize(), runnable -> {
+            Thread thread = new Thread(runnable, "Lifesteal-Read");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.journal = openJournal();
+        
+        MetricsRegistry metrics = plugin.getMetrics();
+        metrics.counter("offline_cache_hits", "Offline player lookups served from memory", () -> offlineCache.stats().hitCount());
+        metrics.counter("offline_cache_misses", "Offline player lookups that missed the cache", () -> offlineCache.stats().missCount());
+        metrics.gauge("players_cached", "Online player records in memory", playerDataCache::size);
+        metrics.gauge("offline_cache_size", "Offline player records in memory", offlineCache::estimatedSize);
+        metrics.gauge("write_queue_pending", "Player records waiting for the write-behind thread", writeQueue::getPendingCount);
+    }
+    
+    /**
+     * Replay heart changes left by a crash into the store, then start a fresh journal
+     */
+    private HeartJournal openJournal() {
+        File journalFolder = new File(plugin.getDataFolder(), "journal");
+        
+        Map<UUID, PlayerData.HeartState> journaled = HeartJournal.replay(journalFolder, plugin.getLogger());
+        
+        // Segments that cannot be applied are kept, new entries must still rank above theirs
+        journaled.values().forEach(state -> PlayerData.advanceStamps(state.stamp()));
+        if (!journaled.isEmpty()) {
+            try {
+                applyJournal(journaled);
+                HeartJournal.clear(journalFolder);
+                plugin.getLogger().info("Recovered " + journaled.size() + " players' hearts from the journal");
+            } catch (IOException e) {
+                // Segments are kept and replayed again on the next start
+                plugin.getLogger().severe("Could not apply heart journal to storage: " + e.getMessage());
+            }
+        }
+        
+        if (!plugin.getConfigManager().isJournalEnabled()) {
+            return null;
+        }
+        
+        try {
+            return new HeartJournal(journalFolder, plugin.getLogger(), plugin.getConfigManager().getJournalCommitInterval());
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not open heart journal, heart changes are only saved by autosave: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private void applyJournal(Map<UUID, PlayerData.HeartState> journaled) throws IOException {
+        List<PlayerData> batch = new ArrayList<>();
+        for (Map.Entry<UUID, PlayerData.HeartState> entry : journaled.entrySet()) {
+            int hearts = entry.getValue().hearts();
+            PlayerData data = store.load(entry.getKey());
+            if (data == null) {
+                data = new PlayerData(entry.getKey(), hearts, 0, 0, 0);
+            }
+            data.setHearts(hearts);
+            leaderboard.update(data);
+            batch.add(data);
+            
+            if (batch.size() >= plugin.getConfigManager().getWriteBatchSize()) {
+                store.save(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            store.save(batch);
+        }
+    }
+    
+    /**
+     * Open the storage backend selected by database.type
+     */
+    private PlayerDataStore createStore() throws IOException {
+        String type = getStorageType();
+        try {
+            return openStore(type);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown database type '" + type + "'", e);
+        } catch (IOException e) {
+            throw new IOException("Could not open " + type + " player data store: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Open a new instance of the given storage backend
+     * @param type file, binary, sqlite or mysql
+     * @throws IllegalArgumentException if the type is unknown
+     */
+    public PlayerDataStore openStore(String type) throws IOException {
+        ConfigManager config = plugin.getConfigManager();
+        
+        switch (normalizeStorageType(type)) {
+            case "file":
+                return openYamlStore();
+            
+            case "binary":
+                BinaryPlayerDataStore binaryStore = new BinaryPlayerDataStore(
+                    new File(plugin.getDataFolder(), "playerdata.dat"), plugin.getLogger());
+                plugin.getLogger().info("Opened binary player data store (" + binaryStore.size() + " players indexed)");
+                return binaryStore;
+            
+            case "sqlite":
+                plugin.getLogger().info("Opened SQLite player data store");
+                return SqlPlayerDataStore.sqlite(
+                    new File(plugin.getDataFolder(), config.getSqliteFile()), config.getDatabasePoolSize());
+            
+            case "mysql":
+                plugin.getLogger().info("Opened MySQL player data store at " + config.getMysqlHost() + ":" + config.getMysqlPort());
+                return SqlPlayerDataStore.mysql(
+                    config.getMysqlHost(),
+                    config.getMysqlPort(),
+                    config.getMysqlDatabase(),
+                    config.getMysqlUsername(),
+                    config.getMysqlPassword(),
+                    config.getDatabasePoolSize()
+                );
+            
+            default:
+                throw new IllegalArgumentException("Unknown storage type: " + type);
+        }
+    }
+    
+    private PlayerDataStore openYamlStore() {
+        return new YamlPlayerDataStore(new File(plugin.getDataFolder(), "playerdata"),
+            () -> plugin.getConfigManager().getDefaultHearts());
+    }
+    
+    /**
+     * Map aliases onto the storage type names used by {@link #openStore(String)}
+     */
+    public static String normalizeStorageType(String type) {
+        String normalized = type.toLowerCase();
+        return normalized.equals("mariadb") ? "mysql" : normalized;
+    }
+    
+    /**
+     * @return The normalized type of the active storage backend
+     */
+    public String getStorageType() {
+        return normalizeStorageType(plugin.getConfigManager().getStorageType());
+    }
+    
+    /**
+     * @return The active storage backend
+     */
+    public PlayerDataStore getStore() {
+        return store;
+    }
+    
+    /**
+     * Copy every write made to the active store into a second store as well.
+     * Used while a migration runs so records changed after being copied stay current.
+     * @param mirror Store to mirror writes into, or null to stop mirroring
+     */
+    public void setMirrorStore(PlayerDataStore mirror) {
+        synchronized (mirrorLock) {
+            this.mirrorStore = mirror;
+            mirroredIds.clear();
+        }
+    }
+    
+    /**
+     * Write a batch of scanned records into a migration target. Each record is
+     * replaced by a newer copy in memory or in the write queue, and skipped if
+     * a write mirrored it after the scan read it, so a stale scanned record never
+     * lands over a newer one. Holds the mirror lock, so mirrored writes cannot
+     * interleave with the copy. Call the scan for the next batch after this returns.
+     */
+    public void copyToStore(List<PlayerData> scanned, PlayerDataStore target) throws IOException {
+        synchronized (mirrorLock) {
+            List<PlayerData> batch = new ArrayList<>(scanned.size());
+            for (PlayerData stored : scanned) {
+                UUID playerId = stored.getPlayerId();
+                if (target == mirrorStore && mirroredIds.contains(playerId)) {
+                    continue;
+                }
+                
+                PlayerData newer = getLoadedData(playerId);
+                if (newer == null) {
+                    newer = writeQueue.getPending(playerId);
+                }
+                batch.add(newer != null ? newer.copy() : stored);
+            }
+            
+            if (!batch.isEmpty()) {
+                target.save(batch);
+            }
+            mirroredIds.clear();
+        }
+    }
+    
+    /**
+     * Copy records just written to the active store into the mirror, if one is set
+     */
+    private void mirror(List<PlayerData> batch) throws IOException {
+        if (mirrorStore == null) {
+            return;
+        }
+        
+        synchronized (mirrorLock) {
+            PlayerDataStore mirror = mirrorStore;
+            if (mirror != null) {
+                mirror.save(batch);
+                batch.forEach(data -> mirroredIds.add(data.getPlayerId()));
+            }
+        }
+    }
+    
+    /**
+     * Read a player's stored record without touching the cache or blocking the caller
+     * @param playerId The player to read
+     * @return Future completing with the stored record, or null if the player has none
+     */
+    public CompletableFuture<PlayerData> loadStoredDataAsync(UUID playerId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.load(playerId);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, readExecutor);
+    }
+    
+    /**
+     * Get a player's data whether or not they are online. Offline records are
+     * read off-thread and kept in a bounded cache, so repeated admin queries
+     * do not hit storage and the cache never grows past its limit.
+     * @param playerId The player to load
+     * @return Future completing with the player's data
+     */
+    public CompletableFuture<PlayerData> loadPlayerDataAsync(UUID playerId) {
+        PlayerData cached = getCachedData(playerId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        return CompletableFuture.supplyAsync(() -> {
+            claimRecord(playerId);
+            try {
+                PlayerData online = playerDataCache.get(playerId);
+                if (online != null) {
+                    return online; // Joined while we were queued
+                }
+                return offlineCache.get(playerId, this::readOfflineData);
+            } finally {
+                releaseRecord(playerId);
+            }
+        }, readExecutor);
+    }
+    
+    /**
+     * @return The in-memory record for an online or recently queried player, or null
+     */
+    private PlayerData getCachedData(UUID playerId) {
+        PlayerData data = playerDataCache.get(playerId);
+        return data != null ? data : offlineCache.getIfPresent(playerId);
+    }
+    
+    /**
+     * @return Every in-memory record, online players first
+     */
+    private Stream<PlayerData> cachedRecords() {
+        return Stream.concat(playerDataCache.values().stream(), offlineCache.asMap().values().stream());
+    }
+    
+    private void onOfflineRemoval(UUID playerId, PlayerData data, RemovalCause cause) {
+        // Write back evicted changes; explicit removals move the record to the online map
+        if (data != null && cause.wasEvicted() && data.isDirty()) {
+            savePlayerData(data);
+        }
+    }
+    
+    /**
+     * Load a player's data before they join. Called from the async pre-login
+     * event, so the blocking read never runs on a region thread; the result is
+     * parked until {@link #loadPlayerData(Player)} picks it up.
+     * @throws IOException if the record could not be read, the player must not join
+     */
+    public void prefetchPlayerData(UUID playerId) throws IOException {
+        expirePendingLogins();
         
-        if (!dataFolder.exists()) {
-            dataFolder.mkdirs();
+        if (playerDataCache.containsKey(playerId)) {
+            return; // Still cached from a previous session
+        }
+        
+        claimRecord(playerId);
+        try {
+            PlayerData offline = offlineCache.getIfPresent(playerId);
+            pendingLogins.put(playerId, new PendingLogin(offline != null ? offline : readPlayerData(playerId, true)));
+        } finally {
+            releaseRecord(playerId);
         }
     }
     
-    public void loadPlayerData(Player player) {
+    /**
+     * Move a player's data into the cache on join. Uses the prefetched record
+     * when there is one and only reads from storage as a fallback.
+     * @return false if the record could not be read, the player must not stay
+     */
+    public boolean loadPlayerData(Player player) {
         UUID playerId = player.getUniqueId();
+        PendingLogin pending = pendingLogins.remove(playerId);
         
         if (playerDataCache.containsKey(playerId)) {
-            return; // Already loaded
+            return true; // Already loaded
         }
         
-        File playerFile = new File(dataFolder, playerId + ".yml");
+        // Without a prefetch this may wait for a bulk change writing the player's record
         PlayerData data;
+        claimRecord(playerId);
+        try {
+            // Take over the offline record if an admin touched this player while they were away
+            data = offlineCache.asMap().remove(playerId);
+            if (data == null) {
+                if (pending != null && !pending.isExpired()) {
+                    data = pending.data;
+                } else {
+                    plugin.getConfigManager().debug("No prefetched data for " + player.getName() + ", loading synchronously");
+                    try {
+                        data = readPlayerData(playerId, true);
+                    } catch (IOException e) {
+                        return false;
+                    }
+                }
+            }
+            playerDataCache.put(playerId, data);
+        } finally {
+            releaseRecord(playerId);
+        }
         
-        if (playerFile.exists()) {
-            YamlConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
-            data = new PlayerData(
-                playerId,
-                config.getInt("hearts", plugin.getConfigManager().getDefaultHearts()),
-                config.getLong("last-death", 0),
-                config.getInt("kills", 0),
-                config.getInt("deaths", 0)
-            );
-        } else {
-            data = new PlayerData(playerId, plugin.getConfigManager().getDefaultHearts(), 0, 0, 0);
+        leaderboard.update(data);
+        if (data.isDirty()) {
             savePlayerData(data); // Save default data
         }
-        
-        playerDataCache.put(playerId, data);
         plugin.getConfigManager().debug("Loaded data for player: " + player.getName() + " (Hearts: " + data.getHearts() + ")");
+        return true;
+    }
+    
+    /**
+     * Read a player's record, or create defaults for a player without one
+     * @param saveNew Mark new defaults dirty so they get written; offline lookups leave them clean
+     * @throws IOException if the stored record could not be read. Defaults are never
+     * handed out instead, their next save would overwrite the real record.
+     */
+    private PlayerData readPlayerData(UUID playerId, boolean saveNew) throws IOException {
+        // A save from the previous session may still be waiting in the write queue
+        PlayerData queued = writeQueue.getPending(playerId);
+        if (queued != null) {
+            return queued.copy();
+        }
+        
+        PlayerData data;
+        long start = System.nanoTime();
+        try {
+            data = store.load(playerId);
+            loadTime.recordSince(start);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not load player data for " + playerId + ": " + e.getMessage());
+            throw e;
+        }
+        
+        if (data == null) {
+            data = new PlayerData(playerId, plugin.getConfigManager().getDefaultHearts(), 0, 0, 0);
+            if (saveNew) {
+                data.markDirty();
+            }
+        }
+        return data;
+    }
+    
+    /**
+     * Cache loader for offline records, failures are thrown to the caller and not cached
+     */
+    private PlayerData readOfflineData(UUID playerId) {
+        try {
+            return readPlayerData(playerId, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load player data for " + playerId, e);
+        }
+    }
+    
+    /**
+     * Wait until no other thread reads this player's stored record into memory
+     * or changes it in bulk. Claims are not reentrant.
+     */
+    private void claimRecord(UUID playerId) {
+        CompletableFuture<Void> claim = new CompletableFuture<>();
+        CompletableFuture<Void> held;
+        while ((held = recordClaims.putIfAbsent(playerId, claim)) != null) {
+            held.join();
+        }
+    }
+    
+    private void releaseRecord(UUID playerId) {
+        CompletableFuture<Void> claim = recordClaims.remove(playerId);
+        if (claim != null) {
+            claim.complete(null);
+        }
+    }
+    
+    private void expirePendingLogins() {
+        pendingLogins.values().removeIf(PendingLogin::isExpired);
     }
     
     public void savePlayerData(Player player) {
@@ -62,7 +496,7 @@ public class PlayerDataManager {
     }
     
     public void savePlayerData(UUID playerId) {
-        PlayerData data = playerDataCache.get(playerId);
+        PlayerData data = getCachedData(playerId);
         if (data == null) {
             return;
         }
@@ -70,117 +504,483 @@ public class PlayerDataManager {
         savePlayerData(data);
     }
     
+    /**
+     * Queue a snapshot of the data for the write-behind thread
+     */
     private void savePlayerData(PlayerData data) {
-        File playerFile = new File(dataFolder, data.getPlayerId() + ".yml");
-        YamlConfiguration config = new YamlConfiguration();
-        
-        config.set("hearts", data.getHearts());
-        config.set("last-death", data.getLastDeath());
-        config.set("kills", data.getKills());
-        config.set("deaths", data.getDeaths());
-        config.set("last-updated", System.currentTimeMillis());
+        writeQueue.enqueue(data.copy());
+    }
+    
+    /**
+     * Write a batch of snapshots to the store, runs on the write-behind thread
+     */
+    private void writePlayerData(List<PlayerData> batch) {
+        long start = System.nanoTime();
+        try {
+            store.save(batch);
+            saveTime.recordSince(start);
+            savedRecords.add(batch.size());
+        } catch (IOException e) {
+            // Reported by the write queue, which also keeps flush barriers waiting
+            throw new UncheckedIOException("Could not save player data for " + batch.size() + " players", e);
+        }
         
         try {
-            config.save(playerFile);
+            mirror(batch);
         } catch (IOException e) {
-            plugin.getLogger().severe("Could not save player data for " + data.getPlayerId() + ": " + e.getMessage());
+            plugin.getLogger().warning("Could not mirror " + batch.size() + " records to migration target: " + e.getMessage());
+        }
+        
+        // Let the live records know these versions reached disk
+        for (PlayerData data : batch) {
+            PlayerData live = getCachedData(data.getPlayerId());
+            if (live != null) {
+                live.markSaved(data.getVersion());
+            }
         }
     }
     
-    public void saveAllData() {
+    /**
+     * Queue every record that changed since it was last written
+     * @return Number of records queued
+     */
+    public int saveAllData() {
+        int queued = 0;
+        for (PlayerData data : (Iterable<PlayerData>) cachedRecords()::iterator) {
+            if (data.isDirty()) {
+                savePlayerData(data);
+                queued++;
+            }
+        }
+        plugin.getConfigManager().debug("Queued data for " + queued + " players.");
+        return queued;
+    }
+    
+    /**
+     * Start the periodic autosave. Each cycle only persists records that
+     * changed, handing a small batch of them to the write queue per tick.
+     */
+    public void startAutosave() {
+        long interval = plugin.getConfigManager().getAutosaveInterval() * 20L;
+        if (interval <= 0) {
+            return; // Autosave disabled
+        }
+        
+        autosaveRunning = true;
+        plugin.getTaskScheduler().runGlobalLater(this::beginAutosaveCycle, interval);
+    }
+    
+    private void beginAutosaveCycle() {
+        if (!autosaveRunning) {
+            return;
+        }
+        
+        if (journal == null) {
+            collectDirtyRecords(null);
+            return;
+        }
+        
+        // Seal the journal first, every change it holds is now in a dirty record
+        journal.rotate().whenComplete((sealed, error) -> {
+            if (error != null) {
+                plugin.getLogger().warning("Could not rotate heart journal: " + error.getMessage());
+            }
+            plugin.getTaskScheduler().runGlobal(() -> collectDirtyRecords(sealed));
+        });
+    }
+    
+    private void collectDirtyRecords(List<File> sealedJournal) {
+        Deque<PlayerData> dirty = new ArrayDeque<>();
+        cachedRecords().filter(PlayerData::isDirty).forEach(dirty::add);
+        Set<UUID> savedIds = new HashSet<>();
+        dirty.forEach(data -> savedIds.add(data.getPlayerId()));
+        
+        continueAutosaveCycle(dirty, savedIds, System.nanoTime(), sealedJournal);
+    }
+    
+    private void continueAutosaveCycle(Deque<PlayerData> dirty, Set<UUID> savedIds, long startNanos, List<File> sealedJournal) {
+        if (!autosaveRunning) {
+            return;
+        }
+        
+        int batchSize = plugin.getConfigManager().getAutosaveBatchSize();
+        for (int i = 0; i < batchSize && !dirty.isEmpty(); i++) {
+            savePlayerData(dirty.poll());
+        }
+        
+        // Spread the rest over the following ticks
+        if (!dirty.isEmpty()) {
+            plugin.getTaskScheduler().runGlobalLater(() -> continueAutosaveCycle(dirty, savedIds, startNanos, sealedJournal), 1L);
+            return;
+        }
+        
+        // Compact: drop the sealed journal once everything queued above is in the store.
+        // Segments kept here are sealed again by the next rotation and retried then.
+        if (sealedJournal != null && !sealedJournal.isEmpty()) {
+            writeQueue.flushBarrier()
+                .orTimeout(60, TimeUnit.SECONDS)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        plugin.getLogger().warning("Autosave did not complete, keeping " + sealedJournal.size() + " journal segment(s) for replay");
+                    } else if (isAnyPending(savedIds)) {
+                        plugin.getConfigManager().debug("Autosaved records are still queued, keeping the sealed journal until the next cycle");
+                    } else {
+                        journal.delete(sealedJournal);
+                    }
+                });
+        }
+        
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (!savedIds.isEmpty()) {
+            plugin.getLogger().info("Autosave flushed " + savedIds.size() + " changed records in " + elapsed + "ms.");
+        } else {
+            plugin.getConfigManager().debug("Autosave found no changed records.");
+        }
+        
+        plugin.getTaskScheduler().runAsync(leaderboard::saveSnapshot);
+        plugin.getTaskScheduler().runAsync(plugin.getPlayerNameManager()::saveSnapshot);
+        plugin.getTaskScheduler().runGlobalLater(this::beginAutosaveCycle, plugin.getConfigManager().getAutosaveInterval() * 20L);
+    }
+    
+    /**
+     * @return true if any of these players still has a snapshot waiting for or being written
+     */
+    private boolean isAnyPending(Set<UUID> playerIds) {
+        for (UUID playerId : playerIds) {
+            if (writeQueue.getPending(playerId) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Queue every cached record and wait for the write-behind thread to finish.
+     * Called once on plugin disable.
+     */
+    public void shutdown() {
+        autosaveRunning = false;
         plugin.getLogger().info("Saving all player data...");
-        for (PlayerData data : playerDataCache.values()) {
-            savePlayerData(data);
+        int queued = saveAllData();
+        
+        long start = System.nanoTime();
+        int timeout = plugin.getConfigManager().getShutdownFlushTimeout();
+        boolean flushed = writeQueue.shutdown(timeout, TimeUnit.SECONDS);
+        if (!flushed) {
+            plugin.getLogger().warning("Player data flush exceeded " + timeout + "s timeout or a write failed, keeping the heart journal for replay.");
+        }
+        
+        if (journal != null) {
+            journal.close();
+            if (flushed) {
+                // Everything journaled is in the store now
+                HeartJournal.clear(new File(plugin.getDataFolder(), "journal"));
+            }
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        plugin.getLogger().info("Saved data for " + queued + " changed players in " + elapsed + "ms.");
+        
+        readExecutor.shutdown();
+        try {
+            store.close();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not close player data store: " + e.getMessage());
         }
-        plugin.getLogger().info("Saved data for " + playerDataCache.size() + " players.");
     }
     
+    /**
+     * Get a cached player's hearts. Offline players must be loaded with
+     * {@link #loadPlayerDataAsync(UUID)} first, otherwise the default is returned.
+     */
     public int getPlayerHearts(UUID playerId) {
-        PlayerData data = playerDataCache.get(playerId);
+        PlayerData data = getCachedData(playerId);
         return data != null ? data.getHearts() : plugin.getConfigManager().getDefaultHearts();
     }
     
     public void setPlayerHearts(UUID playerId, int hearts) {
-        PlayerData data = playerDataCache.get(playerId);
-        if (data == null) {
-            data = new PlayerData(playerId, hearts, 0, 0, 0);
-            playerDataCache.put(playerId, data);
-        } else {
-            data.setHearts(hearts);
+        setPlayerHearts(playerId, hearts, HeartJournal.Reason.ADMIN_SET);
+    }
+    
+    /**
+     * Set a player's hearts and journal the change
+     * @param reason What caused the change, recorded in the journal
+     */
+    public void setPlayerHearts(UUID playerId, int hearts, HeartJournal.Reason reason) {
+        setHearts(getLoadedRecord(playerId), hearts, reason);
+    }
+    
+    /**
+     * Set the hearts of a record loaded through {@link #loadPlayerDataAsync(UUID)}.
+     * Use this after the async phase of a command, it never reads storage even
+     * if the record was evicted from the offline cache meanwhile.
+     */
+    public void setPlayerHearts(PlayerData loaded, int hearts) {
+        setHearts(resident(loaded), hearts, HeartJournal.Reason.ADMIN_SET);
+    }
+    
+    private void setHearts(PlayerData data, int hearts, HeartJournal.Reason reason) {
+        recordHeartChange(data, data.setHearts(hearts), reason);
+        
+        plugin.getConfigManager().debug("Set hearts for " + data.getPlayerId() + " to " + hearts);
+    }
+    
+    /**
+     * Steal hearts from a victim for their killer, clamped to the configured
+     * minimum and maximum. Both sides are changed lock-free and journaled as a
+     * single record, so a crash can never keep one side without the other.
+     * @return Hearts actually moved, 0 if the victim had none to spare or the killer is full
+     */
+    public int stealHearts(UUID victimId, UUID killerId, int amount) {
+        PlayerData victim = getLoadedRecord(victimId);
+        PlayerData killer = getLoadedRecord(killerId);
+        
+        PlayerData.Transfer transfer = PlayerData.transferHearts(victim, killer, amount,
+            plugin.getConfigManager().getMinHearts(), plugin.getConfigManager().getMaxHearts());
+        if (transfer.moved() <= 0) {
+            return 0;
         }
         
-        plugin.getConfigManager().debug("Set hearts for " + playerId + " to " + hearts);
+        leaderboard.update(victim);
+        leaderboard.update(killer);
+        if (journal != null) {
+            // The states the transfer left, a concurrent change journals its own newer state
+            journal.append(HeartJournal.Reason.STEAL, victimId, transfer.from(), killerId, transfer.to());
+        }
+        
+        plugin.getConfigManager().debug("Transferred " + transfer.moved() + " hearts: " + victimId + " -> " + killerId);
+        return transfer.moved();
+    }
+    
+    /**
+     * Atomically add or remove hearts, clamped to the configured minimum and maximum
+     * @param reason What caused the change, recorded in the journal
+     * @return The change actually applied
+     */
+    public int adjustHearts(UUID playerId, int delta, HeartJournal.Reason reason) {
+        PlayerData data = getLoadedRecord(playerId);
+        PlayerData.HeartState state = data.addHearts(delta, plugin.getConfigManager().getMinHearts(), plugin.getConfigManager().getMaxHearts());
+        if (state.change() != 0) {
+            recordHeartChange(data, state, reason);
+        }
+        return state.change();
+    }
+    
+    /**
+     * Atomically remove hearts only if the player keeps at least the minimum
+     * @return false if the player did not have enough hearts
+     */
+    public boolean withdrawHearts(UUID playerId, int amount) {
+        PlayerData data = getLoadedRecord(playerId);
+        PlayerData.HeartState state = data.tryRemoveHearts(amount, plugin.getConfigManager().getMinHearts());
+        if (state == null) {
+            return false;
+        }
+        recordHeartChange(data, state, HeartJournal.Reason.WITHDRAW);
+        return true;
+    }
+    
+    /**
+     * @param state The state the change returned, not re-read, another thread may have changed it since
+     */
+    private void recordHeartChange(PlayerData data, PlayerData.HeartState state, HeartJournal.Reason reason) {
+        leaderboard.update(data);
+        if (journal != null) {
+            journal.append(reason, data.getPlayerId(), state);
+        }
+    }
+    
+    /**
+     * Heart changes run on region threads, so they only ever use records in memory.
+     * Offline players must be loaded with {@link #loadPlayerDataAsync(UUID)} first.
+     * @throws IllegalStateException if the record is not in memory, the change is refused
+     */
+    private PlayerData getLoadedRecord(UUID playerId) {
+        PlayerData data = getLoadedData(playerId);
+        if (data == null) {
+            throw new IllegalStateException("Player data for " + playerId + " is not loaded, load it asynchronously first");
+        }
+        return data;
+    }
+    
+    /**
+     * @return The in-memory record for a previously loaded one. If it was evicted
+     *         meanwhile it is put back instead of read again, the evicted record
+     *         was written on eviction and is still the newest.
+     */
+    private PlayerData resident(PlayerData loaded) {
+        UUID playerId = loaded.getPlayerId();
+        PlayerData current = getLoadedData(playerId);
+        if (current != null) {
+            return current;
+        }
+        PlayerData raced = offlineCache.asMap().putIfAbsent(playerId, loaded);
+        return raced != null ? raced : loaded;
     }
     
     public void addPlayerHearts(UUID playerId, int hearts) {
-        int currentHearts = getPlayerHearts(playerId);
-        int newHearts = Math.min(currentHearts + hearts, plugin.getConfigManager().getMaxHearts());
-        setPlayerHearts(playerId, newHearts);
+        adjustHearts(playerId, hearts, HeartJournal.Reason.ADMIN_SET);
     }
     
     public void removePlayerHearts(UUID playerId, int hearts) {
-        int currentHearts = getPlayerHearts(playerId);
-        int newHearts = Math.max(currentHearts - hearts, plugin.getConfigManager().getMinHearts());
-        setPlayerHearts(playerId, newHearts);
+        adjustHearts(playerId, -hearts, HeartJournal.Reason.ADMIN_SET);
     }
     
     public void addKill(UUID playerId) {
         PlayerData data = playerDataCache.get(playerId);
         if (data != null) {
-            data.setKills(data.getKills() + 1);
+            data.incrementKills();
+            leaderboard.update(data);
         }
     }
     
     public void addDeath(UUID playerId) {
         PlayerData data = playerDataCache.get(playerId);
         if (data != null) {
-            data.setDeaths(data.getDeaths() + 1);
-            data.setLastDeath(System.currentTimeMillis());
+            data.recordDeath(System.currentTimeMillis());
+            leaderboard.update(data);
         }
     }
     
     public int getKills(UUID playerId) {
-        PlayerData data = playerDataCache.get(playerId);
+        PlayerData data = getCachedData(playerId);
         return data != null ? data.getKills() : 0;
     }
     
     public int getDeaths(UUID playerId) {
-        PlayerData data = playerDataCache.get(playerId);
+        PlayerData data = getCachedData(playerId);
         return data != null ? data.getDeaths() : 0;
     }
     
-    public boolean isOnWithdrawCooldown(UUID playerId) {
-        Long lastWithdraw = withdrawCooldowns.get(playerId);
-        if (lastWithdraw == null) {
-            return false;
+    /**
+     * Unpin a player who left. Their record is saved and moved to the bounded
+     * offline cache so a quick relog or offline query does not hit storage.
+     */
+    public void unloadPlayerData(UUID playerId) {
+        PlayerData data = playerDataCache.remove(playerId);
+        if (data == null) {
+            return;
         }
         
-        long cooldownTime = plugin.getConfigManager().getWithdrawCooldown() * 1000L; // Convert to milliseconds
-        return (System.currentTimeMillis() - lastWithdraw) < cooldownTime;
+        if (data.isDirty()) {
+            savePlayerData(data);
+        }
+        offlineCache.put(playerId, data);
     }
     
-    public void setWithdrawCooldown(UUID playerId) {
-        withdrawCooldowns.put(playerId, System.currentTimeMillis());
+    public PlayerData getPlayerData(UUID playerId) {
+        return getCachedData(playerId);
     }
     
-    public long getWithdrawCooldownRemaining(UUID playerId) {
-        Long lastWithdraw = withdrawCooldowns.get(playerId);
-        if (lastWithdraw == null) {
-            return 0;
+    /**
+     * Apply a bulk change to a batch of stored records and write them to the
+     * store. A player whose record is in memory, or about to be after a pre-login,
+     * is not changed in storage since their next save would undo it; their live
+     * record is returned for the caller to change with {@link #applyLiveChange}.
+     * Loading a player of the batch waits until it is written, so nobody reads
+     * the record from before the change into memory.
+     * Every record changed here is journaled too, so an older journal entry for
+     * it cannot replay over the change after a crash.
+     * Blocks on storage, call from an async thread.
+     * @return In-memory records that still need the change
+     */
+    public List<PlayerData> applyStoredChange(List<PlayerData> batch, Consumer<PlayerData> change) throws IOException {
+        // Each player is scanned once, so batches of parallel workers never claim the same player
+        List<UUID> claimed = new ArrayList<>(batch.size());
+        try {
+            for (PlayerData stored : batch) {
+                claimRecord(stored.getPlayerId());
+                claimed.add(stored.getPlayerId());
+            }
+            return changeStoredRecords(batch, change);
+        } finally {
+            claimed.forEach(this::releaseRecord);
+        }
+    }
+    
+    private List<PlayerData> changeStoredRecords(List<PlayerData> batch, Consumer<PlayerData> change) throws IOException {
+        List<PlayerData> live = new ArrayList<>();
+        List<PlayerData> changed = new ArrayList<>(batch.size());
+        
+        for (PlayerData stored : batch) {
+            PlayerData loaded = getLoadedData(stored.getPlayerId());
+            if (loaded != null) {
+                live.add(loaded);
+                continue;
+            }
+            
+            // A save still waiting in the queue is newer than storage and would overwrite the change
+            PlayerData queued = writeQueue.getPending(stored.getPlayerId());
+            if (queued != null) {
+                PlayerData copy = queued.copy();
+                change.accept(copy);
+                journalStoredChange(copy);
+                writeQueue.enqueue(copy);
+                leaderboard.update(copy);
+                continue;
+            }
+            
+            change.accept(stored);
+            journalStoredChange(stored);
+            changed.add(stored);
         }
         
-        long cooldownTime = plugin.getConfigManager().getWithdrawCooldown() * 1000L;
-        long remaining = cooldownTime - (System.currentTimeMillis() - lastWithdraw);
-        return Math.max(0, remaining / 1000); // Return in seconds
+        if (changed.isEmpty()) {
+            return live;
+        }
+        
+        store.save(changed);
+        mirror(changed);
+        changed.forEach(leaderboard::update);
+        return live;
     }
     
-    public void unloadPlayerData(UUID playerId) {
-        savePlayerData(playerId);
-        playerDataCache.remove(playerId);
-        withdrawCooldowns.remove(playerId);
+    /**
+     * Journal the hearts of a bulk-changed record that is not in memory
+     */
+    private void journalStoredChange(PlayerData data) {
+        if (journal != null) {
+            // Setting the same hearts takes a fresh stamp, above any entry already journaled for this player
+            journal.append(HeartJournal.Reason.BULK, data.getPlayerId(), data.setHearts(data.getHearts()));
+        }
     }
     
-    public PlayerData getPlayerData(UUID playerId) {
-        return playerDataCache.get(playerId);
+    /**
+     * Apply a bulk change to an in-memory record and journal its new hearts.
+     * For online players call this on their own thread.
+     */
+    public void applyLiveChange(PlayerData data, Consumer<PlayerData> change) {
+        change.accept(data);
+        
+        // Hearts and stamp are read together, a later change journals a higher stamp
+        recordHeartChange(data, data.getHeartState(), HeartJournal.Reason.BULK);
+    }
+    
+    /**
+     * @return The in-memory record, including one loaded for a login still in progress, or null
+     */
+    private PlayerData getLoadedData(UUID playerId) {
+        PlayerData data = getCachedData(playerId);
+        if (data != null) {
+            return data;
+        }
+        PendingLogin pending = pendingLogins.get(playerId);
+        return pending != null ? pending.data : null;
+    }
+    
+    /**
+     * Player data loaded during pre-login, waiting for the join event
+     */
+    private static class PendingLogin {
+        private final PlayerData data;
+        private final long loadedAt;
+        
+        private PendingLogin(PlayerData data) {
+            this.data = data;
+            this.loadedAt = System.currentTimeMillis();
+        }
+        
+        private boolean isExpired() {
+            return System.currentTimeMillis() - loadedAt > PENDING_LOGIN_TTL_MILLIS;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package com.squeakybagco.lifesteal.managers;
+
+import com.squeakybagco.lifesteal.LifestealPlugin;
+import com.squeakybagco.lifesteal.names.NameIndex;
+import com.squeakybagco.lifesteal.storage.PlayerData;
+import com.squeakybagco.lifesteal.storage.PlayerDataScan;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link NameIndex} used to resolve player names in commands and
+ * to complete them. Each player's name is saved with their record when they
+ * join. At startup the index is read from a snapshot, or rebuilt from every
+ * stored record when there is none or the last session did not end cleanly,
+ * since names saved after its last snapshot are only in storage; after that
+ * joins and quits update it one name at a time. Commands resolve names here instead of through
+ * {@code Bukkit.getOfflinePlayer(String)}, which can block on a profile lookup.
+ */
+public class PlayerNameManager {
+    
+    private static final String SNAPSHOT_FILE = "names.dat";
+    private static final String SESSION_FILE = "names.session";
+    private static final int REBUILD_BATCH_SIZE = 500;
+    
+    private final LifestealPlugin plugin;
+    private final NameIndex index;
+    private final File snapshotFile;
+    // Exists while a session runs, so a snapshot from a crashed session is not trusted
+    private final File sessionFile;
+    private volatile boolean filled;
+    
+    public PlayerNameManager(LifestealPlugin plugin) {
+        this.plugin = plugin;
+        this.index = new NameIndex(plugin.getConfigManager().getCompletionMaxNames());
+        this.snapshotFile = new File(plugin.getDataFolder(), SNAPSHOT_FILE);
+        this.sessionFile = new File(plugin.getDataFolder(), SESSION_FILE);
+        plugin.getMetrics().gauge("names_indexed", "Player names that commands can resolve", index::size);
+    }
+    
+    /**
+     * Fill the index in the background. Call once player data storage is open;
+     * players who join before it is filled keep their current name.
+     */
+    public void start() {
+        boolean uncleanShutdown = !beginSession();
+        plugin.getTaskScheduler().runAsync(() -> {
+            if (uncleanShutdown || !loadSnapshot()) {
+                rebuild();
+            } else {
+                filled = true;
+            }
+        });
+    }
+    
+    /**
+     * Mark this session as running until {@link #shutdown()} ends it
+     * @return false if the previous session never ended, so its snapshot may miss names
+     */
+    private boolean beginSession() {
+        try {
+            if (sessionFile.createNewFile()) {
+                return true;
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not mark the player name session: " + e.getMessage());
+            return true;
+        }
+        
+        if (snapshotFile.exists()) {
+            plugin.getLogger().warning("The server did not shut down cleanly, rebuilding player names from storage");
+        }
+        return false;
+    }
+    
+    private boolean loadSnapshot() {
+        if (!snapshotFile.exists()) {
+            return false;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            int players = index.readSnapshot(snapshotFile);
+            plugin.getLogger().info("Loaded " + players + " player names in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not read player name snapshot, rebuilding from storage: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void rebuild() {
+        long start = System.nanoTime();
+        int seeded = 0;
+        
+        try (PlayerDataScan scan = plugin.getPlayerDataManager().getStore().scan(null)) {
+            List<PlayerData> batch;
+            while (!(batch = scan.next(REBUILD_BATCH_SIZE)).isEmpty()) {
+                for (PlayerData data : batch) {
+                    String name = data.getName();
+                    if (name == null) {
+                        // Saved before names were stored, the server's user cache may know it
+                        name = plugin.getServer().getOfflinePlayer(data.getPlayerId()).getName();
+                    }
+                    if (name != null && index.seed(data.getPlayerId(), name)) {
+                        seeded++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not read player names from storage: " + e.getMessage());
+            return;
+        }
+        
+        plugin.getLogger().info("Rebuilt player names from storage with " + seeded + " players in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        filled = true;
+        saveSnapshot();
+    }
+    
+    /**
+     * Store a joining player's name with their record and index it.
+     * Call after their data is loaded.
+     */
+    public void join(Player player) {
+        PlayerData data = plugin.getPlayerDataManager().getPlayerData(player.getUniqueId());
+        if (data != null) {
+            data.setName(player.getName());
+        }
+        index.join(player.getUniqueId(), player.getName());
+    }
+    
+    public void quit(Player player) {
+        index.quit(player.getName());
+    }
+    
+    /**
+     * Resolve a command argument to a player who has joined before, online or not.
+     * Only reads memory, safe on any thread.
+     * @return The player, or null if nobody joined with that name
+     */
+    public NameIndex.Entry resolve(String name) {
+        return index.resolve(name);
+    }
+    
+    /**
+     * @return Name the player was last seen with, null if they never joined since names were stored
+     */
+    public String getName(UUID playerId) {
+        return index.getName(playerId);
+    }
+    
+    /**
+     * @param includeOffline Also complete players that are not online, for commands that accept them
+     * @return Player names starting with the prefix in any case, online players first
+     */
+    public List<String> complete(String prefix, boolean includeOffline) {
+        return index.complete(prefix, includeOffline, plugin.getConfigManager().getCompletionMaxResults());
+    }
+    
+    public void setMaxNames(int maxNames) {
+        index.setMaxNames(maxNames);
+    }
+    
+    /**
+     * Write the snapshot if anything changed since it was last written.
+     * Blocks on disk, call from an async thread or on shutdown.
+     */
+    public void saveSnapshot() {
+        writeSnapshot();
+    }
+    
+    /**
+     * Write the final snapshot and end the session, so the next start trusts
+     * the snapshot. A session whose index was never filled, or whose snapshot
+     * could not be written, stays open and the next start rebuilds.
+     */
+    public void shutdown() {
+        if (writeSnapshot() && filled && !sessionFile.delete()) {
+            plugin.getLogger().warning("Could not end the player name session, names will be rebuilt on the next start");
+        }
+    }
+    
+    /**
+     * @return true if the snapshot on disk holds every indexed name
+     */
+    private boolean writeSnapshot() {
+        if (!index.isChanged()) {
+            return true;
+        }
+        
+        try {
+            index.writeSnapshot(snapshotFile);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save player name snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+}
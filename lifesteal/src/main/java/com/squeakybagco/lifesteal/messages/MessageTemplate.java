@@ -0,0 +1,182 @@
+package com.squeakybagco.lifesteal.messages;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A message parsed once into Adventure components with indexed placeholder slots.
+ * Placeholders are swapped for sentinel characters before the message is
+ * parsed, so they pick up whatever style surrounds them. The parsed tree is
+ * then cut at the sentinels: text between placeholders becomes prebuilt
+ * components and each placeholder keeps only its style. Rendering appends the
+ * prebuilt parts and one text component per placeholder value, without
+ * building or parsing any intermediate string.
+ */
+public final class MessageTemplate {
+    
+    static final char SENTINEL_BASE = '\uE000';
+    
+    // parts[i] comes before slots[i], the last part closes the message. Empty parts are null.
+    private final Component[] parts;
+    private final Placeholder[] slots;
+    private final Style[] slotStyles;
+    
+    private MessageTemplate(Component[] parts, Placeholder[] slots, Style[] slotStyles) {
+        this.parts = parts;
+        this.slots = slots;
+        this.slotStyles = slotStyles;
+    }
+    
+    /**
+     * @param prefix Prepended to every render, may be null
+     * @param raw    The message as written in messages.yml
+     * @param parser Turns the message, with placeholders replaced by sentinels, into a component
+     */
+    public static MessageTemplate compile(Component prefix, String raw, Function<String, Component> parser) {
+        List<Run> runs = new ArrayList<>();
+        flatten(parser.apply(toSentinels(raw)), Style.empty(), runs);
+        
+        List<Component> parts = new ArrayList<>();
+        List<Placeholder> slots = new ArrayList<>();
+        List<Style> slotStyles = new ArrayList<>();
+        List<Component> pending = new ArrayList<>();
+        if (prefix != null) {
+            pending.add(prefix);
+        }
+        
+        for (Run run : runs) {
+            if (run.component != null) {
+                pending.add(run.component);
+                continue;
+            }
+            
+            String content = run.text;
+            int start = 0;
+            for (int i = 0; i < content.length(); i++) {
+                Placeholder placeholder = Placeholder.fromSentinel(content.charAt(i));
+                if (placeholder == null) {
+                    continue;
+                }
+                if (i > start) {
+                    pending.add(Component.text(content.substring(start, i), run.style));
+                }
+                parts.add(join(pending));
+                pending.clear();
+                slots.add(placeholder);
+                slotStyles.add(run.style);
+                start = i + 1;
+            }
+            if (start < content.length()) {
+                pending.add(Component.text(content.substring(start), run.style));
+            }
+        }
+        parts.add(join(pending));
+        
+        return new MessageTemplate(parts.toArray(new Component[0]), slots.toArray(new Placeholder[0]),
+            slotStyles.toArray(new Style[0]));
+    }
+    
+    public Component render() {
+        return render(null, null, null, null, null, null);
+    }
+    
+    public Component render(Placeholder first, Object firstValue) {
+        return render(first, firstValue, null, null, null, null);
+    }
+    
+    public Component render(Placeholder first, Object firstValue, Placeholder second, Object secondValue) {
+        return render(first, firstValue, second, secondValue, null, null);
+    }
+    
+    /**
+     * Fill the placeholder slots. Placeholders without a value are rendered as written.
+     */
+    public Component render(Placeholder first, Object firstValue, Placeholder second, Object secondValue,
+                            Placeholder third, Object thirdValue) {
+        TextComponent.Builder builder = Component.text();
+        for (int i = 0; i < slots.length; i++) {
+            if (parts[i] != null) {
+                builder.append(parts[i]);
+            }
+            
+            Placeholder slot = slots[i];
+            Object value = slot == first ? firstValue : slot == second ? secondValue : slot == third ? thirdValue : null;
+            builder.append(Component.text(value != null ? value.toString() : slot.getToken(), slotStyles[i]));
+        }
+        
+        Component last = parts[slots.length];
+        if (last != null) {
+            builder.append(last);
+        }
+        return builder.build();
+    }
+    
+    /**
+     * @return true if the message uses the placeholder
+     */
+    public boolean uses(Placeholder placeholder) {
+        for (Placeholder slot : slots) {
+            if (slot == placeholder) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String toSentinels(String raw) {
+        StringBuilder result = new StringBuilder(raw.length());
+        int i = 0;
+        outer:
+        while (i < raw.length()) {
+            if (raw.charAt(i) == '{') {
+                for (Placeholder placeholder : Placeholder.all()) {
+                    if (raw.startsWith(placeholder.getToken(), i)) {
+                        result.append(placeholder.getSentinel());
+                        i += placeholder.getToken().length();
+                        continue outer;
+                    }
+                }
+            }
+            result.append(raw.charAt(i++));
+        }
+        return result.toString();
+    }
+    
+    /**
+     * Walk the parsed tree depth first and collect its content with each node's
+     * effective style, so the tree can be cut anywhere without losing formatting
+     */
+    private static void flatten(Component component, Style inherited, List<Run> runs) {
+        Style style = inherited.merge(component.style());
+        if (component instanceof TextComponent text) {
+            if (!text.content().isEmpty()) {
+                runs.add(new Run(text.content(), style, null));
+            }
+        } else {
+            // Translatable, keybind and other components cannot hold placeholders
+            runs.add(new Run(null, style, component.children(List.of()).style(style)));
+        }
+        
+        for (Component child : component.children()) {
+            flatten(child, style, runs);
+        }
+    }
+    
+    private static Component join(List<Component> components) {
+        if (components.isEmpty()) {
+            return null;
+        }
+        if (components.size() == 1) {
+            return components.get(0);
+        }
+        return Component.text().append(components).build();
+    }
+    
+    private record Run(String text, Style style, Component component) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.squeakybagco.lifesteal.messages;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * All templates from messages.yml, compiled once per load.
+ * Messages are written with &amp; color codes by default, or in MiniMessage
+ * when the file sets {@code format: minimessage}. Keys missing from the file
+ * fall back to the copy bundled with the plugin.
+ */
+public final class Messages {
+    
+    /**
+     * How messages.yml is written
+     */
+    public enum Format {
+        LEGACY,
+        MINIMESSAGE
+    }
+    
+    private static final LegacyComponentSerializer AMPERSAND = LegacyComponentSerializer.builder()
+        .character('&')
+        .hexColors()
+        .build();
+    
+    private final Map<String, MessageTemplate> templates;
+    private final Component prefix;
+    private final String legacyPrefix;
+    
+    private Messages(Map<String, MessageTemplate> templates, Component prefix) {
+        this.templates = templates;
+        this.prefix = prefix;
+        this.legacyPrefix = LegacyComponentSerializer.legacySection().serialize(prefix);
+    }
+    
+    /**
+     * Parse every message, defaults of the configuration included
+     */
+    public static Messages compile(FileConfiguration messages) {
+        Format format = parseFormat(messages.getString("format", "legacy"));
+        Function<String, Component> parser = format == Format.MINIMESSAGE
+            ? MiniMessage.miniMessage()::deserialize
+            : AMPERSAND::deserialize;
+        
+        Component prefix = parser.apply(messages.getString("prefix", "&8[&cLifesteal&8] &r"));
+        
+        Set<String> keys = new LinkedHashSet<>();
+        if (messages.getDefaults() != null) {
+            ConfigurationSection defaults = messages.getDefaults().getConfigurationSection("messages");
+            if (defaults != null) {
+                keys.addAll(defaults.getKeys(false));
+            }
+        }
+        ConfigurationSection section = messages.getConfigurationSection("messages");
+        if (section != null) {
+            keys.addAll(section.getKeys(false));
+        }
+        
+        Map<String, MessageTemplate> templates = new HashMap<>();
+        for (String key : keys) {
+            String message = messages.getString("messages." + key);
+            if (message != null) {
+                templates.put(key, MessageTemplate.compile(prefix, message, parser));
+            }
+        }
+        return new Messages(Map.copyOf(templates), prefix);
+    }
+    
+    /**
+     * @return The template for a key, or one naming the missing key
+     */
+    public MessageTemplate get(String key) {
+        MessageTemplate template = templates.get(key);
+        if (template != null) {
+            return template;
+        }
+        return MessageTemplate.compile(prefix, "&cMessage not found: " + key, AMPERSAND::deserialize);
+    }
+    
+    public Component getPrefix() {
+        return prefix;
+    }
+    
+    /**
+     * @return The prefix as a § formatted string, for messages built in code
+     */
+    public String getLegacyPrefix() {
+        return legacyPrefix;
+    }
+    
+    private static Format parseFormat(String value) {
+        return value != null && value.toLowerCase(Locale.ROOT).replace("-", "").equals("minimessage")
+            ? Format.MINIMESSAGE
+            : Format.LEGACY;
+    }
+}
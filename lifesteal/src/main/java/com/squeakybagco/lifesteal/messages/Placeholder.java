@@ -0,0 +1,49 @@
+package com.squeakybagco.lifesteal.messages;
+
+import java.util.Locale;
+
+/**
+ * Placeholders that can appear in messages.yml, written as {name}
+ */
+public enum Placeholder {
+    PLAYER,
+    KILLER,
+    VICTIM,
+    AMOUNT,
+    HEARTS,
+    TIME,
+    KILLS,
+    DEATHS,
+    KDR,
+    INPUT;
+    
+    private static final Placeholder[] VALUES = values();
+    
+    private final String token = "{" + name().toLowerCase(Locale.ROOT) + "}";
+    
+    /**
+     * @return The placeholder as written in messages.yml, e.g. {amount}
+     */
+    public String getToken() {
+        return token;
+    }
+    
+    /**
+     * Private use character standing in for this placeholder while a message is parsed
+     */
+    char getSentinel() {
+        return (char) (MessageTemplate.SENTINEL_BASE + ordinal());
+    }
+    
+    /**
+     * @return The placeholder a sentinel stands for, or null for any other character
+     */
+    static Placeholder fromSentinel(char c) {
+        int index = c - MessageTemplate.SENTINEL_BASE;
+        return index >= 0 && index < VALUES.length ? VALUES[index] : null;
+    }
+    
+    static Placeholder[] all() {
+        return VALUES;
+    }
+}
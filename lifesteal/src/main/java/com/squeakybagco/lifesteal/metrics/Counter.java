@@ -0,0 +1,29 @@
+package com.squeakybagco.lifesteal.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Monotonic counter backed by a striped adder, safe to bump from any thread
+ */
+public class Counter implements LongSupplier {
+    
+    private final LongAdder value = new LongAdder();
+    
+    public void increment() {
+        value.increment();
+    }
+    
+    public void add(long amount) {
+        value.add(amount);
+    }
+    
+    public long get() {
+        return value.sum();
+    }
+    
+    @Override
+    public long getAsLong() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,105 @@
+package com.squeakybagco.lifesteal.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two nanosecond buckets.
+ * Bucket 0 counts zero, bucket i counts values from 2^(i-1)ns up to 2^i ns,
+ * so every bucket has the same relative error. Recording is a couple of
+ * striped adds and never allocates, so it is cheap enough for every event
+ * handler and scheduled task.
+ */
+public class Histogram {
+    
+    // 2^47ns is about 39 hours, anything longer lands in the last bucket
+    private static final int BUCKETS = 48;
+    
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+    
+    public void recordNanos(long nanos) {
+        nanos = Math.max(0, nanos);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+        buckets[bucket].increment();
+        count.increment();
+        sumNanos.add(nanos);
+        if (nanos > maxNanos.get()) {
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+    
+    /**
+     * Record the time since a {@link System#nanoTime()} reading
+     */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+    
+    public long getCount() {
+        return count.sum();
+    }
+    
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+    
+    public long getMeanNanos() {
+        long total = count.sum();
+        return total == 0 ? 0 : sumNanos.sum() / total;
+    }
+    
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+    
+    /**
+     * @param quantile Between 0 and 1, e.g. 0.99
+     * @return Upper bound of the bucket holding that quantile, in nanoseconds
+     */
+    public long getPercentileNanos(double quantile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        
+        long target = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= target) {
+                return Math.min(getBucketUpperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+    
+    /**
+     * @return Number of buckets, for exporters
+     */
+    public int getBucketCount() {
+        return BUCKETS;
+    }
+    
+    /**
+     * @return Samples in one bucket
+     */
+    public long getBucket(int bucket) {
+        return buckets[bucket].sum();
+    }
+    
+    /**
+     * @return Exclusive upper bound of a bucket in nanoseconds
+     */
+    public static long getBucketUpperBound(int bucket) {
+        return 1L << bucket;
+    }
+}
@@ -0,0 +1,90 @@
+package com.squeakybagco.lifesteal.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and latency histograms for the whole plugin.
+ * Components look their metrics up once and keep the reference, so the hot
+ * path only touches striped adders and never the registry. Names are short
+ * snake_case identifiers; exporters add the plugin prefix and units.
+ */
+public class MetricsRegistry {
+    
+    private final Map<String, LongSupplier> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, String> descriptions = new ConcurrentHashMap<>();
+    
+    /**
+     * Get or create a counter. Components rebuilt on reload get the same counter back.
+     */
+    public Counter counter(String name, String description) {
+        descriptions.putIfAbsent(name, description);
+        LongSupplier counter = counters.computeIfAbsent(name, key -> new Counter());
+        if (!(counter instanceof Counter owned)) {
+            throw new IllegalStateException("Counter " + name + " is read from another source");
+        }
+        return owned;
+    }
+    
+    /**
+     * Expose a monotonic count kept elsewhere, such as a cache's own statistics
+     */
+    public void counter(String name, String description, LongSupplier value) {
+        descriptions.put(name, description);
+        counters.put(name, value);
+    }
+    
+    /**
+     * Expose a value that can go up and down, such as a queue depth
+     */
+    public void gauge(String name, String description, LongSupplier value) {
+        descriptions.put(name, description);
+        gauges.put(name, value);
+    }
+    
+    /**
+     * Get or create a latency histogram
+     */
+    public Histogram histogram(String name, String description) {
+        descriptions.putIfAbsent(name, description);
+        return histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+    
+    /**
+     * Expose a histogram owned by another component
+     */
+    public void histogram(String name, String description, Histogram histogram) {
+        descriptions.put(name, description);
+        histograms.put(name, histogram);
+    }
+    
+    /**
+     * @return Counters by name, sorted
+     */
+    public Map<String, LongSupplier> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+    
+    /**
+     * @return Gauges by name, sorted
+     */
+    public Map<String, LongSupplier> getGauges() {
+        return Collections.unmodifiableMap(gauges);
+    }
+    
+    /**
+     * @return Histograms by name, sorted
+     */
+    public Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+    
+    public String getDescription(String name) {
+        return descriptions.getOrDefault(name, name);
+    }
+}
@@ -0,0 +1,117 @@
+package com.squeakybagco.lifesteal.metrics;
+
+import com.squeakybagco.lifesteal.LifestealPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically writes the registry to metrics.prom in the Prometheus text
+ * format, for a node exporter textfile collector or a local scraper.
+ * The file is replaced atomically, so readers never see half a dump.
+ */
+public class PrometheusExporter {
+    
+    private static final String PREFIX = "lifesteal_";
+    
+    private final LifestealPlugin plugin;
+    private final MetricsRegistry registry;
+    private final File file;
+    private volatile boolean running;
+    
+    public PrometheusExporter(LifestealPlugin plugin, MetricsRegistry registry) {
+        this.plugin = plugin;
+        this.registry = registry;
+        this.file = new File(plugin.getDataFolder(), "metrics.prom");
+    }
+    
+    /**
+     * Start the periodic dump if an interval is configured
+     */
+    public void start() {
+        long interval = plugin.getConfigManager().getMetricsExportInterval() * 20L;
+        if (interval <= 0) {
+            return; // Export disabled
+        }
+        
+        running = true;
+        plugin.getTaskScheduler().runGlobalLater(() -> tick(interval), interval);
+    }
+    
+    public void stop() {
+        running = false;
+    }
+    
+    private void tick(long interval) {
+        if (!running) {
+            return;
+        }
+        
+        plugin.getTaskScheduler().runAsync(this::write);
+        plugin.getTaskScheduler().runGlobalLater(() -> tick(interval), interval);
+    }
+    
+    /**
+     * Write the current values, blocks on file IO
+     */
+    public void write() {
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            Files.writeString(temp.toPath(), render(), StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write metrics file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * @return Every metric in the Prometheus text exposition format
+     */
+    public String render() {
+        StringBuilder out = new StringBuilder(8192);
+        
+        for (Map.Entry<String, LongSupplier> counter : registry.getCounters().entrySet()) {
+            String name = PREFIX + counter.getKey() + "_total";
+            header(out, name, counter.getKey(), "counter");
+            out.append(name).append(' ').append(counter.getValue().getAsLong()).append('\n');
+        }
+        
+        for (Map.Entry<String, LongSupplier> gauge : registry.getGauges().entrySet()) {
+            String name = PREFIX + gauge.getKey();
+            header(out, name, gauge.getKey(), "gauge");
+            out.append(name).append(' ').append(gauge.getValue().getAsLong()).append('\n');
+        }
+        
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+            String name = PREFIX + entry.getKey() + "_seconds";
+            Histogram histogram = entry.getValue();
+            header(out, name, entry.getKey(), "histogram");
+            
+            // Read the buckets first, the count is taken from them so the dump stays consistent
+            long cumulative = 0;
+            for (int i = 0; i < histogram.getBucketCount(); i++) {
+                cumulative += histogram.getBucket(i);
+                out.append(name).append("_bucket{le=\"").append(seconds(Histogram.getBucketUpperBound(i)))
+                    .append("\"} ").append(cumulative).append('\n');
+            }
+            out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append(name).append("_sum ").append(seconds(histogram.getSumNanos())).append('\n');
+            out.append(name).append("_count ").append(cumulative).append('\n');
+        }
+        return out.toString();
+    }
+    
+    private void header(StringBuilder out, String name, String key, String type) {
+        out.append("# HELP ").append(name).append(' ').append(registry.getDescription(key)).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
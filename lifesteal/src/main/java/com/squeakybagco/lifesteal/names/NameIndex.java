@@ -0,0 +1,283 @@
+package com.squeakybagco.lifesteal.names;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Every player name the plugin has seen, for resolving command arguments and
+ * for tab completion. Names map to UUIDs through a hash map keyed by the
+ * lower case name, so resolving one is O(1) and never asks the server or
+ * Mojang. For completion, online players and known offline players are each
+ * held in a {@link NameTrie}; the offline one is capped so a server with a long
+ * history does not suggest every name it has ever seen.
+ *
+ * Lookups share a read lock; joins, quits and seeding take the write lock
+ * for one change at a time.
+ *
+ * Snapshot layout: magic (4) | version (4) | count (4) | count x [uuid (16) | name (UTF)]
+ */
+public class NameIndex {
+    
+    /**
+     * A resolved player
+     * @param name Their name with its stored case
+     */
+    public record Entry(UUID playerId, String name) {
+    }
+    
+    private static final int SNAPSHOT_MAGIC = 0x4C534E49; // "LSNI"
+    private static final int SNAPSHOT_VERSION = 1;
+    
+    private final Map<String, UUID> ids = new HashMap<>();
+    private final Map<UUID, String> names = new HashMap<>();
+    private final NameTrie known = new NameTrie();
+    private final NameTrie online = new NameTrie();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile int maxNames;
+    private boolean changed;
+    
+    public NameIndex(int maxNames) {
+        this.maxNames = maxNames;
+    }
+    
+    public void setMaxNames(int maxNames) {
+        this.maxNames = maxNames;
+    }
+    
+    /**
+     * Add a stored player's name while the index is filled. Players who
+     * joined since keep the name they joined with.
+     * @return true if the player was not indexed yet
+     */
+    public boolean seed(UUID playerId, String name) {
+        lock.writeLock().lock();
+        try {
+            if (!add(playerId, name)) {
+                return false;
+            }
+            changed = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * A player joined. Their name is always completable while they are online,
+     * and is kept afterwards if the completion index has room. A previous name
+     * they were known by no longer resolves to them.
+     */
+    public void join(UUID playerId, String name) {
+        lock.writeLock().lock();
+        try {
+            String previous = names.put(playerId, name);
+            if (previous != null && !previous.equalsIgnoreCase(name)) {
+                ids.remove(key(previous), playerId);
+                known.remove(previous);
+            }
+            
+            // Whoever held the name before has been renamed since
+            UUID former = ids.put(key(name), playerId);
+            if (former != null && !former.equals(playerId)) {
+                names.remove(former);
+            }
+            
+            if (known.size() < maxNames) {
+                known.add(name);
+            }
+            online.add(name);
+            changed |= !name.equals(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void quit(String name) {
+        lock.writeLock().lock();
+        try {
+            online.remove(name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * @return The player who last joined with the name in any case, null if nobody did
+     */
+    public Entry resolve(String name) {
+        lock.readLock().lock();
+        try {
+            UUID playerId = ids.get(key(name));
+            return playerId != null ? new Entry(playerId, names.get(playerId)) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * @return Name the player was last seen with, null if they are not known
+     */
+    public String getName(UUID playerId) {
+        lock.readLock().lock();
+        try {
+            return names.get(playerId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * @param includeOffline Also complete players that are not online
+     * @return Up to limit names starting with the prefix in any case, online players first
+     */
+    public List<String> complete(String prefix, boolean includeOffline, int limit) {
+        List<String> names = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            online.collect(prefix, limit, names);
+            if (includeOffline && names.size() < limit) {
+                Set<String> listed = new HashSet<>();
+                for (String name : names) {
+                    listed.add(key(name));
+                }
+                
+                // Online names are in the known trie too, ask for enough to skip them
+                List<String> offline = new ArrayList<>();
+                known.collect(prefix, limit + listed.size(), offline);
+                for (String name : offline) {
+                    if (names.size() >= limit) {
+                        break;
+                    }
+                    if (!listed.contains(key(name))) {
+                        names.add(name);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return names;
+    }
+    
+    /**
+     * @return Number of players whose name is known
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * @return true if anything changed since the last snapshot was written
+     */
+    public boolean isChanged() {
+        lock.readLock().lock();
+        try {
+            return changed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Write every known name to a snapshot, replacing the file atomically
+     */
+    public void writeSnapshot(File file) throws IOException {
+        Map<UUID, String> copy;
+        lock.writeLock().lock();
+        try {
+            copy = new HashMap<>(names);
+            changed = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(copy.size());
+            for (Map.Entry<UUID, String> entry : copy.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeUTF(entry.getValue());
+            }
+        } catch (IOException e) {
+            lock.writeLock().lock();
+            try {
+                changed = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Add the contents of a snapshot. Players who joined before it was read
+     * keep the name they joined with.
+     * @return Number of names read
+     */
+    public int readSnapshot(File file) throws IOException {
+        Map<UUID, String> read = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported name index snapshot");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID playerId = new UUID(in.readLong(), in.readLong());
+                read.put(playerId, in.readUTF());
+            }
+        }
+        
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<UUID, String> entry : read.entrySet()) {
+                add(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return read.size();
+    }
+    
+    private boolean add(UUID playerId, String name) {
+        if (names.containsKey(playerId) || ids.containsKey(key(name))) {
+            return false;
+        }
+        names.put(playerId, name);
+        ids.put(key(name), playerId);
+        if (known.size() < maxNames) {
+            known.add(name);
+        }
+        return true;
+    }
+    
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,167 @@
+package com.squeakybagco.lifesteal.names;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Case-insensitive prefix trie of player names.
+ * Each node keeps its children in two parallel arrays sorted by character,
+ * so a node costs a few dozen bytes and a lookup is a binary search per
+ * character. Names are stored with their original case on the node that ends
+ * them. Finding the node of a prefix takes one step per character, and from
+ * there names are walked in alphabetical order until enough are found, so a
+ * completion costs the prefix length plus the names returned, however many
+ * names are stored.
+ *
+ * Not thread safe, callers synchronize.
+ */
+class NameTrie {
+    
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    
+    private final Node root = new Node();
+    private int size;
+    
+    /**
+     * @return Number of names in the trie
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Add a name, replacing the stored case if it is already present
+     * @return true if the name was not present
+     */
+    boolean add(String name) {
+        Node node = root;
+        for (int i = 0; i < name.length(); i++) {
+            node = node.childOrCreate(Character.toLowerCase(name.charAt(i)));
+        }
+        
+        boolean added = node.name == null;
+        node.name = name;
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+    
+    /**
+     * Remove a name in any case, pruning nodes that no longer lead anywhere
+     * @return true if the name was present
+     */
+    boolean remove(String name) {
+        Node[] path = new Node[name.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < name.length(); i++) {
+            path[i + 1] = path[i].child(Character.toLowerCase(name.charAt(i)));
+            if (path[i + 1] == null) {
+                return false;
+            }
+        }
+        
+        Node node = path[name.length()];
+        if (node.name == null) {
+            return false;
+        }
+        node.name = null;
+        size--;
+        
+        for (int i = name.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(Character.toLowerCase(name.charAt(i - 1)));
+        }
+        return true;
+    }
+    
+    /**
+     * Add up to limit names starting with the prefix, in any case, to out in alphabetical order
+     */
+    void collect(String prefix, int limit, List<String> out) {
+        Node start = find(prefix);
+        if (start == null || limit <= 0) {
+            return;
+        }
+        
+        int found = 0;
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.name != null) {
+                out.add(node.name);
+                if (++found >= limit) {
+                    return;
+                }
+            }
+            // Pushed in reverse so the smallest character is visited first
+            for (int i = node.keys.length - 1; i >= 0; i--) {
+                stack.push(node.children[i]);
+            }
+        }
+    }
+    
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(Character.toLowerCase(prefix.charAt(i)));
+        }
+        return node;
+    }
+    
+    private static final class Node {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private String name;
+        
+        private Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+        
+        private Node childOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            
+            Node child = new Node();
+            newKeys[insert] = key;
+            newChildren[insert] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+        
+        private void removeChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                return;
+            }
+            
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys.length > 0 ? newKeys : NO_KEYS;
+            children = newChildren.length > 0 ? newChildren : NO_CHILDREN;
+        }
+        
+        private boolean isEmpty() {
+            return name == null && keys.length == 0;
+        }
+    }
+}
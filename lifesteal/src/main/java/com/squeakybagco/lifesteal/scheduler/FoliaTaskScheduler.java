@@ -0,0 +1,48 @@
+package com.squeakybagco.lifesteal.scheduler;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Region, entity and global schedulers of a Folia server
+ */
+class FoliaTaskScheduler extends TaskScheduler {
+    
+    FoliaTaskScheduler(Plugin plugin) {
+        super(plugin);
+    }
+    
+    @Override
+    public boolean isFolia() {
+        return true;
+    }
+    
+    @Override
+    protected void submitRegion(Location location, Runnable task, long delay) {
+        if (delay > 0) {
+            plugin.getServer().getRegionScheduler().runDelayed(plugin, location, scheduledTask -> task.run(), delay);
+        } else {
+            plugin.getServer().getRegionScheduler().run(plugin, location, scheduledTask -> task.run());
+        }
+    }
+    
+    @Override
+    protected boolean submitEntity(Entity entity, Runnable task, Runnable retired) {
+        return entity.getScheduler().run(plugin, scheduledTask -> task.run(), retired) != null;
+    }
+    
+    @Override
+    protected void submitGlobal(Runnable task, long delay) {
+        if (delay > 0) {
+            plugin.getServer().getGlobalRegionScheduler().runDelayed(plugin, scheduledTask -> task.run(), delay);
+        } else {
+            plugin.getServer().getGlobalRegionScheduler().run(plugin, scheduledTask -> task.run());
+        }
+    }
+    
+    @Override
+    protected void submitAsync(Runnable task) {
+        plugin.getServer().getAsyncScheduler().runNow(plugin, scheduledTask -> task.run());
+    }
+}
@@ -0,0 +1,68 @@
+package com.squeakybagco.lifesteal.scheduler;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Single main thread scheduler of a Paper or Spigot server
+ */
+class PaperTaskScheduler extends TaskScheduler {
+    
+    PaperTaskScheduler(Plugin plugin) {
+        super(plugin);
+    }
+    
+    @Override
+    public boolean isFolia() {
+        return false;
+    }
+    
+    @Override
+    protected void submitRegion(Location location, Runnable task, long delay) {
+        submitGlobal(task, delay);
+    }
+    
+    @Override
+    protected boolean submitEntity(Entity entity, Runnable task, Runnable retired) {
+        if (isRetired(entity)) {
+            return false;
+        }
+        
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (!isRetired(entity)) {
+                task.run();
+            } else if (retired != null) {
+                retired.run();
+            }
+        });
+        return true;
+    }
+    
+    /**
+     * Matches Folia's entity scheduler, which keeps running for a dead player
+     * until they disconnect. isValid() alone is false while a player is dead,
+     * which would drop the death message and max health update for the victim.
+     */
+    private static boolean isRetired(Entity entity) {
+        if (entity instanceof Player player) {
+            return !player.isOnline();
+        }
+        return !entity.isValid();
+    }
+    
+    @Override
+    protected void submitGlobal(Runnable task, long delay) {
+        if (delay > 0) {
+            plugin.getServer().getScheduler().runTaskLater(plugin, task, delay);
+        } else {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+    
+    @Override
+    protected void submitAsync(Runnable task) {
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task);
+    }
+}
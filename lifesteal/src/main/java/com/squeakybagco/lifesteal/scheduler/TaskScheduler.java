@@ -0,0 +1,162 @@
+package com.squeakybagco.lifesteal.scheduler;
+
+import com.squeakybagco.lifesteal.metrics.Histogram;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules plugin work on the right thread for the running server.
+ * The Folia or Paper implementation is picked once when the plugin enables,
+ * so scheduling never repeats the platform check. Every task records how
+ * long it waited between being submitted and starting to run.
+ */
+public abstract class TaskScheduler {
+    
+    /**
+     * Which scheduler a task went through
+     */
+    public enum Type {
+        REGION,
+        ENTITY,
+        GLOBAL,
+        ASYNC
+    }
+    
+    private static final long NANOS_PER_TICK = TimeUnit.MILLISECONDS.toNanos(50);
+    
+    protected final Plugin plugin;
+    private final Map<Type, Histogram> delays = new EnumMap<>(Type.class);
+    private final Map<CoalesceKey, Runnable> coalesced = new ConcurrentHashMap<>();
+    
+    protected TaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+        for (Type type : Type.values()) {
+            delays.put(type, new Histogram());
+        }
+    }
+    
+    /**
+     * Pick the implementation for the running server
+     */
+    public static TaskScheduler create(Plugin plugin) {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return new FoliaTaskScheduler(plugin);
+        } catch (ClassNotFoundException e) {
+            return new PaperTaskScheduler(plugin);
+        }
+    }
+    
+    /**
+     * @return true if running on Folia
+     */
+    public abstract boolean isFolia();
+    
+    /**
+     * Run a task on the region that owns the location
+     */
+    public void runRegion(Location location, Runnable task) {
+        submitRegion(location, timed(Type.REGION, task, 0), 0);
+    }
+    
+    /**
+     * Run a task on the region that owns the location after a delay in ticks
+     */
+    public void runRegionLater(Location location, Runnable task, long delay) {
+        submitRegion(location, timed(Type.REGION, task, delay), delay);
+    }
+    
+    /**
+     * Run a task on the thread that owns the entity
+     */
+    public void runEntity(Entity entity, Runnable task) {
+        runEntity(entity, task, null);
+    }
+    
+    /**
+     * Run a task on the thread that owns the entity
+     * @param retired Runs instead of the task if the entity is removed first, may be null
+     * @return false if the entity was already removed, neither callback will run then
+     */
+    public boolean runEntity(Entity entity, Runnable task, Runnable retired) {
+        return submitEntity(entity, timed(Type.ENTITY, task, 0), retired);
+    }
+    
+    /**
+     * Run a task on the entity's thread, replacing any task with the same key
+     * that has not run yet. Submitting a "refresh this player" task several
+     * times in a tick only runs the latest one, once.
+     */
+    public void runEntityCoalesced(Entity entity, String key, Runnable task) {
+        CoalesceKey coalesceKey = new CoalesceKey(entity.getUniqueId(), key);
+        if (coalesced.put(coalesceKey, task) != null) {
+            return; // Replaced a queued task, which will run this one instead
+        }
+        
+        Runnable drop = () -> coalesced.remove(coalesceKey);
+        boolean scheduled = runEntity(entity, () -> {
+            Runnable latest = coalesced.remove(coalesceKey);
+            if (latest != null) {
+                latest.run();
+            }
+        }, drop);
+        if (!scheduled) {
+            drop.run();
+        }
+    }
+    
+    /**
+     * Run a task on the global region
+     */
+    public void runGlobal(Runnable task) {
+        submitGlobal(timed(Type.GLOBAL, task, 0), 0);
+    }
+    
+    /**
+     * Run a task on the global region after a delay in ticks
+     */
+    public void runGlobalLater(Runnable task, long delay) {
+        submitGlobal(timed(Type.GLOBAL, task, delay), delay);
+    }
+    
+    /**
+     * Run a task off the server threads
+     */
+    public void runAsync(Runnable task) {
+        submitAsync(timed(Type.ASYNC, task, 0));
+    }
+    
+    /**
+     * @return Time tasks of a type waited past their requested delay
+     */
+    public Histogram getDelayHistogram(Type type) {
+        return delays.get(type);
+    }
+    
+    protected abstract void submitRegion(Location location, Runnable task, long delay);
+    
+    protected abstract boolean submitEntity(Entity entity, Runnable task, Runnable retired);
+    
+    protected abstract void submitGlobal(Runnable task, long delay);
+    
+    protected abstract void submitAsync(Runnable task);
+    
+    private Runnable timed(Type type, Runnable task, long delayTicks) {
+        Histogram histogram = delays.get(type);
+        long due = System.nanoTime() + delayTicks * NANOS_PER_TICK;
+        return () -> {
+            histogram.recordNanos(System.nanoTime() - due);
+            task.run();
+        };
+    }
+    
+    private record CoalesceKey(UUID entityId, String key) {
+    }
+}
@@ -0,0 +1,383 @@
+package com.squeakybagco.lifesteal.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Stores every player in a single segment file of fixed-width records.
+ * An in-memory UUID to slot index is built once on open by reading the
+ * segment sequentially, after which loads and saves are single positioned
+ * reads and writes through a {@link FileChannel}.
+ *
+ * Layout: a 16 byte header (magic, format version, record size, reserved)
+ * followed by records of
+ * uuid (16) | hearts (4) | kills (4) | deaths (4) | last death (8) |
+ * cooldown deadlines (4 x 8) | name length (1) | name (31, UTF-8) | crc32 (4)
+ *
+ * Version 1 segments, written before cooldowns were stored, and version 2
+ * segments, written before names were stored, are rewritten to the current
+ * layout the first time they are opened.
+ */
+public class BinaryPlayerDataStore implements PlayerDataStore {
+    
+    private static final int MAGIC = 0x4C535044; // "LSPD"
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_SIZE = 16;
+    private static final int NAME_SIZE = 32;
+    private static final int RECORD_SIZE = 40 + PlayerData.COOLDOWN_SLOTS * 8 + NAME_SIZE;
+    private static final int CHECKSUM_OFFSET = RECORD_SIZE - 4;
+    
+    // Record sizes of older versions, indexed by version. Each layout is a
+    // prefix of the next one, so upgrading only appends empty fields.
+    // 1: uuid | hearts | kills | deaths | last death | crc32
+    // 2: version 1 fields | cooldown deadlines | crc32
+    private static final int[] OLD_RECORD_SIZES = {0, 40, 40 + PlayerData.COOLDOWN_SLOTS * 8};
+    
+    private final Logger logger;
+    private final FileChannel channel;
+    private final Map<UUID, Integer> index;
+    private int recordCount;
+    
+    public BinaryPlayerDataStore(File file, Logger logger) throws IOException {
+        this.logger = logger;
+        this.index = new ConcurrentHashMap<>();
+        
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        upgrade(file, logger);
+        
+        this.channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        
+        if (channel.size() == 0) {
+            writeHeader();
+        } else {
+            readHeader();
+            buildIndex();
+        }
+    }
+    
+    @Override
+    public PlayerData load(UUID playerId) throws IOException {
+        Integer slot = index.get(playerId);
+        if (slot == null) {
+            return null;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        readFully(buffer, offsetOf(slot));
+        buffer.flip();
+        return decode(buffer);
+    }
+    
+    @Override
+    public void save(List<PlayerData> batch) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        for (PlayerData data : batch) {
+            buffer.clear();
+            encode(data, buffer);
+            buffer.flip();
+            writeFully(buffer, offsetOf(slotFor(data.getPlayerId())));
+        }
+        channel.force(false);
+    }
+    
+    @Override
+    public long count() {
+        return index.size();
+    }
+    
+    @Override
+    public PlayerDataScan scan(String resumeAfter) {
+        // Positions are slot numbers, the segment is read sequentially in slot order
+        int first = resumeAfter != null ? Integer.parseInt(resumeAfter) + 1 : 0;
+        
+        return new PlayerDataScan() {
+            private int next = first;
+            private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+            
+            @Override
+            public List<PlayerData> next(int max) throws IOException {
+                List<PlayerData> batch = new ArrayList<>(max);
+                int end = recordCount();
+                
+                while (batch.size() < max && next < end) {
+                    int slot = next++;
+                    buffer.clear();
+                    readFully(buffer, offsetOf(slot));
+                    buffer.flip();
+                    
+                    if (!checksumMatches(buffer, 0)) {
+                        continue; // Already reported when the index was built
+                    }
+                    PlayerData data = decode(buffer);
+                    if (Integer.valueOf(slot).equals(index.get(data.getPlayerId()))) {
+                        batch.add(data);
+                    }
+                }
+                return batch;
+            }
+            
+            @Override
+            public String position() {
+                return String.valueOf(next - 1);
+            }
+        };
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+    
+    /**
+     * @return Number of players stored in the segment
+     */
+    public int size() {
+        return index.size();
+    }
+    
+    private synchronized int recordCount() {
+        return recordCount;
+    }
+    
+    private synchronized int slotFor(UUID playerId) {
+        Integer slot = index.get(playerId);
+        if (slot == null) {
+            // New players are appended to the end of the segment
+            slot = recordCount++;
+            index.put(playerId, slot);
+        }
+        return slot;
+    }
+    
+    private static long offsetOf(int slot) {
+        return HEADER_SIZE + (long) slot * RECORD_SIZE;
+    }
+    
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(RECORD_SIZE).putInt(0);
+        header.flip();
+        writeFully(header, 0);
+        channel.force(true);
+    }
+    
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        header.flip();
+        
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a lifesteal player data segment");
+        }
+        int version = header.getInt();
+        int recordSize = header.getInt();
+        if (version != FORMAT_VERSION || recordSize != RECORD_SIZE) {
+            throw new IOException("Unsupported player data segment version " + version + " (record size " + recordSize + ")");
+        }
+    }
+    
+    private void buildIndex() throws IOException {
+        long records = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+        int corrupt = 0;
+        
+        // Read the segment sequentially in large chunks
+        long position = HEADER_SIZE;
+        int slot = 0;
+        while (slot < records) {
+            buffer.clear();
+            int chunk = (int) Math.min(1024, records - slot);
+            buffer.limit(chunk * RECORD_SIZE);
+            readFully(buffer, position);
+            buffer.flip();
+            
+            for (int i = 0; i < chunk; i++, slot++) {
+                buffer.position(i * RECORD_SIZE);
+                long most = buffer.getLong();
+                long least = buffer.getLong();
+                if (!checksumMatches(buffer, i * RECORD_SIZE)) {
+                    corrupt++;
+                    continue;
+                }
+                index.put(new UUID(most, least), slot);
+            }
+            position += (long) chunk * RECORD_SIZE;
+        }
+        
+        // A partially written trailing record is not counted, so the next append overwrites it
+        this.recordCount = (int) records;
+        if (corrupt > 0) {
+            logger.warning("Skipped " + corrupt + " corrupt record(s) in player data segment");
+        }
+    }
+    
+    private static void encode(PlayerData data, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putLong(data.getPlayerId().getMostSignificantBits());
+        buffer.putLong(data.getPlayerId().getLeastSignificantBits());
+        buffer.putInt(data.getHearts());
+        buffer.putInt(data.getKills());
+        buffer.putInt(data.getDeaths());
+        buffer.putLong(data.getLastDeath());
+        for (long deadline : data.getCooldowns()) {
+            buffer.putLong(deadline);
+        }
+        
+        byte[] name = data.getName() != null ? data.getName().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = Math.min(name.length, NAME_SIZE - 1);
+        buffer.put((byte) length);
+        buffer.put(name, 0, length);
+        buffer.put(new byte[NAME_SIZE - 1 - length]);
+        buffer.putInt(checksum(buffer, start));
+    }
+    
+    private static PlayerData decode(ByteBuffer buffer) throws IOException {
+        if (!checksumMatches(buffer, 0)) {
+            throw new IOException("Corrupt player data record");
+        }
+        
+        buffer.position(0);
+        UUID playerId = new UUID(buffer.getLong(), buffer.getLong());
+        int hearts = buffer.getInt();
+        int kills = buffer.getInt();
+        int deaths = buffer.getInt();
+        long lastDeath = buffer.getLong();
+        long[] cooldowns = new long[PlayerData.COOLDOWN_SLOTS];
+        for (int i = 0; i < cooldowns.length; i++) {
+            cooldowns[i] = buffer.getLong();
+        }
+        
+        int length = Math.min(buffer.get() & 0xFF, NAME_SIZE - 1);
+        byte[] name = new byte[length];
+        buffer.get(name);
+        return new PlayerData(playerId, hearts, lastDeath, kills, deaths, cooldowns, new String(name, StandardCharsets.UTF_8));
+    }
+    
+    private static boolean checksumMatches(ByteBuffer buffer, int start) {
+        return buffer.getInt(start + CHECKSUM_OFFSET) == checksum(buffer, start);
+    }
+    
+    private static int checksum(ByteBuffer buffer, int start) {
+        return checksum(buffer, start, CHECKSUM_OFFSET);
+    }
+    
+    private static int checksum(ByteBuffer buffer, int start, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, length);
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * Rewrite an older segment in the current layout, leaving the fields it
+     * did not store empty. The new segment is written beside the old one and
+     * moved over it, and the old segment is kept as a backup.
+     */
+    private static void upgrade(File file, Logger logger) throws IOException {
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            return;
+        }
+        
+        File upgraded = new File(file.getPath() + ".upgrade");
+        int copied = 0;
+        int version;
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            fill(in, header);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                return; // Not ours, readHeader reports it
+            }
+            version = header.getInt();
+            if (version < 1 || version >= OLD_RECORD_SIZES.length || header.getInt() != OLD_RECORD_SIZES[version]) {
+                return; // Current version, or unknown, readHeader reports it
+            }
+            int oldSize = OLD_RECORD_SIZES[version];
+            
+            try (FileChannel out = FileChannel.open(upgraded.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer newHeader = ByteBuffer.allocate(HEADER_SIZE);
+                newHeader.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(RECORD_SIZE).putInt(0);
+                newHeader.flip();
+                out.write(newHeader);
+                
+                ByteBuffer oldRecord = ByteBuffer.allocate(oldSize);
+                ByteBuffer newRecord = ByteBuffer.allocate(RECORD_SIZE);
+                while (true) {
+                    oldRecord.clear();
+                    if (!fill(in, oldRecord)) {
+                        break; // End of segment, or a torn trailing record
+                    }
+                    if (oldRecord.getInt(oldSize - 4) != checksum(oldRecord, 0, oldSize - 4)) {
+                        continue; // Corrupt, dropped like buildIndex would skip it
+                    }
+                    
+                    newRecord.clear();
+                    newRecord.put(oldRecord.array(), 0, oldSize - 4);
+                    newRecord.put(new byte[CHECKSUM_OFFSET - (oldSize - 4)]);
+                    newRecord.putInt(checksum(newRecord, 0));
+                    newRecord.flip();
+                    while (newRecord.hasRemaining()) {
+                        out.write(newRecord);
+                    }
+                    copied++;
+                }
+                out.force(true);
+            }
+        }
+        
+        File backup = new File(file.getPath() + ".v" + version);
+        Files.move(file.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(upgraded.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Upgraded player data segment to version " + FORMAT_VERSION + " (" + copied + " records), "
+            + "the old segment was kept as " + backup.getName());
+    }
+    
+    /**
+     * Read sequentially until the buffer is full or the channel ends
+     * @return false if the channel ended first
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of player data segment");
+            }
+            position += read;
+        }
+    }
+    
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
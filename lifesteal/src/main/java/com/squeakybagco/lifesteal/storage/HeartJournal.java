@@ -0,0 +1,325 @@
+package com.squeakybagco.lifesteal.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of heart changes.
+ * Every change is one record holding the resulting hearts of each player it
+ * touched, so a two-party transfer is replayed completely or not at all.
+ * Each entry carries the stamp of the change that produced it. Threads append
+ * in arrival order rather than in the order their changes happened, so replay
+ * keeps the entry with the highest stamp per player, not the last one read.
+ * Records are queued by the caller and group-committed by a single thread
+ * with one fsync per commit interval, never one per change.
+ *
+ * Once the changes in a sealed segment have reached the main store the
+ * segment is deleted; anything left on startup is replayed.
+ *
+ * Record layout: length (4) | reason (1) | timestamp (8) | count (1) |
+ * count x [uuid (16) | hearts (4) | stamp (8)] | crc32 of everything after length (4)
+ *
+ * Segments written before entries were stamped have no stamp field; their
+ * entries count as older than any stamped one and are kept in journal order.
+ */
+public class HeartJournal {
+    
+    /**
+     * What caused a journaled heart change
+     */
+    public enum Reason {
+        STEAL,
+        WITHDRAW,
+        CONSUME,
+        ADMIN_SET,
+        BULK
+    }
+    
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int ENTRY_SIZE = 28;
+    private static final int UNSTAMPED_ENTRY_SIZE = 20;
+    private static final int HEADER_SIZE = 10;
+    
+    private final File folder;
+    private final Logger logger;
+    private final ConcurrentLinkedQueue<ByteBuffer> queue;
+    private final ScheduledExecutorService committer;
+    
+    // Only touched on the committer thread
+    private FileChannel channel;
+    private int segment;
+    
+    /**
+     * Open a new journal segment. Call {@link #replay(File, Logger)} first to
+     * recover anything left by a previous run.
+     * @param commitIntervalMillis Time between group commits
+     */
+    public HeartJournal(File folder, Logger logger, long commitIntervalMillis) throws IOException {
+        this.folder = folder;
+        this.logger = logger;
+        this.queue = new ConcurrentLinkedQueue<>();
+        
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        
+        List<File> existing = listSegments(folder);
+        this.segment = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1)) + 1;
+        this.channel = openSegment(segment);
+        
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Lifesteal-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, commitIntervalMillis);
+        committer.scheduleWithFixedDelay(this::commit, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Journal a single player's new heart count
+     * @param state The state the change left the player in, as returned by the change
+     */
+    public void append(Reason reason, UUID playerId, PlayerData.HeartState state) {
+        ByteBuffer record = startRecord(reason, 1);
+        putEntry(record, playerId, state);
+        queue.add(finishRecord(record));
+    }
+    
+    /**
+     * Journal both sides of a transfer as one record
+     */
+    public void append(Reason reason, UUID firstId, PlayerData.HeartState first, UUID secondId, PlayerData.HeartState second) {
+        ByteBuffer record = startRecord(reason, 2);
+        putEntry(record, firstId, first);
+        putEntry(record, secondId, second);
+        queue.add(finishRecord(record));
+    }
+    
+    /**
+     * Seal the current segment and start a new one. Records appended after the
+     * returned future completes go to the new segment.
+     * @return The sealed segments, safe to delete once every change made before
+     *         this call has been written to the main store
+     */
+    public CompletableFuture<List<File>> rotate() {
+        return CompletableFuture.supplyAsync(() -> {
+            commit();
+            try {
+                channel.close();
+                segment++;
+                channel = openSegment(segment);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not rotate heart journal: " + e.getMessage(), e);
+            }
+            
+            List<File> sealed = new ArrayList<>();
+            for (File file : listSegments(folder)) {
+                if (segmentNumber(file) < segment) {
+                    sealed.add(file);
+                }
+            }
+            return sealed;
+        }, committer);
+    }
+    
+    /**
+     * Delete sealed segments whose changes are now in the main store
+     */
+    public void delete(List<File> sealed) {
+        for (File file : sealed) {
+            if (!file.delete()) {
+                logger.warning("Could not delete compacted journal segment " + file.getName());
+            }
+        }
+    }
+    
+    /**
+     * Commit anything still queued and close the journal
+     */
+    public void close() {
+        committer.shutdown();
+        try {
+            committer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        commit();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warning("Could not close heart journal: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Write every queued record with a single fsync
+     */
+    private synchronized void commit() {
+        if (queue.isEmpty() || !channel.isOpen()) {
+            return;
+        }
+        
+        List<ByteBuffer> records = new ArrayList<>();
+        ByteBuffer record;
+        while ((record = queue.poll()) != null) {
+            records.add(record);
+        }
+        
+        try {
+            ByteBuffer[] buffers = records.toArray(new ByteBuffer[0]);
+            long remaining = 0;
+            for (ByteBuffer buffer : buffers) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            logger.severe("Could not commit " + records.size() + " heart journal records: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Read every segment left by a previous run
+     * @return The newest journaled heart count per player
+     */
+    public static Map<UUID, PlayerData.HeartState> replay(File folder, Logger logger) {
+        Map<UUID, PlayerData.HeartState> hearts = new HashMap<>();
+        
+        for (File file : listSegments(folder)) {
+            int records = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    int length = in.readInt();
+                    if (length < HEADER_SIZE || length > HEADER_SIZE + 255 * ENTRY_SIZE) {
+                        break; // Torn or garbage tail
+                    }
+                    
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    int checksum = in.readInt();
+                    if (checksum != crc(payload, 0, length)) {
+                        break; // Record was not fully written before the crash
+                    }
+                    
+                    ByteBuffer record = ByteBuffer.wrap(payload);
+                    record.position(HEADER_SIZE - 1);
+                    int count = record.get() & 0xFF;
+                    boolean stamped = length == HEADER_SIZE + count * ENTRY_SIZE;
+                    if (!stamped && length != HEADER_SIZE + count * UNSTAMPED_ENTRY_SIZE) {
+                        break; // Header does not match its own length
+                    }
+                    for (int i = 0; i < count; i++) {
+                        UUID playerId = new UUID(record.getLong(), record.getLong());
+                        int value = record.getInt();
+                        long stamp = stamped ? record.getLong() : 0;
+                        
+                        // Ties are unstamped entries, the later one read is the newer
+                        PlayerData.HeartState previous = hearts.get(playerId);
+                        if (previous == null || stamp >= previous.stamp()) {
+                            hearts.put(playerId, new PlayerData.HeartState(value, 0, stamp));
+                        }
+                    }
+                    records++;
+                }
+            } catch (EOFException e) {
+                // End of segment
+            } catch (IOException e) {
+                logger.severe("Could not read heart journal segment " + file.getName() + ": " + e.getMessage());
+            }
+            logger.info("Replayed " + records + " heart journal records from " + file.getName());
+        }
+        
+        return hearts;
+    }
+    
+    /**
+     * Delete every segment, used after a successful replay
+     */
+    public static void clear(File folder) {
+        for (File file : listSegments(folder)) {
+            file.delete();
+        }
+    }
+    
+    private static ByteBuffer startRecord(Reason reason, int count) {
+        int length = HEADER_SIZE + count * ENTRY_SIZE;
+        ByteBuffer record = ByteBuffer.allocate(4 + length + 4);
+        record.putInt(length);
+        record.put((byte) reason.ordinal());
+        record.putLong(System.currentTimeMillis());
+        record.put((byte) count);
+        return record;
+    }
+    
+    private static void putEntry(ByteBuffer record, UUID playerId, PlayerData.HeartState state) {
+        record.putLong(playerId.getMostSignificantBits());
+        record.putLong(playerId.getLeastSignificantBits());
+        record.putInt(state.hearts());
+        record.putLong(state.stamp());
+    }
+    
+    private static ByteBuffer finishRecord(ByteBuffer record) {
+        record.putInt(crc(record.array(), 4, record.position() - 4));
+        record.flip();
+        return record;
+    }
+    
+    private static int crc(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+    
+    private FileChannel openSegment(int number) throws IOException {
+        File file = new File(folder, PREFIX + number + SUFFIX);
+        return FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    private static List<File> listSegments(File folder) {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.removeIf(file -> segmentNumber(file) < 0);
+        segments.sort(Comparator.comparingInt(HeartJournal::segmentNumber));
+        return segments;
+    }
+    
+    private static int segmentNumber(File file) {
+        String name = file.getName();
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
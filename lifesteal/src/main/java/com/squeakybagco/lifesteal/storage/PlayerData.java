@@ -1,21 +1,90 @@
 package com.squeakybagco.lifesteal.storage;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * A player's stored numbers. Fields are updated lock-free with compare-and-set,
+ * so a region thread and an entity scheduler changing the same player at the
+ * same time never lose each other's update, and unrelated players never contend.
+ */
 public class PlayerData {
     
+    /**
+     * Cooldown deadlines stored per player, fixed so storage formats can
+     * reserve room for them
+     */
+    public static final int COOLDOWN_SLOTS = 4;
+    
+    /**
+     * Hearts together with the stamp of the change that set them
+     * @param change Hearts the change added, negative if it removed some
+     * @param stamp Increases with every heart change of any player, so of two
+     *              states of one player the higher stamp is always the newer one
+     */
+    public record HeartState(int hearts, int change, long stamp) {
+    }
+    
+    /**
+     * Result of {@link #transferHearts}, with the state each side was left in
+     */
+    public record Transfer(int moved, HeartState from, HeartState to) {
+    }
+    
+    // Source of heart change stamps, continued past the journal after a restart
+    private static final AtomicLong STAMPS = new AtomicLong();
+    
+    private static final VarHandle HEARTS;
+    private static final VarHandle KILLS;
+    private static final VarHandle DEATHS;
+    
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEARTS = lookup.findVarHandle(PlayerData.class, "hearts", HeartState.class);
+            KILLS = lookup.findVarHandle(PlayerData.class, "kills", int.class);
+            DEATHS = lookup.findVarHandle(PlayerData.class, "deaths", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
     private final UUID playerId;
-    private int hearts;
-    private long lastDeath;
-    private int kills;
-    private int deaths;
+    private volatile HeartState hearts;
+    private volatile long lastDeath;
+    private volatile int kills;
+    private volatile int deaths;
+    
+    // Name the player last joined with, null until they join once
+    private volatile String name;
+    
+    // Epoch millis each cooldown ends at, 0 when it never ran
+    private final AtomicLongArray cooldowns;
+    
+    // Bumped by every setter, compared against the last version written to disk
+    private final AtomicLong version = new AtomicLong();
+    private volatile long savedVersion;
     
     public PlayerData(UUID playerId, int hearts, long lastDeath, int kills, int deaths) {
+        this(playerId, hearts, lastDeath, kills, deaths, new long[COOLDOWN_SLOTS], null);
+    }
+    
+    /**
+     * @param cooldowns Stored cooldown deadlines, extra slots are ignored and missing ones are 0
+     * @param name Last known name, null or empty if not stored
+     */
+    public PlayerData(UUID playerId, int hearts, long lastDeath, int kills, int deaths, long[] cooldowns, String name) {
         this.playerId = playerId;
-        this.hearts = hearts;
+        this.name = name == null || name.isEmpty() ? null : name;
+        this.hearts = new HeartState(hearts, 0, 0);
         this.lastDeath = lastDeath;
         this.kills = kills;
         this.deaths = deaths;
+        this.cooldowns = new AtomicLongArray(Arrays.copyOf(cooldowns, COOLDOWN_SLOTS));
     }
     
     public UUID getPlayerId() {
@@ -23,11 +92,108 @@ public class PlayerData {
     }
     
     public int getHearts() {
+        return hearts.hearts();
+    }
+    
+    /**
+     * @return Current hearts with the stamp of the change that set them, read together
+     */
+    public HeartState getHeartState() {
         return hearts;
     }
     
-    public void setHearts(int hearts) {
-        this.hearts = hearts;
+    /**
+     * @return The state this set, to journal
+     */
+    public HeartState setHearts(int hearts) {
+        while (true) {
+            HeartState current = this.hearts;
+            HeartState next = nextState(current, hearts);
+            if (HEARTS.compareAndSet(this, current, next)) {
+                version.incrementAndGet();
+                return next;
+            }
+        }
+    }
+    
+    /**
+     * Atomically change hearts by a delta. Decreases stop at the minimum and
+     * increases stop at the maximum; a value already past a bound is left alone.
+     * @return The state after the change, its change is the amount actually applied
+     */
+    public HeartState addHearts(int delta, int minHearts, int maxHearts) {
+        while (true) {
+            HeartState current = hearts;
+            int value = current.hearts();
+            int target = value + delta;
+            if (delta < 0) {
+                target = Math.max(target, Math.min(value, minHearts));
+            } else {
+                target = Math.min(target, Math.max(value, maxHearts));
+            }
+            
+            if (target == value) {
+                return new HeartState(value, 0, current.stamp());
+            }
+            HeartState next = nextState(current, target);
+            if (HEARTS.compareAndSet(this, current, next)) {
+                version.incrementAndGet();
+                return next;
+            }
+        }
+    }
+    
+    /**
+     * Atomically remove hearts only if the result stays at or above the minimum
+     * @return The state after the change, or null if the player did not have
+     *         enough hearts and nothing was changed
+     */
+    public HeartState tryRemoveHearts(int amount, int minHearts) {
+        while (true) {
+            HeartState current = hearts;
+            if (current.hearts() - amount < minHearts) {
+                return null;
+            }
+            HeartState next = nextState(current, current.hearts() - amount);
+            if (HEARTS.compareAndSet(this, current, next)) {
+                version.incrementAndGet();
+                return next;
+            }
+        }
+    }
+    
+    /**
+     * Move hearts from one player to another without a lock. The source is
+     * debited down to the minimum, the target credited up to the maximum, and
+     * whatever the target could not take is refunded, so hearts are never
+     * created or lost even when either side changes concurrently.
+     * @return Hearts actually moved and the state each side was left in
+     */
+    public static Transfer transferHearts(PlayerData from, PlayerData to, int amount, int minHearts, int maxHearts) {
+        HeartState debited = from.addHearts(-amount, minHearts, Integer.MAX_VALUE);
+        int taken = -debited.change();
+        if (taken <= 0) {
+            return new Transfer(0, debited, to.getHeartState());
+        }
+        
+        HeartState credited = to.addHearts(taken, Integer.MIN_VALUE, maxHearts);
+        int given = credited.change();
+        if (given < taken) {
+            debited = from.addHearts(taken - given, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        return new Transfer(given, debited, credited);
+    }
+    
+    /**
+     * Make sure stamps handed out from now on are above every journaled one
+     */
+    public static void advanceStamps(long journaled) {
+        STAMPS.accumulateAndGet(journaled, Math::max);
+    }
+    
+    private static HeartState nextState(HeartState current, int hearts) {
+        // Taken after current was read, so it is higher than the stamp of the state it replaces
+        return new HeartState(hearts, hearts - current.hearts(), STAMPS.incrementAndGet());
     }
     
     public long getLastDeath() {
@@ -36,6 +202,7 @@ public class PlayerData {
     
     public void setLastDeath(long lastDeath) {
         this.lastDeath = lastDeath;
+        version.incrementAndGet();
     }
     
     public int getKills() {
@@ -44,6 +211,12 @@ public class PlayerData {
     
     public void setKills(int kills) {
         this.kills = kills;
+        version.incrementAndGet();
+    }
+    
+    public void incrementKills() {
+        KILLS.getAndAdd(this, 1);
+        version.incrementAndGet();
     }
     
     public int getDeaths() {
@@ -52,6 +225,101 @@ public class PlayerData {
     
     public void setDeaths(int deaths) {
         this.deaths = deaths;
+        version.incrementAndGet();
+    }
+    
+    /**
+     * Count a death and record when it happened
+     */
+    public void recordDeath(long time) {
+        DEATHS.getAndAdd(this, 1);
+        lastDeath = time;
+        version.incrementAndGet();
+    }
+    
+    /**
+     * @return Name the player last joined with, null if they never joined since it was stored
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Remember the player's current name, only marks the record changed if it differs
+     */
+    public void setName(String name) {
+        if (!name.equals(this.name)) {
+            this.name = name;
+            version.incrementAndGet();
+        }
+    }
+    
+    /**
+     * @return Epoch millis the cooldown in a slot ends at, 0 if it never ran
+     */
+    public long getCooldown(int slot) {
+        return cooldowns.get(slot);
+    }
+    
+    public void setCooldown(int slot, long deadline) {
+        cooldowns.set(slot, deadline);
+        version.incrementAndGet();
+    }
+    
+    /**
+     * @return Every cooldown deadline, for storage
+     */
+    public long[] getCooldowns() {
+        long[] deadlines = new long[COOLDOWN_SLOTS];
+        for (int i = 0; i < COOLDOWN_SLOTS; i++) {
+            deadlines[i] = cooldowns.get(i);
+        }
+        return deadlines;
+    }
+    
+    /**
+     * Create a detached copy of this record, safe to hand to another thread.
+     * The copy carries the modification version it was taken at.
+     */
+    public PlayerData copy() {
+        // Read the version first so a concurrent change can only make the copy newer, never older
+        long copyVersion = version.get();
+        PlayerData copy = new PlayerData(playerId, 0, lastDeath, kills, deaths, getCooldowns(), name);
+        copy.hearts = hearts;
+        copy.version.set(copyVersion);
+        copy.savedVersion = savedVersion;
+        return copy;
+    }
+    
+    /**
+     * @return Modification counter, increased by every setter
+     */
+    public long getVersion() {
+        return version.get();
+    }
+    
+    /**
+     * @return true if this record changed since it was last written
+     */
+    public boolean isDirty() {
+        return version.get() != savedVersion;
+    }
+    
+    /**
+     * Flag this record as changed without touching any field
+     */
+    public void markDirty() {
+        version.incrementAndGet();
+    }
+    
+    /**
+     * Record that the given version has been written.
+     * Older versions finishing late never hide a newer change.
+     */
+    public synchronized void markSaved(long savedVersion) {
+        if (savedVersion > this.savedVersion) {
+            this.savedVersion = savedVersion;
+        }
     }
     
     public double getKDRatio() {
@@ -65,7 +333,8 @@ public class PlayerData {
     public String toString() {
         return "PlayerData{" +
                 "playerId=" + playerId +
-                ", hearts=" + hearts +
+                ", name=" + name +
+                ", hearts=" + hearts.hearts() +
                 ", lastDeath=" + lastDeath +
                 ", kills=" + kills +
                 ", deaths=" + deaths +
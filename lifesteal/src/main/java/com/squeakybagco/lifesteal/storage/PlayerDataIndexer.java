@@ -0,0 +1,299 @@
+package com.squeakybagco.lifesteal.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Builds a summary of every playerdata/&lt;uuid&gt;.yml file at startup.
+ * The directory listing is split across a fork-join pool and each file is
+ * read with a minimal parser that only extracts the numeric fields, instead
+ * of a full {@code YamlConfiguration}. The summary is written to a snapshot
+ * together with each file's modification time, so later starts only parse
+ * files that changed since.
+ *
+ * Snapshot layout: magic (4) | version (4) | count (4) | count x
+ * [uuid (16) | modified (8) | hearts (4) | kills (4) | deaths (4) | last death (8)]
+ */
+public class PlayerDataIndexer {
+    
+    /**
+     * The numeric fields of one player file
+     */
+    public record Entry(UUID playerId, long modified, int hearts, int kills, int deaths, long lastDeath) {
+    }
+    
+    /**
+     * Everything found by one index run
+     * @param parsed Files that were parsed because the snapshot did not cover them
+     */
+    public record Result(List<Entry> entries, int parsed, long elapsedMillis) {
+        
+        /**
+         * @return Hearts held by all players together, in half-hearts
+         */
+        public long getTotalHearts() {
+            long total = 0;
+            for (Entry entry : entries) {
+                total += entry.hearts();
+            }
+            return total;
+        }
+    }
+    
+    private static final int SNAPSHOT_MAGIC = 0x4C535049; // "LSPI"
+    private static final int SNAPSHOT_VERSION = 1;
+    
+    // Files handled by one fork-join leaf
+    private static final int SPLIT_THRESHOLD = 256;
+    
+    private final File dataFolder;
+    private final File snapshotFile;
+    private final Logger logger;
+    
+    public PlayerDataIndexer(File dataFolder, File snapshotFile, Logger logger) {
+        this.dataFolder = dataFolder;
+        this.snapshotFile = snapshotFile;
+        this.logger = logger;
+    }
+    
+    /**
+     * Index the data folder and refresh the snapshot. Blocks, run off the main thread.
+     * @param defaultHearts Used for files without a hearts field
+     */
+    public Result index(int defaultHearts) {
+        long start = System.nanoTime();
+        
+        Map<UUID, Entry> previous = readSnapshot();
+        String[] names = dataFolder.list((dir, name) -> name.endsWith(".yml"));
+        if (names == null) {
+            names = new String[0];
+        }
+        
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        Scan scan;
+        try {
+            scan = pool.invoke(new ScanTask(names, 0, names.length, previous, defaultHearts));
+        } finally {
+            pool.shutdown();
+        }
+        
+        if (scan.parsed > 0 || previous.size() != scan.entries.size()) {
+            writeSnapshot(scan.entries);
+        }
+        
+        return new Result(scan.entries, scan.parsed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    private class ScanTask extends RecursiveTask<Scan> {
+        
+        private final String[] names;
+        private final int from;
+        private final int to;
+        private final Map<UUID, Entry> previous;
+        private final int defaultHearts;
+        
+        private ScanTask(String[] names, int from, int to, Map<UUID, Entry> previous, int defaultHearts) {
+            this.names = names;
+            this.from = from;
+            this.to = to;
+            this.previous = previous;
+            this.defaultHearts = defaultHearts;
+        }
+        
+        @Override
+        protected Scan compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(names, from, middle, previous, defaultHearts);
+                left.fork();
+                Scan right = new ScanTask(names, middle, to, previous, defaultHearts).compute();
+                Scan merged = left.join();
+                merged.entries.addAll(right.entries);
+                merged.parsed += right.parsed;
+                return merged;
+            }
+            
+            Scan scan = new Scan(to - from);
+            for (int i = from; i < to; i++) {
+                String name = names[i];
+                UUID playerId;
+                try {
+                    playerId = UUID.fromString(name.substring(0, name.length() - 4));
+                } catch (IllegalArgumentException e) {
+                    continue; // Not a player file
+                }
+                
+                File file = new File(dataFolder, name);
+                long modified = file.lastModified();
+                Entry known = previous.get(playerId);
+                if (known != null && known.modified() == modified) {
+                    scan.entries.add(known);
+                    continue;
+                }
+                
+                try {
+                    scan.entries.add(parse(playerId, file, modified, defaultHearts));
+                    scan.parsed++;
+                } catch (IOException e) {
+                    logger.warning("Could not index " + name + ": " + e.getMessage());
+                }
+            }
+            return scan;
+        }
+    }
+    
+    private static class Scan {
+        private final List<Entry> entries;
+        private int parsed;
+        
+        private Scan(int capacity) {
+            this.entries = new ArrayList<>(capacity);
+        }
+    }
+    
+    /**
+     * Read the numeric top-level fields of a player file without a YAML parser.
+     * Only understands the flat "key: number" lines the plugin writes.
+     */
+    static Entry parse(UUID playerId, File file, long modified, int defaultHearts) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        long hearts = defaultHearts;
+        long kills = 0;
+        long deaths = 0;
+        long lastDeath = 0;
+        
+        int lineStart = 0;
+        while (lineStart < data.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < data.length && data[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            
+            int colon = lineStart;
+            while (colon < lineEnd && data[colon] != ':') {
+                colon++;
+            }
+            
+            if (colon < lineEnd) {
+                long value = parseNumber(data, colon + 1, lineEnd);
+                if (value != Long.MIN_VALUE) {
+                    if (matches(data, lineStart, colon, "hearts")) {
+                        hearts = value;
+                    } else if (matches(data, lineStart, colon, "kills")) {
+                        kills = value;
+                    } else if (matches(data, lineStart, colon, "deaths")) {
+                        deaths = value;
+                    } else if (matches(data, lineStart, colon, "last-death")) {
+                        lastDeath = value;
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        
+        return new Entry(playerId, modified, (int) hearts, (int) kills, (int) deaths, lastDeath);
+    }
+    
+    private static boolean matches(byte[] data, int from, int to, String key) {
+        if (to - from != key.length()) {
+            return false; // Also rejects indented, nested keys
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (data[from + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * @return The number between the offsets, ignoring spaces and quotes, or Long.MIN_VALUE if there is none
+     */
+    private static long parseNumber(byte[] data, int from, int to) {
+        while (from < to && (data[from] == ' ' || data[from] == '\'' || data[from] == '"')) {
+            from++;
+        }
+        
+        boolean negative = from < to && data[from] == '-';
+        if (negative) {
+            from++;
+        }
+        
+        long value = 0;
+        int digits = 0;
+        while (from < to && data[from] >= '0' && data[from] <= '9') {
+            value = value * 10 + (data[from] - '0');
+            from++;
+            digits++;
+        }
+        
+        if (digits == 0 || digits > 18) {
+            return Long.MIN_VALUE;
+        }
+        return negative ? -value : value;
+    }
+    
+    private Map<UUID, Entry> readSnapshot() {
+        Map<UUID, Entry> entries = new HashMap<>();
+        if (!snapshotFile.exists()) {
+            return entries;
+        }
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                logger.warning("Ignoring player index snapshot from another version");
+                return entries;
+            }
+            
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID playerId = new UUID(in.readLong(), in.readLong());
+                entries.put(playerId, new Entry(playerId, in.readLong(), in.readInt(), in.readInt(), in.readInt(), in.readLong()));
+            }
+        } catch (IOException e) {
+            logger.warning("Could not read player index snapshot, doing a full scan: " + e.getMessage());
+            entries.clear();
+        }
+        return entries;
+    }
+    
+    private void writeSnapshot(List<Entry> entries) {
+        File temp = new File(snapshotFile.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    out.writeLong(entry.playerId().getMostSignificantBits());
+                    out.writeLong(entry.playerId().getLeastSignificantBits());
+                    out.writeLong(entry.modified());
+                    out.writeInt(entry.hearts());
+                    out.writeInt(entry.kills());
+                    out.writeInt(entry.deaths());
+                    out.writeLong(entry.lastDeath());
+                }
+            }
+            Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warning("Could not write player index snapshot: " + e.getMessage());
+        }
+    }
+}
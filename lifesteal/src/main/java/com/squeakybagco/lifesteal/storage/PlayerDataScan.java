@@ -0,0 +1,29 @@
+package com.squeakybagco.lifesteal.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Forward-only cursor over every record in a {@link PlayerDataStore}
+ */
+public interface PlayerDataScan extends Closeable {
+    
+    /**
+     * Read the next records
+     * @param max Maximum number of records to return
+     * @return The next records, empty once the scan is complete
+     */
+    List<PlayerData> next(int max) throws IOException;
+    
+    /**
+     * @return Token identifying the last record returned, which can be passed
+     *         back to {@link PlayerDataStore#scan(String)} to resume after it
+     */
+    String position();
+    
+    @Override
+    default void close() throws IOException {
+        // Most scans hold no resources between batches
+    }
+}
@@ -0,0 +1,42 @@
+package com.squeakybagco.lifesteal.storage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Backend that persists {@link PlayerData} records.
+ * Implementations must be safe to call from the write-behind thread and from
+ * whichever thread loads a player at the same time.
+ */
+public interface PlayerDataStore {
+    
+    /**
+     * Load a single player's record
+     * @param playerId The player to load
+     * @return The stored record, or null if the player has none
+     */
+    PlayerData load(UUID playerId) throws IOException;
+    
+    /**
+     * Persist a batch of records, replacing any stored versions
+     * @param batch Snapshots to write
+     */
+    void save(List<PlayerData> batch) throws IOException;
+    
+    /**
+     * Count the stored records, used for progress reporting
+     */
+    long count() throws IOException;
+    
+    /**
+     * Stream every stored record in a stable order without loading them all at once
+     * @param resumeAfter Position from {@link PlayerDataScan#position()} to continue after, or null to start at the beginning
+     */
+    PlayerDataScan scan(String resumeAfter) throws IOException;
+    
+    /**
+     * Flush and release any resources held by the store
+     */
+    void close() throws IOException;
+}
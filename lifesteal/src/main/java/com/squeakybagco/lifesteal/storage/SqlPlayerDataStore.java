@@ -0,0 +1,283 @@
+package com.squeakybagco.lifesteal.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC backed store using a pooled connection.
+ * Works with an embedded SQLite file or a shared MySQL/MariaDB server, so
+ * several servers can point at the same table.
+ * Each batch handed over by the write-behind queue is written as one
+ * transaction of batched upserts.
+ */
+public class SqlPlayerDataStore implements PlayerDataStore {
+    
+    private static final String TABLE = "lifesteal_players";
+    
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+        + "uuid CHAR(36) NOT NULL PRIMARY KEY, "
+        + "hearts INT NOT NULL, "
+        + "kills INT NOT NULL, "
+        + "deaths INT NOT NULL, "
+        + "last_death BIGINT NOT NULL, "
+        + "cooldowns VARCHAR(128) NOT NULL DEFAULT '', "
+        + "name VARCHAR(32) NOT NULL DEFAULT '', "
+        + "last_updated BIGINT NOT NULL)";
+    
+    // Tables created before cooldowns and names were stored
+    private static final String ADD_COOLDOWNS = "ALTER TABLE " + TABLE + " ADD COLUMN cooldowns VARCHAR(128) NOT NULL DEFAULT ''";
+    private static final String ADD_NAME = "ALTER TABLE " + TABLE + " ADD COLUMN name VARCHAR(32) NOT NULL DEFAULT ''";
+    
+    private static final String SELECT = "SELECT hearts, kills, deaths, last_death, cooldowns, name FROM " + TABLE + " WHERE uuid = ?";
+    
+    private static final String COUNT = "SELECT COUNT(*) FROM " + TABLE;
+    
+    // Keyset pagination so every page is an index range scan no matter how far in
+    private static final String SCAN = "SELECT uuid, hearts, kills, deaths, last_death, cooldowns, name FROM " + TABLE
+        + " WHERE uuid > ? ORDER BY uuid LIMIT ?";
+    
+    private static final String INSERT = "INSERT INTO " + TABLE
+        + " (uuid, hearts, kills, deaths, last_death, cooldowns, name, last_updated) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String UPSERT_SQLITE = INSERT
+        + " ON CONFLICT(uuid) DO UPDATE SET hearts = excluded.hearts, kills = excluded.kills,"
+        + " deaths = excluded.deaths, last_death = excluded.last_death, cooldowns = excluded.cooldowns,"
+        + " name = excluded.name, last_updated = excluded.last_updated";
+    
+    private static final String UPSERT_MYSQL = INSERT
+        + " ON DUPLICATE KEY UPDATE hearts = VALUES(hearts), kills = VALUES(kills),"
+        + " deaths = VALUES(deaths), last_death = VALUES(last_death), cooldowns = VALUES(cooldowns),"
+        + " name = VALUES(name), last_updated = VALUES(last_updated)";
+    
+    private final HikariDataSource dataSource;
+    private final String upsert;
+    
+    private SqlPlayerDataStore(HikariConfig config, String upsert) throws IOException {
+        this.upsert = upsert;
+        try {
+            this.dataSource = new HikariDataSource(config);
+        } catch (RuntimeException e) {
+            throw new IOException("Could not connect to database: " + e.getMessage(), e);
+        }
+        
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(CREATE_TABLE);
+            if (!hasColumn(connection, "cooldowns")) {
+                statement.executeUpdate(ADD_COOLDOWNS);
+            }
+            if (!hasColumn(connection, "name")) {
+                statement.executeUpdate(ADD_NAME);
+            }
+        } catch (SQLException e) {
+            dataSource.close();
+            throw new IOException("Could not create player table: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Open an embedded SQLite database file
+     */
+    public static SqlPlayerDataStore sqlite(File file, int poolSize) throws IOException {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("Lifesteal-SQLite");
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl("jdbc:sqlite:" + file.getAbsolutePath());
+        config.setMaximumPoolSize(Math.max(1, poolSize));
+        // WAL lets reads proceed while the write-behind thread commits
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("busy_timeout", "5000");
+        return new SqlPlayerDataStore(config, UPSERT_SQLITE);
+    }
+    
+    /**
+     * Connect to a MySQL or MariaDB server
+     */
+    public static SqlPlayerDataStore mysql(String host, int port, String database, String username,
+                                           String password, int poolSize) throws IOException {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("Lifesteal-MySQL");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + database);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(Math.max(1, poolSize));
+        // Send each batch as multi-row statements instead of one round trip per row
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "25");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        return new SqlPlayerDataStore(config, UPSERT_MYSQL);
+    }
+    
+    @Override
+    public PlayerData load(UUID playerId) throws IOException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            statement.setString(1, playerId.toString());
+            
+            try (ResultSet result = statement.executeQuery()) {
+                if (!result.next()) {
+                    return null;
+                }
+                return read(playerId, result);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not load " + playerId + ": " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public void save(List<PlayerData> batch) throws IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            
+            try (PreparedStatement statement = connection.prepareStatement(upsert)) {
+                long now = System.currentTimeMillis();
+                for (PlayerData data : batch) {
+                    statement.setString(1, data.getPlayerId().toString());
+                    statement.setInt(2, data.getHearts());
+                    statement.setInt(3, data.getKills());
+                    statement.setInt(4, data.getDeaths());
+                    statement.setLong(5, data.getLastDeath());
+                    statement.setString(6, encodeCooldowns(data.getCooldowns()));
+                    statement.setString(7, data.getName() != null ? data.getName() : "");
+                    statement.setLong(8, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not save " + batch.size() + " records: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public long count() throws IOException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(COUNT)) {
+            return result.next() ? result.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new IOException("Could not count records: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public PlayerDataScan scan(String resumeAfter) {
+        return new PlayerDataScan() {
+            private String position = resumeAfter;
+            
+            @Override
+            public List<PlayerData> next(int max) throws IOException {
+                List<PlayerData> batch = new ArrayList<>(max);
+                try (Connection connection = dataSource.getConnection();
+                     PreparedStatement statement = connection.prepareStatement(SCAN)) {
+                    statement.setString(1, position != null ? position : "");
+                    statement.setInt(2, max);
+                    
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            position = result.getString("uuid");
+                            batch.add(read(UUID.fromString(position), result));
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new IOException("Could not scan records: " + e.getMessage(), e);
+                }
+                return batch;
+            }
+            
+            @Override
+            public String position() {
+                return position;
+            }
+        };
+    }
+    
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+    
+    private static PlayerData read(UUID playerId, ResultSet result) throws SQLException {
+        return new PlayerData(
+            playerId,
+            result.getInt("hearts"),
+            result.getLong("last_death"),
+            result.getInt("kills"),
+            result.getInt("deaths"),
+            decodeCooldowns(result.getString("cooldowns")),
+            result.getString("name")
+        );
+    }
+    
+    private static boolean hasColumn(Connection connection, String column) throws SQLException {
+        // Identifiers may be reported in either case depending on the database
+        DatabaseMetaData meta = connection.getMetaData();
+        for (String table : new String[] {TABLE, TABLE.toUpperCase()}) {
+            try (ResultSet columns = meta.getColumns(connection.getCatalog(), null, table, null)) {
+                while (columns.next()) {
+                    if (column.equalsIgnoreCase(columns.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Cooldown deadlines as comma separated epoch millis, trailing zeros left out
+     */
+    private static String encodeCooldowns(long[] cooldowns) {
+        int length = cooldowns.length;
+        while (length > 0 && cooldowns[length - 1] == 0) {
+            length--;
+        }
+        
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                encoded.append(',');
+            }
+            encoded.append(cooldowns[i]);
+        }
+        return encoded.toString();
+    }
+    
+    private static long[] decodeCooldowns(String encoded) {
+        long[] cooldowns = new long[PlayerData.COOLDOWN_SLOTS];
+        if (encoded == null || encoded.isEmpty()) {
+            return cooldowns;
+        }
+        
+        String[] parts = encoded.split(",");
+        for (int i = 0; i < cooldowns.length && i < parts.length; i++) {
+            try {
+                cooldowns[i] = Long.parseLong(parts[i].trim());
+            } catch (NumberFormatException ignored) {
+                // Leave an unreadable slot expired
+            }
+        }
+        return cooldowns;
+    }
+}
@@ -0,0 +1,334 @@
+package com.squeakybagco.lifesteal.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coalescing write-behind stage for player data.
+ * Saves are queued as snapshots and written by a single I/O thread, so disk
+ * latency never lands on a region or tick thread. Several saves of the same
+ * player before the writer gets to them collapse into one write.
+ * A snapshot stays visible through {@link #getPending(UUID)} until it has
+ * been written, and a batch that fails is retried, so a failed or slow write
+ * never exposes an older stored record.
+ */
+public class WriteBehindQueue {
+    
+    private final Logger logger;
+    private final Consumer<List<PlayerData>> writer;
+    private final int batchSize;
+    
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    
+    // Latest snapshot per player plus the order in which players became dirty
+    private final Map<UUID, PlayerData> pending;
+    private final BlockingQueue<UUID> order;
+    private final ExecutorService executor;
+    
+    // Players that arrived while the order queue was full, and snapshots being written
+    private final ConcurrentLinkedQueue<UUID> overflow = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, PlayerData> writing = new ConcurrentHashMap<>();
+    
+    // Flush barriers waiting to be picked up, and those tracked by the I/O thread.
+    // Shutdown takes over both, possibly while a timed-out I/O thread still runs.
+    private final ConcurrentLinkedQueue<Barrier> newBarriers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Barrier> activeBarriers = new ConcurrentLinkedQueue<>();
+    
+    private volatile boolean running = true;
+    
+    /**
+     * @param logger Logger used for write failures
+     * @param writer Persists a batch of snapshots, called on the I/O thread only
+     * @param capacity Players kept in save order, later ones wait until the writer catches up
+     * @param batchSize Maximum number of snapshots handed to the writer at once
+     */
+    public WriteBehindQueue(Logger logger, Consumer<List<PlayerData>> writer, int capacity, int batchSize) {
+        this.logger = logger;
+        this.writer = writer;
+        this.batchSize = Math.max(1, batchSize);
+        this.pending = new ConcurrentHashMap<>();
+        this.order = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Lifesteal-WriteBehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.execute(this::drainLoop);
+    }
+    
+    /**
+     * Queue a snapshot for writing. If a snapshot for the same player is still
+     * waiting it is replaced instead of queued twice.
+     * Never blocks: when the queue is full the player waits in an overflow
+     * list, at most once per player, until the writer has room.
+     */
+    public void enqueue(PlayerData snapshot) {
+        UUID playerId = snapshot.getPlayerId();
+        
+        if (!running) {
+            writeNow(snapshot);
+            return;
+        }
+        
+        if (pending.put(playerId, snapshot) != null) {
+            return; // Coalesced into the write that is already queued
+        }
+        
+        if (!order.offer(playerId)) {
+            // Keep storage I/O off the caller, the snapshot stays coalesced in pending
+            overflow.add(playerId);
+        }
+    }
+    
+    /**
+     * @return The snapshot waiting for or still being written for a player, or null
+     */
+    public PlayerData getPending(UUID playerId) {
+        PlayerData snapshot = pending.get(playerId);
+        return snapshot != null ? snapshot : writing.get(playerId);
+    }
+    
+    /**
+     * Wait for everything queued so far, including a batch already being
+     * written, to reach storage. Later saves do not hold the barrier up.
+     * @return Future completed once those snapshots were written successfully,
+     *         or completed exceptionally if shutdown could not write one of them
+     */
+    public CompletableFuture<Void> flushBarrier() {
+        Barrier barrier = new Barrier();
+        if (!running) {
+            barrier.future.complete(null);
+            return barrier.future;
+        }
+        newBarriers.add(barrier);
+        return barrier.future;
+    }
+    
+    /**
+     * @return Number of players with a snapshot waiting to be written
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+    
+    /**
+     * Stop accepting work and wait for every queued snapshot to be written.
+     * Anything the I/O thread could not finish within the timeout is written
+     * on the calling thread so that shutdown never drops data.
+     * @param timeout Maximum time to wait for the I/O thread
+     * @param unit Unit of the timeout
+     * @return true if the I/O thread finished within the timeout and every snapshot was written
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        executor.shutdown();
+        
+        boolean finished;
+        try {
+            finished = executor.awaitTermination(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished = false;
+        }
+        
+        if (!finished) {
+            executor.shutdownNow();
+            logger.warning("Write-behind queue did not drain in time, writing " + pending.size() + " remaining records on shutdown thread");
+        }
+        
+        // Barriers the I/O thread never picked up wait for everything still queued
+        Barrier barrier;
+        while ((barrier = newBarriers.poll()) != null) {
+            barrier.waiting.addAll(pending.keySet());
+            barrier.waiting.addAll(writing.keySet());
+            activeBarriers.add(barrier);
+        }
+        
+        // Catch anything queued between the last drain and the running flag flipping,
+        // or left in flight or failed when the I/O thread stopped
+        Set<UUID> failed = new HashSet<>();
+        for (UUID playerId : new ArrayList<>(writing.keySet())) {
+            PlayerData snapshot = writing.remove(playerId);
+            if (snapshot != null && !pending.containsKey(playerId) && !writeNow(snapshot)) {
+                failed.add(playerId);
+            }
+        }
+        for (UUID playerId : new ArrayList<>(pending.keySet())) {
+            PlayerData snapshot = pending.remove(playerId);
+            if (snapshot != null && !writeNow(snapshot)) {
+                failed.add(playerId);
+            }
+        }
+        order.clear();
+        overflow.clear();
+        
+        // A barrier only completes normally if every snapshot it waited for reached storage
+        while ((barrier = activeBarriers.poll()) != null) {
+            boolean written = true;
+            for (UUID playerId : barrier.waiting) {
+                if (failed.contains(playerId) || pending.containsKey(playerId) || writing.containsKey(playerId)) {
+                    written = false;
+                    break;
+                }
+            }
+            if (written) {
+                barrier.future.complete(null);
+            } else {
+                barrier.future.completeExceptionally(new IOException("Player data could not be written before shutdown"));
+            }
+        }
+        
+        return finished && failed.isEmpty();
+    }
+    
+    private void drainLoop() {
+        List<UUID> ids = new ArrayList<>(batchSize);
+        List<PlayerData> batch = new ArrayList<>(batchSize);
+        
+        while (running || !order.isEmpty() || !overflow.isEmpty()) {
+            registerBarriers();
+            
+            // Retry the failed batch before taking new work, its ids are still in ids
+            if (ids.isEmpty()) {
+                promoteOverflow();
+                try {
+                    UUID first = order.poll(250, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    ids.add(first);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                order.drainTo(ids, batchSize - 1);
+            }
+            
+            for (UUID playerId : ids) {
+                PlayerData snapshot = take(playerId);
+                if (snapshot != null) {
+                    batch.add(snapshot);
+                }
+            }
+            
+            if (batch.isEmpty() || write(batch)) {
+                for (PlayerData snapshot : batch) {
+                    writing.remove(snapshot.getPlayerId(), snapshot);
+                }
+                releaseBarriers(ids);
+                ids.clear();
+                batch.clear();
+                continue;
+            }
+            
+            // Keep the failed snapshots visible to readers and retry them, newer saves replace them
+            for (PlayerData snapshot : batch) {
+                pending.putIfAbsent(snapshot.getPlayerId(), snapshot);
+                writing.remove(snapshot.getPlayerId(), snapshot);
+            }
+            batch.clear();
+            if (!running) {
+                break; // Shutdown writes what is left in pending and settles the barriers
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Move a player's latest snapshot from pending to writing without a moment
+     * where neither holds it
+     */
+    private PlayerData take(UUID playerId) {
+        PlayerData snapshot = pending.get(playerId);
+        while (snapshot != null) {
+            writing.put(playerId, snapshot);
+            if (pending.remove(playerId, snapshot)) {
+                return snapshot;
+            }
+            snapshot = pending.get(playerId); // Replaced by a newer save meanwhile
+        }
+        return null;
+    }
+    
+    /**
+     * Move players that waited in overflow into the order queue while it has room
+     */
+    private void promoteOverflow() {
+        UUID playerId;
+        while (order.remainingCapacity() > 0 && (playerId = overflow.poll()) != null) {
+            if (!order.offer(playerId)) {
+                overflow.add(playerId); // Filled up by a producer meanwhile
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Runs between batches on the I/O thread, so nothing is in flight and the
+     * pending map holds exactly what the barrier has to wait for
+     */
+    private void registerBarriers() {
+        Barrier barrier;
+        while ((barrier = newBarriers.poll()) != null) {
+            barrier.waiting.addAll(pending.keySet());
+            if (barrier.waiting.isEmpty()) {
+                barrier.future.complete(null);
+            } else {
+                activeBarriers.add(barrier);
+            }
+        }
+    }
+    
+    private void releaseBarriers(List<UUID> written) {
+        Iterator<Barrier> iterator = activeBarriers.iterator();
+        while (iterator.hasNext()) {
+            Barrier barrier = iterator.next();
+            written.forEach(barrier.waiting::remove);
+            if (barrier.waiting.isEmpty()) {
+                barrier.future.complete(null);
+                iterator.remove();
+            }
+        }
+    }
+    
+    private boolean writeNow(PlayerData snapshot) {
+        return write(List.of(snapshot));
+    }
+    
+    private boolean write(List<PlayerData> batch) {
+        try {
+            writer.accept(batch);
+            return true;
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to write " + batch.size() + " player record(s)", e);
+            return false;
+        }
+    }
+    
+    private static class Barrier {
+        private final Set<UUID> waiting = ConcurrentHashMap.newKeySet();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,175 @@
+package com.squeakybagco.lifesteal.storage;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+/**
+ * Original storage format: one playerdata/&lt;uuid&gt;.yml file per player
+ */
+public class YamlPlayerDataStore implements PlayerDataStore {
+    
+    private final File dataFolder;
+    private final IntSupplier defaultHearts;
+    
+    public YamlPlayerDataStore(File dataFolder, IntSupplier defaultHearts) {
+        this.dataFolder = dataFolder;
+        this.defaultHearts = defaultHearts;
+        
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+    }
+    
+    @Override
+    public PlayerData load(UUID playerId) throws IOException {
+        File playerFile = new File(dataFolder, playerId + ".yml");
+        if (!playerFile.exists()) {
+            return null;
+        }
+        
+        return read(playerId, playerFile);
+    }
+    
+    /**
+     * @throws IOException if the file cannot be read or parsed, so a damaged
+     * record is never mistaken for a new player and saved over with defaults
+     */
+    private PlayerData read(UUID playerId, File playerFile) throws IOException {
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(playerFile);
+        } catch (InvalidConfigurationException e) {
+            throw new IOException("Invalid player data file " + playerFile.getName() + ": " + e.getMessage(), e);
+        }
+        if (!config.contains("hearts")) {
+            // Every save writes hearts, so this is a truncated file rather than a new player
+            throw new IOException("Player data file " + playerFile.getName() + " is empty or truncated");
+        }
+        
+        List<Long> stored = config.getLongList("cooldowns");
+        long[] cooldowns = new long[PlayerData.COOLDOWN_SLOTS];
+        for (int i = 0; i < cooldowns.length && i < stored.size(); i++) {
+            cooldowns[i] = stored.get(i);
+        }
+        
+        return new PlayerData(
+            playerId,
+            config.getInt("hearts", defaultHearts.getAsInt()),
+            config.getLong("last-death", 0),
+            config.getInt("kills", 0),
+            config.getInt("deaths", 0),
+            cooldowns,
+            config.getString("name")
+        );
+    }
+    
+    @Override
+    public void save(List<PlayerData> batch) throws IOException {
+        for (PlayerData data : batch) {
+            File playerFile = new File(dataFolder, data.getPlayerId() + ".yml");
+            YamlConfiguration config = new YamlConfiguration();
+            
+            config.set("name", data.getName());
+            config.set("hearts", data.getHearts());
+            config.set("last-death", data.getLastDeath());
+            config.set("kills", data.getKills());
+            config.set("deaths", data.getDeaths());
+            config.set("cooldowns", Arrays.stream(data.getCooldowns()).boxed().toList());
+            config.set("last-updated", System.currentTimeMillis());
+            
+            config.save(playerFile);
+        }
+    }
+    
+    @Override
+    public long count() throws IOException {
+        long count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dataFolder.toPath(), "*.yml")) {
+            for (Path ignored : files) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Scans in file name order without listing the whole folder: each batch is
+     * one pass over the directory that keeps only the next names after the
+     * position, so memory stays at one batch however many players are stored.
+     */
+    @Override
+    public PlayerDataScan scan(String resumeAfter) {
+        return new PlayerDataScan() {
+            private String position = resumeAfter;
+            
+            @Override
+            public List<PlayerData> next(int max) throws IOException {
+                List<PlayerData> batch = new ArrayList<>(max);
+                List<String> names;
+                while (batch.size() < max && !(names = namesAfter(position, max - batch.size())).isEmpty()) {
+                    for (String name : names) {
+                        position = name;
+                        
+                        UUID playerId;
+                        try {
+                            playerId = UUID.fromString(name.substring(0, name.length() - 4));
+                        } catch (IllegalArgumentException e) {
+                            continue; // Not a player file
+                        }
+                        batch.add(read(playerId, new File(dataFolder, name)));
+                    }
+                }
+                return batch;
+            }
+            
+            @Override
+            public String position() {
+                return position;
+            }
+        };
+    }
+    
+    /**
+     * @return Up to max file names that sort after the given one, in order
+     */
+    private List<String> namesAfter(String after, int max) throws IOException {
+        // Largest name first, so it is the one dropped when a smaller name turns up
+        PriorityQueue<String> next = new PriorityQueue<>(max, Comparator.reverseOrder());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dataFolder.toPath(), "*.yml")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (after != null && name.compareTo(after) <= 0) {
+                    continue;
+                }
+                if (next.size() < max) {
+                    next.add(name);
+                } else if (name.compareTo(next.peek()) < 0) {
+                    next.poll();
+                    next.add(name);
+                }
+            }
+        }
+        
+        List<String> names = new ArrayList<>(next);
+        names.sort(null);
+        return names;
+    }
+    
+    @Override
+    public void close() {
+        // Every save is a complete file write, nothing to flush
+    }
+}
@@ -38,6 +38,17 @@ public class HeartUtils {
         return plugin.getCustomHeartManager().createHeartItem(amount);
     }
     
+    /**
+     * Gives heart items as full stacks in one inventory insert.
+     * Must run on the player's own scheduler.
+     * @param value Half-hearts each item provides
+     * @param amount Number of items
+     * @return Number of items that did not fit
+     */
+    public static int giveHeartItems(Player player, int value, int amount) {
+        return plugin.getCustomHeartManager().giveHeartItems(player.getInventory(), value, amount);
+    }
+    
     /**
      * Checks if an ItemStack is a heart item
      * @param item The item to check
@@ -56,6 +67,24 @@ public class HeartUtils {
         return plugin.getCustomHeartManager().getHeartValue(item);
     }
     
+    /**
+     * Formats a duration for messages
+     * @param seconds Duration in seconds
+     * @return Formatted string (e.g., "45 seconds", "5 minutes", "4m 30s")
+     */
+    public static String formatDuration(long seconds) {
+        if (seconds < 60) {
+            return seconds + " second" + (seconds == 1 ? "" : "s");
+        }
+        
+        long minutes = seconds / 60;
+        long remainingSeconds = seconds % 60;
+        if (remainingSeconds == 0) {
+            return minutes + " minute" + (minutes == 1 ? "" : "s");
+        }
+        return minutes + "m " + remainingSeconds + "s";
+    }
+    
     /**
      * Converts half-hearts to a display string
      * @param halfHearts Number of half-hearts
@@ -78,10 +107,19 @@ public class HeartUtils {
      * @return Formatted heart display (e.g., "❤❤❤❤❤ 10.0")
      */
     public static String getHeartDisplay(Player player) {
-        int hearts = plugin.getPlayerDataManager().getPlayerHearts(player.getUniqueId());
+        return getHeartDisplay(plugin.getPlayerDataManager().getPlayerHearts(player.getUniqueId()));
+    }
+    
+    /**
+     * Gets the heart display for a heart count
+     * @param hearts Number of half-hearts
+     * @return Formatted heart display (e.g., "❤❤❤❤❤ 10.0")
+     */
+    public static String getHeartDisplay(int hearts) {
         double fullHearts = hearts / 2.0;
         
-        StringBuilder display = new StringBuilder();
+        // Three characters per symbol and one symbol per two half-hearts, plus the value
+        StringBuilder display = new StringBuilder(Math.max(0, hearts) * 2 + 16);
         
         // Add heart symbols
         int fullHeartCount = hearts / 2;
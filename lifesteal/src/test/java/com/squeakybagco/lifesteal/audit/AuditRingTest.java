@@ -0,0 +1,114 @@
+package com.squeakybagco.lifesteal.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditRingTest {
+    
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(2, new AuditRing<>(1).capacity());
+        assertEquals(8, new AuditRing<>(5).capacity());
+        assertEquals(8, new AuditRing<>(8).capacity());
+        assertEquals(1024, new AuditRing<>(1000).capacity());
+    }
+    
+    @Test
+    void fullRingRejectsUntilDrained() {
+        AuditRing<Integer> ring = new AuditRing<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(1, ring.drain(drained::add, 1));
+        assertTrue(ring.offer(4));
+        assertFalse(ring.offer(5));
+        
+        assertEquals(4, ring.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertEquals(0, ring.drain(drained::add, 10));
+    }
+    
+    @Test
+    void keepsOrderOverManyLaps() {
+        AuditRing<Integer> ring = new AuditRing<>(8);
+        List<Integer> drained = new ArrayList<>();
+        int next = 0;
+        for (int lap = 0; lap < 100; lap++) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(ring.offer(next++));
+            }
+            ring.drain(drained::add, 5);
+        }
+        
+        assertEquals(next, drained.size());
+        for (int i = 0; i < next; i++) {
+            assertEquals(i, (int) drained.get(i));
+        }
+    }
+    
+    @Test
+    void concurrentProducersWrappingTheRingLoseNothing() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        AuditRing<long[]> ring = new AuditRing<>(16); // Small, so every producer wraps it many times
+        CountDownLatch start = new CountDownLatch(1);
+        
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!ring.offer(element)) {
+                        Thread.yield(); // Full, let the consumer catch up
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        
+        // Each producer's elements arrive exactly once and in the order it offered them
+        int[] nextExpected = new int[producers];
+        int[] outOfOrder = new int[1];
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        int received = 0;
+        start.countDown();
+        while (received < producers * perProducer && System.nanoTime() < deadline) {
+            received += ring.drain(element -> {
+                int producer = (int) element[0];
+                if (element[1] != nextExpected[producer]) {
+                    outOfOrder[0]++;
+                }
+                nextExpected[producer] = (int) element[1] + 1;
+            }, 64);
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        
+        assertEquals(producers * perProducer, received);
+        assertEquals(0, outOfOrder[0]);
+        for (int p = 0; p < producers; p++) {
+            assertEquals(perProducer, nextExpected[p]);
+        }
+        assertEquals(0, ring.drain(element -> { }, 64));
+    }
+}
@@ -0,0 +1,110 @@
+package com.squeakybagco.lifesteal.cooldown;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+    
+    // Furthest delay the top level indexes, 64^4 - 1
+    private static final long MAX_DELAY = (1L << 24) - 1;
+    
+    @Test
+    void timersExpireOnTheirTickAcrossLevelBoundaries() {
+        long start = 1_000_003; // Not aligned to any level
+        TimingWheel<Long> wheel = new TimingWheel<>(start);
+        
+        long[] delays = {1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 8191, 262_143, 262_144, 262_145, 300_000};
+        for (long delay : delays) {
+            wheel.schedule(start + delay, start + delay);
+        }
+        assertEquals(delays.length, wheel.size());
+        
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long tick = start + 1; tick <= start + 300_000; tick++) {
+            long now = tick;
+            wheel.advance(tick, deadline -> firedAt.put(deadline, now));
+        }
+        
+        for (long delay : delays) {
+            long fired = firedAt.getOrDefault(start + delay, -1L);
+            assertEquals(start + delay, fired, "Timer " + delay + " ticks out");
+        }
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void overdueTimersExpireOnTheNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(500);
+        wheel.schedule(100, "overdue");
+        wheel.schedule(500, "now");
+        
+        List<String> expired = new ArrayList<>();
+        wheel.advance(501, expired::add);
+        
+        assertEquals(2, expired.size());
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void timersBeyondTheTopLevelWaitAndExpireOnTime() {
+        long start = 77;
+        long far = start + MAX_DELAY + 5_000;
+        TimingWheel<Long> wheel = new TimingWheel<>(start);
+        wheel.schedule(far, far);
+        wheel.schedule(start + MAX_DELAY, start + MAX_DELAY);
+        
+        List<Long> expired = new ArrayList<>();
+        long tick = start;
+        while (tick < far - 1) {
+            tick++;
+            wheel.advance(tick, expired::add);
+            if (tick == start + MAX_DELAY) {
+                assertEquals(List.of(start + MAX_DELAY), expired);
+            }
+        }
+        assertEquals(1, expired.size(), "The far timer must not expire early");
+        
+        wheel.advance(far, expired::add);
+        assertEquals(List.of(start + MAX_DELAY, far), expired);
+    }
+    
+    @Test
+    void largeStepsExpireEverythingDueWithinThem() {
+        Random random = new Random(7);
+        long start = random.nextInt(1 << 20);
+        TimingWheel<Long> wheel = new TimingWheel<>(start);
+        
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            long deadline = start + 1 + random.nextInt(1 << 19);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+        
+        long tick = start;
+        int expiredCount = 0;
+        while (wheel.size() > 0) {
+            long from = tick;
+            tick += 1 + random.nextInt(5_000);
+            long to = tick;
+            List<Long> expired = new ArrayList<>();
+            wheel.advance(to, expired::add);
+            
+            for (long deadline : expired) {
+                assertTrue(deadline > from && deadline <= to, "Deadline " + deadline + " expired in (" + from + ", " + to + "]");
+            }
+            expiredCount += expired.size();
+            long due = deadlines.stream().filter(deadline -> deadline > from && deadline <= to).count();
+            assertEquals(due, expired.size());
+        }
+        assertEquals(deadlines.size(), expiredCount);
+    }
+}
@@ -0,0 +1,115 @@
+package com.squeakybagco.lifesteal.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RankTreeTest {
+    
+    @Test
+    void higherScoresRankFirstAndTiesFollowUuidOrder() {
+        UUID low = new UUID(0, 1);
+        UUID high = new UUID(0, 2);
+        UUID best = new UUID(0, 3);
+        
+        RankTree tree = new RankTree();
+        tree.insert(10, high);
+        tree.insert(10, low);
+        tree.insert(20, best);
+        
+        assertEquals(0, tree.rank(20, best));
+        assertEquals(1, tree.rank(10, low));
+        assertEquals(2, tree.rank(10, high));
+        assertEquals(best, tree.select(0));
+        assertEquals(low, tree.select(1));
+        assertEquals(high, tree.select(2));
+    }
+    
+    @Test
+    void missingPlayersAndPositionsOutOfRange() {
+        RankTree tree = new RankTree();
+        UUID playerId = UUID.randomUUID();
+        tree.insert(5, playerId);
+        
+        assertEquals(-1, tree.rank(5, UUID.randomUUID()));
+        assertEquals(-1, tree.rank(6, playerId), "Looked up with a score the player does not have");
+        assertNull(tree.select(-1));
+        assertNull(tree.select(1));
+    }
+    
+    @Test
+    void rankAndSelectMatchSortedOrderAfterUpdates() {
+        Random random = new Random(42);
+        RankTree tree = new RankTree();
+        Map<UUID, Long> scores = new HashMap<>();
+        List<UUID> players = new ArrayList<>();
+        
+        for (int i = 0; i < 500; i++) {
+            UUID playerId = new UUID(random.nextLong(), random.nextLong());
+            long score = random.nextInt(40); // Plenty of ties
+            players.add(playerId);
+            scores.put(playerId, score);
+            tree.insert(score, playerId);
+        }
+        
+        for (int round = 0; round < 2000; round++) {
+            UUID playerId = players.get(random.nextInt(players.size()));
+            int action = random.nextInt(10);
+            if (action == 0 && scores.containsKey(playerId)) {
+                tree.remove(scores.remove(playerId), playerId);
+            } else if (scores.containsKey(playerId)) {
+                // Score changes move a player by removing and inserting them
+                long score = random.nextInt(40);
+                tree.remove(scores.put(playerId, score), playerId);
+                tree.insert(score, playerId);
+            } else {
+                long score = random.nextInt(40);
+                scores.put(playerId, score);
+                tree.insert(score, playerId);
+            }
+            
+            if (round % 100 == 0) {
+                assertMatches(tree, scores);
+            }
+        }
+        assertMatches(tree, scores);
+    }
+    
+    @Test
+    void removingEveryPlayerEmptiesTheTree() {
+        RankTree tree = new RankTree();
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UUID playerId = UUID.randomUUID();
+            players.add(playerId);
+            tree.insert(i % 7, playerId);
+        }
+        for (int i = 0; i < players.size(); i++) {
+            tree.remove(i % 7, players.get(i));
+        }
+        
+        assertEquals(0, tree.size());
+        assertNull(tree.select(0));
+    }
+    
+    private static void assertMatches(RankTree tree, Map<UUID, Long> scores) {
+        List<UUID> expected = new ArrayList<>(scores.keySet());
+        expected.sort(Comparator.<UUID>comparingLong(scores::get).reversed().thenComparing(Comparator.naturalOrder()));
+        
+        assertEquals(expected.size(), tree.size());
+        for (int rank = 0; rank < expected.size(); rank++) {
+            UUID playerId = expected.get(rank);
+            assertEquals(playerId, tree.select(rank));
+            assertEquals(rank, tree.rank(scores.get(playerId), playerId));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.squeakybagco.lifesteal.names;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NameTrieTest {
+    
+    @Test
+    void completesInAnyCaseKeepingTheStoredCase() {
+        NameTrie trie = new NameTrie();
+        trie.add("Steve");
+        trie.add("stella");
+        trie.add("Alex");
+        
+        assertEquals(List.of("stella", "Steve"), collect(trie, "ST", 10));
+        assertEquals(List.of("Alex"), collect(trie, "a", 10));
+        assertEquals(List.of("stella"), collect(trie, "s", 1));
+        assertEquals(List.of(), collect(trie, "x", 10));
+    }
+    
+    @Test
+    void addingAgainReplacesTheCase() {
+        NameTrie trie = new NameTrie();
+        assertTrue(trie.add("steve"));
+        assertFalse(trie.add("Steve"));
+        
+        assertEquals(1, trie.size());
+        assertEquals(List.of("Steve"), collect(trie, "", 10));
+    }
+    
+    @Test
+    void removingANameKeepsNamesItIsAPrefixOf() {
+        NameTrie trie = new NameTrie();
+        trie.add("Ste");
+        trie.add("Steve");
+        
+        assertTrue(trie.remove("STE"));
+        assertEquals(List.of("Steve"), collect(trie, "st", 10));
+        assertFalse(trie.remove("Ste"));
+        assertFalse(trie.remove("St"), "A prefix that was never added is not a name");
+        
+        assertTrue(trie.remove("steve"));
+        assertEquals(0, trie.size());
+        assertEquals(List.of(), collect(trie, "", 10));
+    }
+    
+    @Test
+    void removingPrunesNodesThatLeadNowhere() throws ReflectiveOperationException {
+        NameTrie trie = new NameTrie();
+        trie.add("Notch");
+        trie.add("Nova");
+        trie.add("jeb_");
+        
+        trie.remove("Notch");
+        assertEquals(List.of("Nova"), collect(trie, "no", 10));
+        assertEquals(List.of(), collect(trie, "not", 10));
+        assertEquals(1, childCount(trie, "no"), "Only the branch to Nova is left");
+        
+        trie.remove("Nova");
+        trie.remove("jeb_");
+        assertEquals(0, childCount(trie, ""), "Every branch was pruned");
+    }
+    
+    @Test
+    void matchesASortedListAfterRandomChanges() {
+        Random random = new Random(3);
+        NameTrie trie = new NameTrie();
+        TreeMap<String, String> expected = new TreeMap<>(); // Lower case to stored name
+        
+        for (int round = 0; round < 5000; round++) {
+            String name = randomName(random);
+            String key = name.toLowerCase(Locale.ROOT);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, trie.remove(name));
+            } else {
+                assertEquals(expected.put(key, name) == null, trie.add(name));
+            }
+        }
+        
+        assertEquals(expected.size(), trie.size());
+        for (String prefix : List.of("", "a", "b", "ab", "BA", "abc")) {
+            String key = prefix.toLowerCase(Locale.ROOT);
+            List<String> matching = new ArrayList<>();
+            for (var entry : expected.tailMap(key).entrySet()) {
+                if (!entry.getKey().startsWith(key)) {
+                    break;
+                }
+                matching.add(entry.getValue());
+            }
+            assertEquals(matching, collect(trie, prefix, Integer.MAX_VALUE), "Prefix " + prefix);
+        }
+    }
+    
+    private static List<String> collect(NameTrie trie, String prefix, int limit) {
+        List<String> out = new ArrayList<>();
+        trie.collect(prefix, limit, out);
+        return out;
+    }
+    
+    private static String randomName(Random random) {
+        // A small alphabet of short names, so names share prefixes and collide
+        StringBuilder name = new StringBuilder();
+        int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            char c = (char) ('a' + random.nextInt(3));
+            name.append(random.nextBoolean() ? Character.toUpperCase(c) : c);
+        }
+        return name.toString();
+    }
+    
+    /**
+     * @return Number of children of the node reached by the prefix
+     */
+    private static int childCount(NameTrie trie, String prefix) throws ReflectiveOperationException {
+        Object node = field(NameTrie.class, "root").get(trie);
+        for (char c : prefix.toCharArray()) {
+            char[] keys = (char[]) field(node.getClass(), "keys").get(node);
+            Object[] children = (Object[]) field(node.getClass(), "children").get(node);
+            node = children[Arrays.binarySearch(keys, c)];
+        }
+        return ((char[]) field(node.getClass(), "keys").get(node)).length;
+    }
+    
+    private static Field field(Class<?> type, String name) throws NoSuchFieldException {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+}
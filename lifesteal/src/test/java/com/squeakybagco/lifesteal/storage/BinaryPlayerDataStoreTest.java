@@ -0,0 +1,220 @@
+package com.squeakybagco.lifesteal.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryPlayerDataStoreTest {
+    
+    private static final Logger LOGGER = Logger.getLogger("BinaryPlayerDataStoreTest");
+    private static final int MAGIC = 0x4C535044;
+    
+    @TempDir
+    Path folder;
+    
+    @Test
+    void recordsSurviveReopening() throws IOException {
+        File file = folder.resolve("players.dat").toFile();
+        PlayerData first = new PlayerData(UUID.randomUUID(), 12, 1700000000000L, 5, 3, new long[] {10, 20, 30, 40}, "Steve");
+        PlayerData second = new PlayerData(UUID.randomUUID(), 4, 0, 0, 9);
+        
+        BinaryPlayerDataStore store = new BinaryPlayerDataStore(file, LOGGER);
+        store.save(List.of(first, second));
+        store.close();
+        
+        store = new BinaryPlayerDataStore(file, LOGGER);
+        assertEquals(2, store.count());
+        assertRecord(first, store.load(first.getPlayerId()));
+        assertRecord(second, store.load(second.getPlayerId()));
+        assertNull(store.load(UUID.randomUUID()));
+        store.close();
+    }
+    
+    @Test
+    void savingAgainOverwritesTheSameSlot() throws IOException {
+        File file = folder.resolve("players.dat").toFile();
+        UUID playerId = UUID.randomUUID();
+        
+        BinaryPlayerDataStore store = new BinaryPlayerDataStore(file, LOGGER);
+        store.save(List.of(new PlayerData(playerId, 10, 0, 0, 0)));
+        store.save(List.of(new PlayerData(playerId, 14, 0, 2, 0)));
+        
+        assertEquals(1, store.count());
+        assertEquals(14, store.load(playerId).getHearts());
+        store.close();
+        assertEquals(16 + recordSize(), file.length());
+    }
+    
+    @Test
+    void longNamesAreCutToTheStoredWidth() throws IOException {
+        File file = folder.resolve("players.dat").toFile();
+        UUID playerId = UUID.randomUUID();
+        String name = "a".repeat(40);
+        
+        BinaryPlayerDataStore store = new BinaryPlayerDataStore(file, LOGGER);
+        store.save(List.of(new PlayerData(playerId, 10, 0, 0, 0, new long[PlayerData.COOLDOWN_SLOTS], name)));
+        assertEquals(name.substring(0, 31), store.load(playerId).getName());
+        store.close();
+    }
+    
+    @Test
+    void scanResumesAfterItsPosition() throws IOException {
+        File file = folder.resolve("players.dat").toFile();
+        List<PlayerData> players = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            players.add(new PlayerData(UUID.randomUUID(), i, 0, 0, 0));
+        }
+        
+        BinaryPlayerDataStore store = new BinaryPlayerDataStore(file, LOGGER);
+        store.save(players);
+        
+        List<UUID> scanned = new ArrayList<>();
+        String position;
+        try (PlayerDataScan scan = store.scan(null)) {
+            scan.next(10).forEach(data -> scanned.add(data.getPlayerId()));
+            position = scan.position();
+        }
+        try (PlayerDataScan scan = store.scan(position)) {
+            List<PlayerData> batch;
+            while (!(batch = scan.next(10)).isEmpty()) {
+                batch.forEach(data -> scanned.add(data.getPlayerId()));
+            }
+        }
+        
+        assertEquals(players.stream().map(PlayerData::getPlayerId).toList(), scanned);
+        store.close();
+    }
+    
+    @Test
+    void corruptRecordsAreSkippedOnOpen() throws IOException {
+        File file = folder.resolve("players.dat").toFile();
+        PlayerData damaged = new PlayerData(UUID.randomUUID(), 10, 0, 0, 0);
+        PlayerData intact = new PlayerData(UUID.randomUUID(), 8, 0, 0, 0);
+        
+        BinaryPlayerDataStore store = new BinaryPlayerDataStore(file, LOGGER);
+        store.save(List.of(damaged, intact));
+        store.close();
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(16 + 16); // Hearts of the first record
+            raw.writeInt(99);
+        }
+        
+        store = new BinaryPlayerDataStore(file, LOGGER);
+        assertEquals(1, store.count());
+        assertNull(store.load(damaged.getPlayerId()));
+        assertEquals(8, store.load(intact.getPlayerId()).getHearts());
+        store.close();
+    }
+    
+    @Test
+    void rejectsFilesThatAreNotSegments() throws IOException {
+        File file = folder.resolve("players.dat").toFile();
+        Files.write(file.toPath(), new byte[32]);
+        
+        assertThrows(IOException.class, () -> new BinaryPlayerDataStore(file, LOGGER));
+    }
+    
+    @Test
+    void upgradesVersionOneSegments() throws IOException {
+        File file = folder.resolve("players.dat").toFile();
+        UUID playerId = UUID.randomUUID();
+        UUID corruptId = UUID.randomUUID();
+        
+        ByteBuffer segment = segment(1, 40, 2);
+        record(segment, 40, playerId, 7, 2, 1, 1650000000000L, new long[0], false);
+        record(segment, 40, corruptId, 3, 0, 0, 0, new long[0], true);
+        Files.write(file.toPath(), segment.array());
+        
+        BinaryPlayerDataStore store = new BinaryPlayerDataStore(file, LOGGER);
+        assertEquals(1, store.count());
+        PlayerData data = store.load(playerId);
+        assertEquals(7, data.getHearts());
+        assertEquals(2, data.getKills());
+        assertEquals(1, data.getDeaths());
+        assertEquals(1650000000000L, data.getLastDeath());
+        assertArrayEquals(new long[PlayerData.COOLDOWN_SLOTS], data.getCooldowns());
+        assertNull(data.getName());
+        assertNull(store.load(corruptId));
+        store.close();
+        assertTrue(new File(file.getPath() + ".v1").exists(), "The old segment is kept as a backup");
+    }
+    
+    @Test
+    void upgradesVersionTwoSegmentsKeepingCooldowns() throws IOException {
+        File file = folder.resolve("players.dat").toFile();
+        UUID playerId = UUID.randomUUID();
+        int size = 40 + PlayerData.COOLDOWN_SLOTS * 8;
+        
+        ByteBuffer segment = segment(2, size, 1);
+        record(segment, size, playerId, 11, 4, 2, 0, new long[] {100, 200, 300, 400}, false);
+        Files.write(file.toPath(), segment.array());
+        
+        BinaryPlayerDataStore store = new BinaryPlayerDataStore(file, LOGGER);
+        PlayerData data = store.load(playerId);
+        assertEquals(11, data.getHearts());
+        assertArrayEquals(new long[] {100, 200, 300, 400}, data.getCooldowns());
+        assertNull(data.getName());
+        
+        // The upgraded segment takes records in the current layout
+        data.setName("Alex");
+        store.save(List.of(data));
+        store.close();
+        
+        store = new BinaryPlayerDataStore(file, LOGGER);
+        assertEquals("Alex", store.load(playerId).getName());
+        store.close();
+        assertTrue(new File(file.getPath() + ".v2").exists(), "The old segment is kept as a backup");
+    }
+    
+    private static void assertRecord(PlayerData expected, PlayerData actual) {
+        assertEquals(expected.getPlayerId(), actual.getPlayerId());
+        assertEquals(expected.getHearts(), actual.getHearts());
+        assertEquals(expected.getKills(), actual.getKills());
+        assertEquals(expected.getDeaths(), actual.getDeaths());
+        assertEquals(expected.getLastDeath(), actual.getLastDeath());
+        assertArrayEquals(expected.getCooldowns(), actual.getCooldowns());
+        assertEquals(expected.getName(), actual.getName());
+    }
+    
+    private static int recordSize() {
+        return 40 + PlayerData.COOLDOWN_SLOTS * 8 + 32;
+    }
+    
+    private static ByteBuffer segment(int version, int recordSize, int records) {
+        ByteBuffer segment = ByteBuffer.allocate(16 + recordSize * records);
+        segment.putInt(MAGIC).putInt(version).putInt(recordSize).putInt(0);
+        return segment;
+    }
+    
+    private static void record(ByteBuffer segment, int recordSize, UUID playerId, int hearts, int kills, int deaths,
+                               long lastDeath, long[] cooldowns, boolean corrupt) {
+        int start = segment.position();
+        segment.putLong(playerId.getMostSignificantBits());
+        segment.putLong(playerId.getLeastSignificantBits());
+        segment.putInt(hearts).putInt(kills).putInt(deaths).putLong(lastDeath);
+        for (long deadline : cooldowns) {
+            segment.putLong(deadline);
+        }
+        
+        CRC32 crc = new CRC32();
+        crc.update(segment.array(), start, recordSize - 4);
+        segment.putInt((int) crc.getValue() ^ (corrupt ? 1 : 0));
+    }
+}
@@ -0,0 +1,165 @@
+package com.squeakybagco.lifesteal.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeartJournalTest {
+    
+    private static final Logger LOGGER = Logger.getLogger("HeartJournalTest");
+    private static final long NO_AUTOMATIC_COMMIT = 3_600_000;
+    
+    @TempDir
+    Path folder;
+    
+    @Test
+    void replayKeepsTheHighestStampNotTheLastEntry() throws IOException {
+        File dir = folder.toFile();
+        UUID playerId = UUID.randomUUID();
+        
+        HeartJournal journal = new HeartJournal(dir, LOGGER, NO_AUTOMATIC_COMMIT);
+        journal.append(HeartJournal.Reason.STEAL, playerId, state(12, 10));
+        journal.append(HeartJournal.Reason.STEAL, playerId, state(8, 5)); // Appended late by a slower thread
+        journal.close();
+        
+        assertEquals(12, HeartJournal.replay(dir, LOGGER).get(playerId).hearts());
+    }
+    
+    @Test
+    void transfersReplayBothPlayers() throws IOException {
+        File dir = folder.toFile();
+        UUID killer = UUID.randomUUID();
+        UUID victim = UUID.randomUUID();
+        
+        HeartJournal journal = new HeartJournal(dir, LOGGER, NO_AUTOMATIC_COMMIT);
+        journal.append(HeartJournal.Reason.STEAL, killer, state(11, 3), victim, state(9, 3));
+        journal.close();
+        
+        Map<UUID, PlayerData.HeartState> hearts = HeartJournal.replay(dir, LOGGER);
+        assertEquals(11, hearts.get(killer).hearts());
+        assertEquals(9, hearts.get(victim).hearts());
+        assertEquals(3, hearts.get(victim).stamp());
+    }
+    
+    @Test
+    void stampedEntriesWinOverUnstampedOnesInAnySegment() throws IOException {
+        File dir = folder.toFile();
+        UUID stampedFirst = UUID.randomUUID();
+        UUID unstampedOnly = UUID.randomUUID();
+        UUID unstampedLater = UUID.randomUUID();
+        
+        // Written before entries were stamped: journal order decides between them
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "journal-0.log"))) {
+            out.write(unstampedRecord(unstampedOnly, 4));
+            out.write(unstampedRecord(unstampedOnly, 6));
+            out.write(unstampedRecord(unstampedLater, 10));
+        }
+        
+        // Written after an upgrade, then older unstamped entries left in a later segment
+        HeartJournal journal = new HeartJournal(dir, LOGGER, NO_AUTOMATIC_COMMIT);
+        journal.append(HeartJournal.Reason.ADMIN_SET, stampedFirst, state(15, 1));
+        journal.append(HeartJournal.Reason.ADMIN_SET, unstampedLater, state(7, 2));
+        journal.close();
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "journal-2.log"))) {
+            out.write(unstampedRecord(stampedFirst, 3));
+        }
+        
+        Map<UUID, PlayerData.HeartState> hearts = HeartJournal.replay(dir, LOGGER);
+        assertEquals(6, hearts.get(unstampedOnly).hearts(), "The later of two unstamped entries");
+        assertEquals(7, hearts.get(unstampedLater).hearts(), "A stamped entry after an unstamped one");
+        assertEquals(15, hearts.get(stampedFirst).hearts(), "An unstamped entry after a stamped one");
+    }
+    
+    @Test
+    void replayStopsAtATornTail() throws IOException {
+        File dir = folder.toFile();
+        UUID playerId = UUID.randomUUID();
+        
+        HeartJournal journal = new HeartJournal(dir, LOGGER, NO_AUTOMATIC_COMMIT);
+        journal.append(HeartJournal.Reason.CONSUME, playerId, state(13, 1));
+        journal.close();
+        
+        File segment = new File(dir, "journal-0.log");
+        byte[] record = Files.readAllBytes(segment.toPath());
+        try (FileOutputStream out = new FileOutputStream(segment, true)) {
+            // The next record was cut off in the middle by a crash
+            out.write(record, 0, record.length / 2);
+        }
+        
+        assertEquals(13, HeartJournal.replay(dir, LOGGER).get(playerId).hearts());
+    }
+    
+    @Test
+    void rotateSealsEverySegmentBeforeTheNewOne() throws Exception {
+        File dir = folder.toFile();
+        UUID playerId = UUID.randomUUID();
+        
+        HeartJournal journal = new HeartJournal(dir, LOGGER, NO_AUTOMATIC_COMMIT);
+        journal.append(HeartJournal.Reason.STEAL, playerId, state(10, 1));
+        List<File> first = journal.rotate().get();
+        assertEquals(List.of(new File(dir, "journal-0.log")), first);
+        
+        // Segments that were not deleted are sealed again by the next rotation
+        journal.append(HeartJournal.Reason.STEAL, playerId, state(11, 2));
+        List<File> second = journal.rotate().get();
+        assertEquals(List.of(new File(dir, "journal-0.log"), new File(dir, "journal-1.log")), second);
+        
+        journal.delete(second);
+        journal.append(HeartJournal.Reason.STEAL, playerId, state(12, 3));
+        journal.close();
+        
+        assertTrue(new File(dir, "journal-2.log").exists());
+        assertEquals(12, HeartJournal.replay(dir, LOGGER).get(playerId).hearts());
+    }
+    
+    @Test
+    void newJournalsContinueAfterExistingSegments() throws IOException {
+        File dir = folder.toFile();
+        UUID playerId = UUID.randomUUID();
+        Files.write(new File(dir, "journal-4.log").toPath(), new byte[0]);
+        
+        HeartJournal journal = new HeartJournal(dir, LOGGER, NO_AUTOMATIC_COMMIT);
+        journal.append(HeartJournal.Reason.WITHDRAW, playerId, state(9, 1));
+        journal.close();
+        
+        assertTrue(new File(dir, "journal-5.log").length() > 0);
+    }
+    
+    private static PlayerData.HeartState state(int hearts, long stamp) {
+        return new PlayerData.HeartState(hearts, 0, stamp);
+    }
+    
+    /**
+     * A record as written before entries carried a stamp
+     */
+    private static byte[] unstampedRecord(UUID playerId, int hearts) {
+        int length = 10 + 20;
+        ByteBuffer record = ByteBuffer.allocate(4 + length + 4);
+        record.putInt(length);
+        record.put((byte) HeartJournal.Reason.STEAL.ordinal());
+        record.putLong(System.currentTimeMillis());
+        record.put((byte) 1);
+        record.putLong(playerId.getMostSignificantBits());
+        record.putLong(playerId.getLeastSignificantBits());
+        record.putInt(hearts);
+        
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, length);
+        record.putInt((int) crc.getValue());
+        return record.array();
+    }
+}
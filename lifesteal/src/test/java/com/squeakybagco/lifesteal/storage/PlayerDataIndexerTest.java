@@ -0,0 +1,108 @@
+package com.squeakybagco.lifesteal.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerDataIndexerTest {
+    
+    private static final Logger LOGGER = Logger.getLogger("PlayerDataIndexerTest");
+    
+    @TempDir
+    Path folder;
+    
+    @Test
+    void parsesTheTopLevelNumbersThePluginWrites() throws IOException {
+        File file = folder.resolve("player.yml").toFile();
+        Files.writeString(file.toPath(), String.join("\n",
+            "name: Steve",
+            "hearts: 14",
+            "last-death: 1700000000000",
+            "kills: '3'",
+            "deaths: -1",
+            "cooldowns:",
+            "- 5",
+            "nested:",
+            "  hearts: 99"
+        ), StandardCharsets.UTF_8);
+        
+        PlayerDataIndexer.Entry entry = PlayerDataIndexer.parse(UUID.randomUUID(), file, 42, 10);
+        assertEquals(14, entry.hearts());
+        assertEquals(3, entry.kills());
+        assertEquals(-1, entry.deaths());
+        assertEquals(1700000000000L, entry.lastDeath());
+        assertEquals(42, entry.modified());
+    }
+    
+    @Test
+    void missingHeartsFallBackToTheDefault() throws IOException {
+        File file = folder.resolve("player.yml").toFile();
+        Files.writeString(file.toPath(), "kills: 2\r\nhearts: not a number\r\n", StandardCharsets.UTF_8);
+        
+        PlayerDataIndexer.Entry entry = PlayerDataIndexer.parse(UUID.randomUUID(), file, 0, 10);
+        assertEquals(10, entry.hearts());
+        assertEquals(2, entry.kills());
+    }
+    
+    @Test
+    void laterRunsOnlyParseChangedFiles() throws IOException {
+        File data = Files.createDirectory(folder.resolve("playerdata")).toFile();
+        File snapshot = folder.resolve("index.dat").toFile();
+        UUID unchanged = UUID.randomUUID();
+        UUID changed = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        write(data, unchanged, 10);
+        write(data, changed, 12);
+        write(data, removed, 8);
+        Files.writeString(new File(data, "notes.yml").toPath(), "hearts: 1", StandardCharsets.UTF_8);
+        
+        PlayerDataIndexer indexer = new PlayerDataIndexer(data, snapshot, LOGGER);
+        PlayerDataIndexer.Result first = indexer.index(10);
+        assertEquals(3, first.parsed());
+        assertEquals(30, first.getTotalHearts());
+        assertTrue(snapshot.exists());
+        
+        File changedFile = write(data, changed, 16);
+        changedFile.setLastModified(changedFile.lastModified() + 5000);
+        assertTrue(new File(data, removed + ".yml").delete());
+        
+        PlayerDataIndexer.Result second = new PlayerDataIndexer(data, snapshot, LOGGER).index(10);
+        assertEquals(1, second.parsed());
+        Map<UUID, PlayerDataIndexer.Entry> entries = second.entries().stream()
+            .collect(Collectors.toMap(PlayerDataIndexer.Entry::playerId, Function.identity()));
+        assertEquals(2, entries.size());
+        assertEquals(10, entries.get(unchanged).hearts());
+        assertEquals(16, entries.get(changed).hearts());
+    }
+    
+    @Test
+    void largeFoldersAreSplitWithoutLosingFiles() throws IOException {
+        File data = Files.createDirectory(folder.resolve("playerdata")).toFile();
+        for (int i = 0; i < 1000; i++) {
+            write(data, UUID.randomUUID(), 2);
+        }
+        
+        PlayerDataIndexer.Result result = new PlayerDataIndexer(data, folder.resolve("index.dat").toFile(), LOGGER).index(10);
+        assertEquals(1000, result.entries().size());
+        assertEquals(2000, result.getTotalHearts());
+    }
+    
+    private static File write(File data, UUID playerId, int hearts) throws IOException {
+        File file = new File(data, playerId + ".yml");
+        Files.writeString(file.toPath(), "hearts: " + hearts + "\nkills: 0\ndeaths: 0\n", StandardCharsets.UTF_8);
+        return file;
+    }
+}